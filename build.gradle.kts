@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("application")
 }
 
 group = "me.jameschan"
@@ -9,6 +10,18 @@ repositories {
     mavenCentral()
 }
 
+// Benchmarks live in their own source set so that they never end up in the application
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     implementation("org.slf4j:slf4j-api:2.1.0-alpha1")
     implementation("org.apache.logging.log4j:log4j:3.0.0-beta1")
@@ -17,12 +30,65 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
 }
 
+application {
+    mainClass.set("me.jameschan.hole.Bootstrap")
+    applicationName = "hole"
+}
+
+// The launcher uses the AppCDS archive built by "cdsArchive" if it is installed next to the JARs.
+// A missing archive, or one built by another JVM or for other JARs, is silently ignored
+tasks.startScripts {
+    doLast {
+        unixScript.writeText(unixScript.readText().replace(
+            "DEFAULT_JVM_OPTS=\"\"",
+            "DEFAULT_JVM_OPTS='\"-XX:SharedArchiveFile='\"\$APP_HOME\"'/lib/hole.jsa\"'"
+        ))
+        windowsScript.writeText(windowsScript.readText().replace(
+            "set DEFAULT_JVM_OPTS=",
+            "set DEFAULT_JVM_OPTS=\"-XX:SharedArchiveFile=%APP_HOME%\\lib\\hole.jsa\""
+        ))
+    }
+}
+
+// Define a custom task named "cdsArchive" that installs the application and dumps the classes
+// loaded by a training run of common commands into an AppCDS archive, so that the launcher starts
+// without parsing and verifying them again. The training run uses the installed JARs in the order
+// of the launcher's class path, since an archive only applies to the class path it was built for
+tasks.register<JavaExec>("cdsArchive") {
+    dependsOn(tasks.installDist)
+    mainClass.set("me.jameschan.hole.Bootstrap")
+
+    val installDir = layout.buildDirectory.dir("install/hole")
+    val trainingHome = layout.buildDirectory.dir("cds/home")
+    val trainingBatch = layout.projectDirectory.file("src/cds/training.batch")
+    classpath = files(tasks.startScripts.map { startScripts ->
+        startScripts.classpath!!.map { installDir.get().file("lib/" + it.name) }
+    })
+    args("--batch", trainingBatch.asFile.absolutePath)
+    inputs.file(trainingBatch)
+    outputs.file(installDir.map { it.file("lib/hole.jsa") })
+    outputs.upToDateWhen { false }
+    doFirst {
+        delete(trainingHome)
+        trainingHome.get().asFile.mkdirs()
+    }
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf(
+            "-XX:ArchiveClassesAtExit=" + installDir.get().file("lib/hole.jsa").asFile,
+            "-Dhole.home=" + trainingHome.get().asFile
+        )
+    })
+}
+
 // Define a custom task named "runWithVersion"
 tasks.register<JavaExec>("runWithVersion") {
     mainClass.set("me.jameschan.hole.Bootstrap")
@@ -34,5 +100,51 @@ tasks.register<JavaExec>("runWithVersion") {
 tasks.register<JavaExec>("createNewEntry") {
     mainClass.set("me.jameschan.hole.Bootstrap")
     classpath = sourceSets.main.get().runtimeClasspath
-    args("new", "name", "James")
-}
\ No newline at end of file
+    args("kv", "new", "name", "James")
+}
+
+// Define a custom task named "jmh" that runs the benchmarks; JMH arguments can be passed with
+// "--args", e.g. gradle jmh --args="EntryStorageBenchmark". Results are always written as JSON to
+// build/reports/jmh/results.json, so that they can be compared across releases
+tasks.register<JavaExec>("jmh") {
+    mainClass.set("org.openjdk.jmh.Main")
+    classpath = sourceSets["jmh"].runtimeClasspath
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(resultFile)
+    outputs.upToDateWhen { false }
+    doFirst {
+        resultFile.get().asFile.parentFile.mkdirs()
+    }
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("-rf", "json", "-rff", resultFile.get().asFile.absolutePath)
+    })
+}
+
+// Define a custom task named "entryFootprint" that measures the heap footprint of entries
+tasks.register<JavaExec>("entryFootprint") {
+    mainClass.set("me.jameschan.hole.benchmark.EntryFootprint")
+    classpath = sourceSets["jmh"].runtimeClasspath
+    maxHeapSize = "2g"
+}
+
+// Define a custom task named "serverLoadTest" that measures the throughput and latency of the HTTP
+// server; see ServerLoadTest for its arguments
+tasks.register<JavaExec>("serverLoadTest") {
+    mainClass.set("me.jameschan.hole.benchmark.ServerLoadTest")
+    classpath = sourceSets["jmh"].runtimeClasspath
+}
+
+// Define a custom task named "startupBenchmark" that measures the wall-clock time of short-lived
+// commands through the installed launcher, with and without the AppCDS archive; the number of runs
+// per command can be passed as an argument, e.g. gradle startupBenchmark --args="50"
+tasks.register<JavaExec>("startupBenchmark") {
+    dependsOn("cdsArchive")
+    mainClass.set("me.jameschan.hole.benchmark.StartupBenchmark")
+    classpath = sourceSets["jmh"].runtimeClasspath
+
+    val launcher = layout.buildDirectory.file("install/hole/bin/hole")
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-Dhole.launcher=" + launcher.get().asFile.absolutePath)
+    })
+}
@@ -0,0 +1,64 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures constructing an application with all its managers, and using an initialized manager,
+ * which happens on every command and entry creation.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AppBenchmark {
+    private HoleApp app;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty(
+            HoleHome.PROPERTY,
+            Files.createTempDirectory("hole-app-benchmark").toString()
+        );
+        System.setProperty(EntryManager.STORAGE_PROPERTY, "memory");
+
+        app = new HoleApp();
+        app.use(HandlerManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.destroy();
+    }
+
+    @Benchmark
+    public Object construct() {
+        return new HoleApp();
+    }
+
+    @Benchmark
+    public Object use() {
+        return app.use(ConfigManager.class);
+    }
+}
@@ -0,0 +1,101 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.command.Command;
+import me.jameschan.hole.command.CommandTemplate;
+import me.jameschan.hole.command.OptionTemplate;
+import me.jameschan.hole.command.TokenIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a command line: splitting raw arguments into tokens with
+ * {@link TokenIterator}, and making a {@link Command} from the tokens with
+ * {@link CommandTemplate#make(TokenIterator)}, and retrieving the options of the command by long
+ * label and by index. A small command line looks like
+ * {@code key -p ap}; a large one has many arguments and long and clustered short options.
+ * <p>
+ * Tokenizing should not allocate; run with {@code -prof gc} to see the allocation rate of every
+ * benchmark.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandBenchmark {
+    @Param({"small", "large"})
+    public String size;
+
+    private List<String> rawArgs;
+
+    private CommandTemplate commandTemplate;
+
+    private Command command;
+
+    @Setup
+    public void setUp() {
+        commandTemplate = new CommandTemplate() {{
+            addOptionTemplate(new OptionTemplate("prefix", 'p', 1));
+            addOptionTemplate(new OptionTemplate("range", 'r', 2));
+            addOptionTemplate(new OptionTemplate("all", 'a'));
+            addOptionTemplate(new OptionTemplate("verbose", 'v'));
+            addOptionTemplate(new OptionTemplate("quiet", 'q'));
+        }};
+
+        rawArgs = new ArrayList<>();
+        if (size.equals("small")) {
+            rawArgs.addAll(List.of("-p", "ap"));
+        } else {
+            for (var i = 0; i < 16; ++i) {
+                rawArgs.add("argument-" + i);
+                rawArgs.add("--prefix");
+                rawArgs.add("prefix-" + i);
+                rawArgs.add("-avq");
+            }
+        }
+
+        command = commandTemplate.make(new TokenIterator(rawArgs));
+    }
+
+    @Benchmark
+    public void tokenize(final Blackhole blackhole) {
+        final var tokenIterator = new TokenIterator(rawArgs);
+        while (tokenIterator.hasNext()) {
+            blackhole.consume(tokenIterator.next());
+        }
+    }
+
+    @Benchmark
+    public Command make() {
+        return commandTemplate.make(new TokenIterator(rawArgs));
+    }
+
+    @Benchmark
+    public void getOptionByLongLabel(final Blackhole blackhole) {
+        blackhole.consume(command.getOption("prefix"));
+        blackhole.consume(command.getOption("range"));
+        blackhole.consume(command.getOption("quiet"));
+    }
+
+    @Benchmark
+    public void getOptionByIndex(final Blackhole blackhole) {
+        blackhole.consume(command.getOption(0));
+        blackhole.consume(command.getOption(1));
+        blackhole.consume(command.getOption(4));
+    }
+}
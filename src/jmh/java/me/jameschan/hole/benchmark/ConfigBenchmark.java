@@ -0,0 +1,96 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
+import me.jameschan.config.ConfigStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConfigStack#update()} on a stack of levels that each set every key, after one
+ * key of the top level has changed, and reading a key of the resolved configuration by name, by
+ * its {@link ConfigKey}, and unboxed.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigBenchmark {
+    @Param({"10", "1000"})
+    public int keys;
+
+    @Param({"2", "8"})
+    public int levels;
+
+    private ConfigStack configStack;
+
+    private Config topConfig;
+
+    private int round;
+
+    private ConfigKey<Integer> countKey;
+
+    @Setup
+    public void setUp() {
+        final Set<String> keySet = new HashSet<>();
+        for (var i = 0; i < keys; ++i) {
+            keySet.add("key-" + i);
+        }
+
+        final var defaultConfig = new Config(keySet);
+        keySet.forEach(key -> defaultConfig.set(key, "default"));
+        configStack = new ConfigStack(defaultConfig);
+        for (var level = 1; level < levels; ++level) {
+            final var config = configStack.createConfig("level-" + level);
+            final var value = "level-" + level;
+            keySet.forEach(key -> config.set(key, value));
+            topConfig = config;
+        }
+
+        if (topConfig == null) {
+            topConfig = configStack.get(ConfigStack.DEFAULT_LEVEL);
+        }
+
+        countKey = ConfigKey.of("count", Integer.class);
+        keySet.add(countKey.name());
+        topConfig.set(countKey, 42);
+        configStack.update();
+    }
+
+    @Benchmark
+    public Object update() {
+        topConfig.set("key-0", round++);
+        configStack.update();
+        return configStack.getDynamic().get("key-0");
+    }
+
+    @Benchmark
+    public Object get() {
+        return configStack.snapshot().get("key-0");
+    }
+
+    @Benchmark
+    public Integer getTyped() {
+        return configStack.snapshot().get(countKey);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return configStack.snapshot().getInt(countKey, 0);
+    }
+}
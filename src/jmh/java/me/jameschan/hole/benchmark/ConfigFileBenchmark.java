@@ -0,0 +1,86 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.config.ConfigFileReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures reading a config file of plugins, each with a few nested keys, by parsing it and from
+ * the cache of the parsed result.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigFileBenchmark {
+    /**
+     * The number of plugins in the config file.
+     */
+    @Param({"10", "1000"})
+    public int plugins;
+
+    private Path dir;
+
+    private Path configPath;
+
+    private ConfigFileReader parsingReader;
+
+    private ConfigFileReader cachingReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("hole-config-file-benchmark");
+        configPath = dir.resolve("config.json");
+
+        final var json = new StringBuilder("{");
+        for (var i = 0; i < plugins; ++i) {
+            json.append(i == 0 ? "" : ",")
+                .append("\"plugin-").append(i).append("\": {")
+                .append("\"enabled\": true, \"retries\": ").append(i)
+                .append(", \"endpoint\": \"https://example.com/").append(i).append("\"")
+                .append(", \"tags\": [\"a\", \"b\", \"c\"]}");
+        }
+        Files.writeString(configPath, json.append("}"));
+
+        parsingReader = new ConfigFileReader(null);
+        cachingReader = new ConfigFileReader(dir.resolve("cache"));
+        cachingReader.read(configPath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (final Stream<Path> stream = Files.walk(dir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object parse() {
+        return parsingReader.read(configPath);
+    }
+
+    @Benchmark
+    public Object cached() {
+        return cachingReader.read(configPath);
+    }
+}
@@ -0,0 +1,157 @@
+package me.jameschan.hole.benchmark;
+
+import com.google.gson.Gson;
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.codec.EntryEncoder;
+import me.jameschan.hole.entry.codec.EntryReader;
+import me.jameschan.hole.entry.codec.NameDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary record format of {@link EntryEncoder} with Gson JSON on a stream of entries
+ * with the "key", "value" and "time" properties written by the key-value and time plugins:
+ * encoding the stream, decoding it into entries, and reading one property of every record in
+ * place. Every operation handles the whole stream, and the bytes per entry of both formats are
+ * printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntryCodecBenchmark {
+    /**
+     * The number of entries of the stream.
+     */
+    private static final int ENTRIES = 1000;
+
+    private final Gson gson = new Gson();
+
+    private List<Entry> entryList;
+
+    private ByteBuffer binary;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        entryList = new ArrayList<>();
+        for (var id = 1; id <= ENTRIES; ++id) {
+            final var entry = new Entry(id);
+            entry.set("key", "key-" + id);
+            entry.set("value", "value-" + id);
+            entry.set("time", Long.toString(1_700_000_000_000L + id));
+            entryList.add(entry);
+        }
+
+        binary = encodeBinary();
+        json = encodeGson();
+        System.out.printf(
+            "%nBytes per entry: binary %.1f, JSON %.1f%n",
+            (double) binary.remaining() / ENTRIES,
+            (double) json.length / ENTRIES
+        );
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        final var encoder = new EntryEncoder(new NameDictionary(), true);
+        var output = ByteBuffer.allocate(64 << 10);
+        for (final var entry : entryList) {
+            final var record = encoder.encode(entry);
+            if (output.remaining() < record.remaining()) {
+                final var required = output.position() + record.remaining();
+                output = ByteBuffer.allocate(Math.max(output.capacity() * 2, required))
+                    .put(output.flip());
+            }
+            output.put(record);
+        }
+
+        return output.flip();
+    }
+
+    @Benchmark
+    public byte[] encodeGson() {
+        final var builder = new StringBuilder();
+        for (final var entry : entryList) {
+            builder.append(gson.toJson(JsonEntry.of(entry))).append('\n');
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Entry> decodeBinary() {
+        final var stream = binary.duplicate();
+        final var reader = new EntryReader(new NameDictionary());
+        final var result = new ArrayList<Entry>(ENTRIES);
+        while (stream.hasRemaining()) {
+            result.add(reader.wrap(stream).toEntry());
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public List<Entry> decodeGson() {
+        final var result = new ArrayList<Entry>(ENTRIES);
+        for (final var line : new String(json, StandardCharsets.UTF_8).split("\n")) {
+            final var jsonEntry = gson.fromJson(line, JsonEntry.class);
+            final var entry = new Entry(jsonEntry.id);
+            jsonEntry.properties.forEach(entry::set);
+            result.add(entry);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the "value" property of every record without decoding the other properties.
+     */
+    @Benchmark
+    public int readValueBinary() {
+        final var stream = binary.duplicate();
+        final var reader = new EntryReader(new NameDictionary());
+        var length = 0;
+        while (stream.hasRemaining()) {
+            length += reader.wrap(stream).get("value").length();
+        }
+
+        return length;
+    }
+
+    /**
+     * The JSON form of an entry.
+     */
+    private static final class JsonEntry {
+        int id;
+
+        Map<String, String> properties;
+
+        static JsonEntry of(final Entry entry) {
+            final var jsonEntry = new JsonEntry();
+            jsonEntry.id = entry.getId();
+            jsonEntry.properties = new LinkedHashMap<>();
+            entry.forEach(jsonEntry.properties::put);
+            return jsonEntry;
+        }
+    }
+}
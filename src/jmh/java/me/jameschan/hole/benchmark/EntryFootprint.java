@@ -0,0 +1,111 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.entry.storage.MemoryEntryStorage;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap footprint of one million entries, comparing the former layout, in which every
+ * entry carries its own hash map of properties, with the columnar layout of {@link
+ * MemoryEntryStorage}. Every entry has the "key", "value" and "time" properties written by the
+ * key-value and time plugins.
+ * <p>
+ * Run it with {@code gradle entryFootprint}; the number of entries can be passed as the first
+ * argument.
+ */
+public class EntryFootprint {
+    public static void main(final String[] args) {
+        final var entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        final var legacy = measure(entries, count -> {
+            final Map<Integer, LegacyEntry> byId = new HashMap<>();
+            for (var id = 1; id <= count; ++id) {
+                final var entry = new LegacyEntry(id);
+                entry.properties.put("key", key(id));
+                entry.properties.put("value", value(id));
+                entry.properties.put("time", time(id));
+                byId.put(id, entry);
+            }
+
+            return byId;
+        });
+
+        final var columnar = measure(entries, count -> {
+            final var storage = new MemoryEntryStorage();
+            for (var id = 1; id <= count; ++id) {
+                final var entry = storage.create(id);
+                entry.set("key", key(id));
+                entry.set("value", value(id));
+                entry.set("time", time(id));
+                storage.write(entry);
+            }
+
+            return storage;
+        });
+
+        report("hash map per entry", legacy, entries);
+        report("columnar", columnar, entries);
+    }
+
+    private static String key(final int id) {
+        return "key-" + id;
+    }
+
+    private static String value(final int id) {
+        return "value-" + id;
+    }
+
+    private static String time(final int id) {
+        return Long.toString(1_700_000_000_000L + id);
+    }
+
+    /**
+     * Measures the heap retained by the object built by the given function.
+     * @param entries The number of entries to build.
+     * @param builder The function that builds the entries.
+     * @return the number of retained bytes.
+     */
+    private static long measure(final int entries, final IntFunction<Object> builder) {
+        final var before = usedHeap();
+        final var retained = builder.apply(entries);
+        final var after = usedHeap();
+
+        // Keep the entries reachable until the heap has been measured
+        if (retained.hashCode() == 42) {
+            System.out.print("");
+        }
+
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        final var memory = ManagementFactory.getMemoryMXBean();
+        for (var i = 0; i < 5; ++i) {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void report(final String layout, final long bytes, final int entries) {
+        System.out.printf(
+            "%-20s %10.1f MiB %8.1f bytes/entry%n",
+            layout, bytes / 1024.0 / 1024.0, (double) bytes / entries
+        );
+    }
+
+    /**
+     * The former layout of an entry.
+     */
+    private static final class LegacyEntry {
+        private final int id;
+        private final Map<String, String> properties = new HashMap<>();
+
+        private LegacyEntry(final int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of {@link EntryManager}: creating entries and looking up random existing
+ * entries on their own, and a mixed workload of one create for every three lookups, with 1, 4, 16
+ * and 64 threads sharing one manager.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EntryManagerBenchmark {
+    @Param({"memory", "log"})
+    public String storage;
+
+    /**
+     * The number of entries created before the benchmark starts.
+     */
+    @Param({"1000", "100000"})
+    public int entries;
+
+    private Path home;
+
+    private HoleApp app;
+
+    private EntryManager entryManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        home = Files.createTempDirectory("hole-entry-manager-benchmark");
+        System.setProperty(HoleHome.PROPERTY, home.toString());
+        System.setProperty(EntryManager.STORAGE_PROPERTY, storage);
+
+        app = new HoleApp();
+        entryManager = app.use(EntryManager.class);
+        for (var i = 0; i < entries; ++i) {
+            entryManager.create(Map.of("key", "key-" + i, "value", "value-" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.destroy();
+        try (final Stream<Path> stream = Files.walk(home)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object create() {
+        return entryManager.create(Map.of("key", "key", "value", "value"));
+    }
+
+    @Benchmark
+    public Object getById() {
+        final var id = 1 + ThreadLocalRandom.current().nextInt(entries);
+        return entryManager.getById(id).get("value");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1() {
+        return mixed();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object threads4() {
+        return mixed();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object threads16() {
+        return mixed();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object threads64() {
+        return mixed();
+    }
+
+    private Object mixed() {
+        final var random = ThreadLocalRandom.current();
+        if (random.nextInt(4) == 0) {
+            return entryManager.create(Map.of("key", "key", "value", "value"));
+        }
+
+        final var id = 1 + random.nextInt(entries);
+        return entryManager.getById(id).get("value");
+    }
+}
@@ -0,0 +1,117 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.storage.LogEntryStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long it takes to open a {@link LogEntryStorage} holding a given number of entries,
+ * how many entries per second can be appended to it, and how many entries per second can be read
+ * from it by as many threads as there are cores.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class EntryStorageBenchmark {
+    @Param({"1000000", "10000000"})
+    public int entries;
+
+    private Path dir;
+
+    private LogEntryStorage storage;
+
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        dir = Files.createTempDirectory("hole-storage-benchmark");
+        final var maxSegmentSize = LogEntryStorage.DEFAULT_MAX_SEGMENT_SIZE;
+        try (final var storage = new LogEntryStorage(dir, maxSegmentSize, null)) {
+            for (var id = 1; id <= entries; ++id) {
+                storage.write(createEntry(id));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (final Stream<Path> stream = Files.walk(dir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void open() {
+        storage = new LogEntryStorage(dir, LogEntryStorage.DEFAULT_MAX_SEGMENT_SIZE, null);
+        nextId = storage.maxId() + 1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        storage.close();
+    }
+
+    /**
+     * Opens the storage, which rebuilds the ID index from all segments.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int openStorage() {
+        storage.close();
+        storage = new LogEntryStorage(dir, LogEntryStorage.DEFAULT_MAX_SEGMENT_SIZE, null);
+        return storage.maxId();
+    }
+
+    /**
+     * Appends one entry to the storage.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void append() {
+        storage.write(createEntry(nextId++));
+    }
+
+    /**
+     * Reads a random entry, concurrently from all cores.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Entry read() {
+        return storage.read(ThreadLocalRandom.current().nextInt(entries) + 1);
+    }
+
+    private static Entry createEntry(final int id) {
+        final var entry = new Entry(id);
+        entry.set("key", "key-" + (id % 1000));
+        entry.set("value", "value-" + id);
+        entry.set("time", "1700000000000");
+
+        return entry;
+    }
+}
@@ -0,0 +1,98 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.command.TokenIterator;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures dispatching a command through {@link HandlerManager#execute(Bundle, TokenIterator)}:
+ * the builtin {@code --version} command, which does no work of its own, and a {@code key} lookup
+ * against the key-value plugin holding a given number of entries in memory.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandlerBenchmark {
+    @Param({"1000", "100000"})
+    public int entries;
+
+    private Path home;
+
+    private HoleApp app;
+
+    private HandlerManager handlerManager;
+
+    private List<List<String>> keyCommands;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        home = Files.createTempDirectory("hole-handler-benchmark");
+        System.setProperty(HoleHome.PROPERTY, home.toString());
+        System.setProperty(EntryManager.STORAGE_PROPERTY, "memory");
+
+        app = new HoleApp();
+        handlerManager = app.use(HandlerManager.class);
+        keyCommands = new ArrayList<>(entries);
+        for (var i = 0; i < entries; ++i) {
+            handlerManager.handleRawArgs(
+                List.of("kv", "new", "key-" + i, "value-" + i),
+                Bundle.create()
+            );
+            keyCommands.add(List.of("key", "key-" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.destroy();
+        try (final Stream<Path> stream = Files.walk(home)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Bundle version() {
+        final var bundle = Bundle.create();
+        handlerManager.execute(bundle, new TokenIterator(List.of("--version")));
+        return bundle;
+    }
+
+    @Benchmark
+    public Bundle key() {
+        final var bundle = Bundle.create();
+        final var rawArgs = keyCommands.get(random.nextInt(entries));
+        handlerManager.execute(bundle, new TokenIterator(rawArgs));
+        return bundle;
+    }
+}
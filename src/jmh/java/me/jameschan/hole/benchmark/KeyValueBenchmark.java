@@ -0,0 +1,84 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.builtin.keyvalue.KeyValuePlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link KeyValuePlugin#afterCreateEntry(Entry)}, which adds a written entry to the open
+ * persistent key index, cycling through a given number of distinct keys.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyValueBenchmark {
+    @Param({"100", "100000"})
+    public int keys;
+
+    private Path home;
+
+    private HoleApp app;
+
+    private KeyValuePlugin keyValuePlugin;
+
+    private String[] keyArray;
+
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        home = Files.createTempDirectory("hole-key-value-benchmark");
+        System.setProperty(HoleHome.PROPERTY, home.toString());
+        System.setProperty(EntryManager.STORAGE_PROPERTY, "memory");
+
+        app = new HoleApp();
+        keyValuePlugin = app.use(PluginManager.class).get(KeyValuePlugin.class);
+        keyValuePlugin.index();
+        keyArray = new String[keys];
+        for (var i = 0; i < keys; ++i) {
+            keyArray[i] = "key-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.destroy();
+        try (final Stream<Path> stream = Files.walk(home)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void afterCreateEntry() {
+        final var id = ++nextId;
+        final var entry = new Entry(id);
+        entry.set(KeyValuePlugin.KEY, keyArray[id % keys]);
+        keyValuePlugin.afterCreateEntry(entry);
+    }
+}
@@ -0,0 +1,185 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.builtin.server.ServerPlugin;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-tests the HTTP server of the {@link ServerPlugin} on the loopback interface. The server is
+ * filled with entries, and then a number of concurrent clients, each on its own virtual thread,
+ * look up random keys for a fixed duration; the throughput and latency percentiles are reported
+ * after a warm-up of the same duration.
+ * <p>
+ * Run it with {@code gradle serverLoadTest}; the number of concurrent clients, the duration in
+ * seconds and the number of entries can be passed as arguments, e.g.
+ * {@code gradle serverLoadTest --args="1000 10 10000"}.
+ */
+public class ServerLoadTest {
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final var clients = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        final var seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final var entries = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        System.setProperty(HoleHome.PROPERTY, Files.createTempDirectory("hole-load").toString());
+        System.setProperty(EntryManager.STORAGE_PROPERTY, "memory");
+
+        final var app = new HoleApp();
+        try {
+            final var handlerManager = app.use(HandlerManager.class);
+            for (var i = 0; i < entries; ++i) {
+                handlerManager.handleRawArgs(
+                    List.of("kv", "new", key(i), "value-" + i),
+                    Bundle.create()
+                );
+            }
+
+            final var serverPlugin = app.use(PluginManager.class).get(ServerPlugin.class);
+            final var address = serverPlugin.start(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+            );
+            final var baseUri = "http://127.0.0.1:" + address.getPort() + "/key?arg=";
+
+            try (final var client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+                run(client, baseUri, clients, seconds, entries);
+                final var result = run(client, baseUri, clients, seconds, entries);
+                report(result, clients, seconds);
+            }
+        } finally {
+            app.destroy();
+        }
+    }
+
+    private static String key(final int i) {
+        return "key-" + i;
+    }
+
+    /**
+     * Runs the clients for a duration.
+     * @return the latencies of all successful requests in nanoseconds, and the number of failures.
+     */
+    private static Result run(
+        final HttpClient client,
+        final String baseUri,
+        final int clients,
+        final int seconds,
+        final int entries
+    ) throws InterruptedException {
+        final var deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        final var latencyLists = new ArrayList<long[]>();
+        final var counts = new int[clients];
+        final var failures = new AtomicLong();
+        for (var i = 0; i < clients; ++i) {
+            latencyLists.add(new long[1024]);
+        }
+
+        final var threads = new Thread[clients];
+        for (var i = 0; i < clients; ++i) {
+            final var index = i;
+            threads[i] = Thread.ofVirtual().start(() -> {
+                final var random = ThreadLocalRandom.current();
+                var latencies = latencyLists.get(index);
+                var count = 0;
+                while (System.nanoTime() < deadline) {
+                    final var request = HttpRequest.newBuilder(
+                        URI.create(baseUri + key(random.nextInt(entries)))
+                    ).build();
+
+                    final var start = System.nanoTime();
+                    try {
+                        final var response = client.send(
+                            request,
+                            HttpResponse.BodyHandlers.ofByteArray()
+                        );
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                    } catch (final IOException e) {
+                        failures.incrementAndGet();
+                        continue;
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+
+                latencyLists.set(index, latencies);
+                counts[index] = count;
+            });
+        }
+
+        for (final var thread : threads) {
+            thread.join();
+        }
+
+        var total = 0;
+        for (final var count : counts) {
+            total += count;
+        }
+
+        final var latencies = new long[total];
+        var offset = 0;
+        for (var i = 0; i < clients; ++i) {
+            System.arraycopy(latencyLists.get(i), 0, latencies, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(latencies);
+
+        return new Result(latencies, failures.get());
+    }
+
+    private static void report(final Result result, final int clients, final int seconds) {
+        final var latencies = result.latencies();
+        System.out.printf(
+            "%d clients, %d s: %.0f requests/s, p50 %.2f ms, p99 %.2f ms, %d failures%n",
+            clients,
+            seconds,
+            (double) latencies.length / seconds,
+            percentile(latencies, 0.50) / 1e6,
+            percentile(latencies, 0.99) / 1e6,
+            result.failures()
+        );
+    }
+
+    private static long percentile(final long[] sorted, final double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * p))];
+    }
+
+    /**
+     * The outcome of a run.
+     * @param latencies The sorted latencies of successful requests in nanoseconds.
+     * @param failures  The number of failed requests.
+     */
+    private record Result(long[] latencies, long failures) {
+    }
+}
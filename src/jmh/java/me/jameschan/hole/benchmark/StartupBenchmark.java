@@ -0,0 +1,130 @@
+package me.jameschan.hole.benchmark;
+
+import me.jameschan.hole.common.HoleHome;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the startup latency of the command line, which dominates short-lived invocations. Every
+ * command is run through the installed launcher as a new process, and the wall-clock time from
+ * starting the process to its exit is reported for two configurations: with the AppCDS archive
+ * built by {@code gradle cdsArchive}, and with only the default archive of the JDK.
+ * <p>
+ * Run it with {@code gradle startupBenchmark}, which passes the path of the launcher in the
+ * {@code hole.launcher} system property; the number of runs per command can be passed as an
+ * argument, e.g. {@code gradle startupBenchmark --args="50"}. Every configuration runs the commands
+ * once before measuring, so that the file system cache is warm.
+ */
+public class StartupBenchmark {
+    /**
+     * The system property holding the path of the launcher.
+     */
+    public static final String LAUNCHER_PROPERTY = "hole.launcher";
+
+    /**
+     * The commands to measure.
+     */
+    private static final List<List<String>> COMMANDS = List.of(
+        List.of("--version"),
+        List.of("new"),
+        List.of("key", "x")
+    );
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final var launcherPath = System.getProperty(LAUNCHER_PROPERTY);
+        if (launcherPath == null) {
+            System.err.println("The path of the launcher is not set: " + LAUNCHER_PROPERTY);
+            System.exit(1);
+        }
+
+        final var launcher = Path.of(launcherPath);
+        final var runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final var home = Files.createTempDirectory("hole-startup");
+        final var jdkArchive = Path.of(System.getProperty("java.home"), "lib/server/classes.jsa");
+
+        System.out.printf(
+            "%-12s %-10s %10s %10s %10s%n",
+            "command", "archive", "mean", "p50", "max"
+        );
+        for (final var command : COMMANDS) {
+            final var appCds = measure(launcher, command, home, "", runs);
+            final var jdkCds = measure(
+                launcher,
+                command,
+                home,
+                "-XX:SharedArchiveFile=" + jdkArchive,
+                runs
+            );
+            report(command, "AppCDS", appCds);
+            report(command, "JDK", jdkCds);
+        }
+    }
+
+    /**
+     * Runs a command through the launcher repeatedly.
+     * @param launcher The path of the launcher.
+     * @param command  The arguments of the command.
+     * @param home     The home directory of the runs.
+     * @param javaOpts Additional options of the JVM, which override those of the launcher.
+     * @param runs     The number of measured runs.
+     * @return the wall-clock times of the runs in nanoseconds, sorted.
+     */
+    private static long[] measure(
+        final Path launcher,
+        final List<String> command,
+        final Path home,
+        final String javaOpts,
+        final int runs
+    ) throws IOException, InterruptedException {
+        final List<String> commandLine = new ArrayList<>();
+        commandLine.add(launcher.toString());
+        commandLine.addAll(command);
+
+        final var processBuilder = new ProcessBuilder(commandLine)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT);
+        final var environment = processBuilder.environment();
+        environment.put("JAVA_HOME", System.getProperty("java.home"));
+        environment.put("JAVA_OPTS", javaOpts);
+        environment.put("HOLE_OPTS", "-D" + HoleHome.PROPERTY + "=" + home);
+
+        run(processBuilder);
+        final var times = new long[runs];
+        for (var i = 0; i < runs; ++i) {
+            final var start = System.nanoTime();
+            run(processBuilder);
+            times[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(times);
+        return times;
+    }
+
+    private static void run(final ProcessBuilder processBuilder)
+        throws IOException, InterruptedException {
+        final var exitCode = processBuilder.start().waitFor();
+        if (exitCode != 0) {
+            throw new RuntimeException("Fail to run command: " + processBuilder.command());
+        }
+    }
+
+    private static void report(
+        final List<String> command,
+        final String archive,
+        final long[] times
+    ) {
+        System.out.printf(
+            "%-12s %-10s %8.1fms %8.1fms %8.1fms%n",
+            String.join(" ", command),
+            archive,
+            Arrays.stream(times).average().orElse(0) / 1e6,
+            times[times.length / 2] / 1e6,
+            times[times.length - 1] / 1e6
+        );
+    }
+}
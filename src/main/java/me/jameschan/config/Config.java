@@ -1,5 +1,7 @@
 package me.jameschan.config;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -7,17 +9,39 @@ import java.util.Set;
 /**
  * A configuration class that stores settings or parameters. Only keys present in provided key set
  * are allowed, ensuring the configuration contains only predefined keys.
+ * <p>
+ * Values are stored in arrays indexed by the slots of their {@link ConfigKey}s, so reading a value
+ * through a key is an array load. Integral and boolean values are also stored unboxed, and read
+ * by {@link #getInt}, {@link #getLong} and {@link #getBoolean}.
  */
 public class Config implements Cloneable {
+    /**
+     * Stands for a key that is set to {@code null}, as {@code null} stands for a key that is not
+     * set.
+     */
+    static final Object NULL = new Object();
+
     /**
      * Set containing allowed key for configuration.
      */
     public final Set<String> keySet;
 
     /**
-     * Internal storage for configuration data
+     * The values by slot: {@link #NULL} for keys set to {@code null}, {@code null} for keys that
+     * are not set. Slots beyond the end are not set.
+     */
+    private Object[] values = new Object[0];
+
+    /**
+     * The values of integral and boolean keys by slot, as longs; booleans are 1 or 0.
+     */
+    private long[] primitives = new long[0];
+
+    /**
+     * The slots set since the {@link ConfigStack} of this config last resolved them; or
+     * {@code null} if this config is not a level of a stack.
      */
-    private final Map<String, Object> data = new HashMap<>();
+    BitSet changedSlots;
 
     /**
      * Constructs a new Config instance with specified allowed keys.
@@ -34,7 +58,49 @@ public class Config implements Cloneable {
      * no mapping for the key.
      */
     public Object get(final String key) {
-        return data.get(key);
+        final var slot = ConfigKey.findSlot(key);
+        return slot < 0 ? null : unwrap(valueAt(slot));
+    }
+
+    /**
+     * Retrieves the value of a key.
+     * @param key The key.
+     * @param <T> The type of the values of the key.
+     * @return the value; or {@code null} if the key is not set.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final ConfigKey<T> key) {
+        return (T) unwrap(valueAt(key.slot));
+    }
+
+    /**
+     * Retrieves the value of an integer key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if the key is not set or is set to {@code null}.
+     * @return the value.
+     */
+    public int getInt(final ConfigKey<Integer> key, final int defaultValue) {
+        return (int) getLong(key.slot, defaultValue);
+    }
+
+    /**
+     * Retrieves the value of a long key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if the key is not set or is set to {@code null}.
+     * @return the value.
+     */
+    public long getLong(final ConfigKey<Long> key, final long defaultValue) {
+        return getLong(key.slot, defaultValue);
+    }
+
+    /**
+     * Retrieves the value of a boolean key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if the key is not set or is set to {@code null}.
+     * @return the value.
+     */
+    public boolean getBoolean(final ConfigKey<Boolean> key, final boolean defaultValue) {
+        return getLong(key.slot, defaultValue ? 1 : 0) != 0;
     }
 
     /**
@@ -42,21 +108,60 @@ public class Config implements Cloneable {
      * keySet are allowed; attempts to insert other keys will result in an IllegalKeyException.
      * @param key   The key with which the specified value is to be associated.
      * @param value The value to be associated with the specified key.
-     * @throws IllegalKeyException If the key is not present in the predefined set of allowed keys.
+     * @throws IllegalKeyException   If the key is not present in the predefined set of allowed
+     *                               keys.
+     * @throws IllegalValueException If the key is typed and the value is not of its type.
      */
     public void set(final String key, final Object value) {
         if (!keySet.contains(key)) {
             throw new IllegalKeyException(key);
         }
 
-        data.put(key, value);
+        final var typedKey = ConfigKey.lookup(key);
+        if (typedKey == null) {
+            setAt(ConfigKey.slotOf(key), value);
+        } else {
+            setAt(typedKey.slot, typedKey.convert(value));
+        }
+    }
+
+    /**
+     * Inserts or updates the value of a key.
+     * @param key   The key.
+     * @param value The value.
+     * @param <T>   The type of the values of the key.
+     * @throws IllegalKeyException If the key is not present in the predefined set of allowed keys.
+     */
+    public <T> void set(final ConfigKey<T> key, final T value) {
+        set(key.name(), value);
+    }
+
+    /**
+     * Removes the value of a key, so that lower levels of a stack show through for it.
+     * @param key The key whose value is to be removed.
+     */
+    public void remove(final String key) {
+        final var slot = ConfigKey.findSlot(key);
+        if (slot >= 0 && valueAt(slot) != null) {
+            values[slot] = null;
+            if (changedSlots != null) {
+                changedSlots.set(slot);
+            }
+        }
     }
 
     /**
-     * Returns the data of this config.
-     * @return the data of this config.
+     * Returns a copy of the data of this config.
+     * @return the keys that are set and their values.
      */
     public Map<String, Object> getData() {
+        final var data = new HashMap<String, Object>();
+        for (var slot = 0; slot < values.length; ++slot) {
+            if (values[slot] != null) {
+                data.put(ConfigKey.nameOf(slot), unwrap(values[slot]));
+            }
+        }
+
         return data;
     }
 
@@ -75,8 +180,72 @@ public class Config implements Cloneable {
     @Override
     protected Config clone() {
         final Config clonedConfig = new Config(this.keySet);
-        clonedConfig.data.putAll(new HashMap<>(this.data));
+        clonedConfig.values = Arrays.copyOf(values, values.length);
+        clonedConfig.primitives = Arrays.copyOf(primitives, primitives.length);
 
         return clonedConfig;
     }
+
+    /**
+     * Returns the stored value of a slot.
+     * @param slot The slot.
+     * @return the value; {@link #NULL} if the key is set to {@code null}, or {@code null} if it is
+     * not set.
+     */
+    final Object valueAt(final int slot) {
+        return slot < values.length ? values[slot] : null;
+    }
+
+    /**
+     * Returns the unboxed value of a slot, whose value must be set.
+     * @param slot The slot.
+     * @return the unboxed value.
+     */
+    final long primitiveAt(final int slot) {
+        return primitives[slot];
+    }
+
+    private long getLong(final int slot, final long defaultValue) {
+        final var value = valueAt(slot);
+        return value == null || value == NULL ? defaultValue : primitives[slot];
+    }
+
+    private void setAt(final int slot, final Object value) {
+        if (slot >= values.length) {
+            final var length = Math.max(slot + 1, values.length * 2);
+            values = Arrays.copyOf(values, length);
+            primitives = Arrays.copyOf(primitives, length);
+        }
+
+        values[slot] = value == null ? NULL : value;
+        primitives[slot] = primitiveOf(value);
+        if (changedSlots != null) {
+            changedSlots.set(slot);
+        }
+    }
+
+    /**
+     * Returns the unboxed form of a value.
+     * @param value The value.
+     * @return the value of an integral number; 1 or 0 for a boolean; 0 otherwise.
+     */
+    static long primitiveOf(final Object value) {
+        return switch (value) {
+            case Integer number -> number;
+            case Long number -> number;
+            case Short number -> number;
+            case Byte number -> number;
+            case Boolean bool -> bool ? 1 : 0;
+            case null, default -> 0;
+        };
+    }
+
+    /**
+     * Turns a stored value into the value of its key.
+     * @param value The stored value.
+     * @return the value; {@code null} for {@link #NULL}.
+     */
+    static Object unwrap(final Object value) {
+        return value == NULL ? null : value;
+    }
 }
@@ -0,0 +1,168 @@
+package me.jameschan.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A typed handle of a config key. Key names are interned: every name is given a slot once, shared
+ * by all keys of that name, and every {@link Config} and {@link ConfigSnapshot} keeps its values in
+ * arrays indexed by slot. Reading a value through a key is therefore an array load, without
+ * hashing the name or casting the value.
+ * <p>
+ * Values set for a key of type {@link Integer}, {@link Long} or {@link Double} are converted from
+ * other numbers, since config files do not tell integers of different sizes apart.
+ * @param <T> The type of the values of the key.
+ */
+public final class ConfigKey<T> {
+    /**
+     * The slots of the interned names.
+     */
+    private static final Map<String, Integer> slotByName = new ConcurrentHashMap<>();
+
+    /**
+     * The interned names by their slots.
+     */
+    private static final List<String> nameList = new ArrayList<>();
+
+    /**
+     * The typed keys by their names.
+     */
+    private static final Map<String, ConfigKey<?>> keyByName = new ConcurrentHashMap<>();
+
+    /**
+     * The name of this key.
+     */
+    private final String name;
+
+    /**
+     * The type of the values of this key.
+     */
+    private final Class<T> type;
+
+    /**
+     * The slot of the name of this key.
+     */
+    final int slot;
+
+    private ConfigKey(final String name, final Class<T> type, final int slot) {
+        this.name = name;
+        this.type = type;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the key of a name, registering it the first time.
+     * @param name The name of the key.
+     * @param type The type of the values of the key.
+     * @param <T>  The type of the values of the key.
+     * @return the key.
+     * @throws IllegalArgumentException if the key is registered with another type.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> ConfigKey<T> of(final String name, final Class<T> type) {
+        final var key = keyByName.get(name);
+        if (key == null) {
+            final var newKey = new ConfigKey<>(name, type, slotOf(name));
+            keyByName.put(name, newKey);
+            return newKey;
+        }
+
+        if (key.type != type) {
+            throw new IllegalArgumentException(String.format(
+                "Config key is registered with another type: %s (%s)",
+                name,
+                key.type.getName()
+            ));
+        }
+
+        return (ConfigKey<T>) key;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    /**
+     * Returns the typed key of a name.
+     * @param name The name.
+     * @return the key; or {@code null} if no key of the name is registered.
+     */
+    static ConfigKey<?> lookup(final String name) {
+        return keyByName.get(name);
+    }
+
+    /**
+     * Returns the slot of a name, interning it the first time.
+     * @param name The name.
+     * @return the slot.
+     */
+    static int slotOf(final String name) {
+        final var slot = slotByName.get(name);
+        return slot == null ? intern(name) : slot;
+    }
+
+    /**
+     * Returns the slot of a name without interning it.
+     * @param name The name.
+     * @return the slot; or {@code -1} if the name is not interned.
+     */
+    static int findSlot(final String name) {
+        final var slot = slotByName.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the name of a slot.
+     * @param slot The slot.
+     * @return the name.
+     */
+    static synchronized String nameOf(final int slot) {
+        return nameList.get(slot);
+    }
+
+    private static synchronized int intern(final String name) {
+        final var slot = slotByName.get(name);
+        if (slot != null) {
+            return slot;
+        }
+
+        nameList.add(name);
+        slotByName.put(name, nameList.size() - 1);
+        return nameList.size() - 1;
+    }
+
+    /**
+     * Converts a value to the type of this key.
+     * @param value The value.
+     * @return the converted value.
+     * @throws IllegalValueException if the value is not of the type of this key.
+     */
+    Object convert(final Object value) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+
+        if (value instanceof Number number) {
+            if (type == Integer.class && number.longValue() == number.intValue()) {
+                return number.intValue();
+            } else if (type == Long.class) {
+                return number.longValue();
+            } else if (type == Double.class) {
+                return number.doubleValue();
+            }
+        }
+
+        throw new IllegalValueException(name, value);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,136 @@
+package me.jameschan.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, resolved view of a {@link ConfigStack}: the value of every key is the value of the
+ * highest level that sets it. Values are kept in arrays indexed by the slots of their
+ * {@link ConfigKey}s, so reading a key through its handle is one array load, whatever the number
+ * of levels; reading it by name adds one hash lookup of its slot.
+ * <p>
+ * Snapshots are versioned: every change published by the stack produces a snapshot with a higher
+ * version, so readers that cache something derived from the configuration can tell whether it is
+ * stale by comparing versions.
+ */
+public final class ConfigSnapshot {
+    /**
+     * The snapshot of a stack without values.
+     */
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, new Object[0], new long[0]);
+
+    /**
+     * The version of this snapshot.
+     */
+    private final long version;
+
+    /**
+     * The values by slot: {@link Config#NULL} for keys set to {@code null}, {@code null} for keys
+     * that no level sets. Slots beyond the end are not set.
+     */
+    private final Object[] values;
+
+    /**
+     * The values of integral and boolean keys by slot, as longs.
+     */
+    private final long[] primitives;
+
+    ConfigSnapshot(final long version, final Object[] values, final long[] primitives) {
+        this.version = version;
+        this.values = values;
+        this.primitives = primitives;
+    }
+
+    /**
+     * Returns the version of this snapshot.
+     * @return the version.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Retrieves the resolved value of a key.
+     * @param key The key.
+     * @return the value; or {@code null} if no level sets the key.
+     */
+    public Object get(final String key) {
+        final var slot = ConfigKey.findSlot(key);
+        return slot < 0 || slot >= values.length ? null : Config.unwrap(values[slot]);
+    }
+
+    /**
+     * Retrieves the resolved value of a key.
+     * @param key The key.
+     * @param <T> The type of the values of the key.
+     * @return the value; or {@code null} if no level sets the key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final ConfigKey<T> key) {
+        final var slot = key.slot;
+        return slot < values.length ? (T) Config.unwrap(values[slot]) : null;
+    }
+
+    /**
+     * Retrieves the resolved value of an integer key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if no level sets the key, or it is {@code null}.
+     * @return the value.
+     */
+    public int getInt(final ConfigKey<Integer> key, final int defaultValue) {
+        return (int) getLong(key.slot, defaultValue);
+    }
+
+    /**
+     * Retrieves the resolved value of a long key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if no level sets the key, or it is {@code null}.
+     * @return the value.
+     */
+    public long getLong(final ConfigKey<Long> key, final long defaultValue) {
+        return getLong(key.slot, defaultValue);
+    }
+
+    /**
+     * Retrieves the resolved value of a boolean key without boxing.
+     * @param key          The key.
+     * @param defaultValue The value to return if no level sets the key, or it is {@code null}.
+     * @return the value.
+     */
+    public boolean getBoolean(final ConfigKey<Boolean> key, final boolean defaultValue) {
+        return getLong(key.slot, defaultValue ? 1 : 0) != 0;
+    }
+
+    /**
+     * Returns the resolved values of all keys that some level sets.
+     * @return an unmodifiable map of the keys to their values.
+     */
+    public Map<String, Object> toMap() {
+        final var map = new HashMap<String, Object>();
+        for (var slot = 0; slot < values.length; ++slot) {
+            if (values[slot] != null) {
+                map.put(ConfigKey.nameOf(slot), Config.unwrap(values[slot]));
+            }
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    Object[] values() {
+        return values;
+    }
+
+    long[] primitives() {
+        return primitives;
+    }
+
+    private long getLong(final int slot, final long defaultValue) {
+        if (slot >= values.length) {
+            return defaultValue;
+        }
+
+        final var value = values[slot];
+        return value == null || value == Config.NULL ? defaultValue : primitives[slot];
+    }
+}
@@ -1,13 +1,26 @@
 package me.jameschan.config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages a stack of configurations at different levels. This allows for overriding configurations
  * at different levels of specificity.
+ * <p>
+ * Levels are sparse: a level only holds the keys set at it, and the value of a key is the value of
+ * the highest level that sets it. The resolved values are published as an immutable, versioned
+ * {@link ConfigSnapshot}, which readers get without locking and read in constant time. Changing a
+ * level only resolves the keys that changed again, instead of merging all levels.
+ * <p>
+ * Writes are serialized by this stack. Keys set directly on the {@link Config} of a level are
+ * published by {@link #update()}, and must not be set concurrently with other writes; the
+ * {@code load} methods publish at once.
  */
 public class ConfigStack {
     /**
@@ -25,9 +38,19 @@ public class ConfigStack {
      */
     private final List<String> levelStack = new ArrayList<>();
 
+    /**
+     * The slots of all levels that have been set since they were last resolved.
+     */
+    private final BitSet changedSlots = new BitSet();
+
+    /**
+     * The current snapshot of the resolved configuration.
+     */
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+
     /**
      * Represents the current dynamic configuration that reflects the combined settings of all
-     * levels.
+     * levels; it reads the current snapshot.
      */
     private final Config dynamicConfig;
 
@@ -36,80 +59,145 @@ public class ConfigStack {
      * @param defaultConfig The default configuration.
      */
     public ConfigStack(final Config defaultConfig) {
-        this.byLevel.put(DEFAULT_LEVEL, defaultConfig);
-        this.levelStack.add(DEFAULT_LEVEL);
-        this.dynamicConfig = defaultConfig.clone();
+        this.dynamicConfig = new DynamicConfig(defaultConfig.keySet);
+        addLevel(DEFAULT_LEVEL, defaultConfig);
+        defaultConfig.getData().keySet().forEach(key -> changedSlots.set(ConfigKey.slotOf(key)));
+        update();
     }
 
     /**
-     * Creates and registers a new configuration level.
+     * Creates and registers a new, empty configuration level above all others. Keys set at it
+     * override the keys of the lower levels once they are published.
      * @param level The level of the configuration.
      * @return The newly created Config instance for the specified level.
      */
-    public Config createConfig(final String level) {
-        final var newConfig = dynamicConfig.clone();
-        byLevel.put(level, newConfig);
-        levelStack.add(level);
+    public synchronized Config createConfig(final String level) {
+        final var newConfig = new Config(dynamicConfig.keySet);
+        addLevel(level, newConfig);
 
         return newConfig;
     }
 
+    private void addLevel(final String level, final Config config) {
+        config.changedSlots = changedSlots;
+        byLevel.put(level, config);
+        levelStack.add(level);
+    }
+
     /**
-     * Loads data into the dynamic configuration.
+     * Loads data into the highest level and publishes it.
      * @param newData The data to load into the dynamic configuration.
      */
-    public void load(final Map<String, Object> newData) {
-        this.dynamicConfig.load(newData);
+    public synchronized void load(final Map<String, Object> newData) {
+        load(newData, levelStack.size() - 1);
     }
 
     /**
-     * Loads data into the configuration at a specified level and propagates changes to higher
-     * levels.
+     * Loads data into the configuration at a specified level and publishes it. Higher levels that
+     * set the same keys still override them.
      * @param newData The data to load into the configuration.
      * @param level   The level at which to apply the new data.
      */
-    public void load(final Map<String, Object> newData, final String level) {
+    public synchronized void load(final Map<String, Object> newData, final String level) {
         load(newData, levelStack.indexOf(level));
     }
 
     /**
-     * Recursively loads data starting from a given level index.
+     * Loads data into the configuration at a given level index and publishes it.
      * @param newData    The data to be loaded.
-     * @param levelIndex The index of the level from which to start loading the data.
+     * @param levelIndex The index of the level to load the data into.
      */
-    public void load(final Map<String, Object> newData, final int levelIndex) {
+    public synchronized void load(final Map<String, Object> newData, final int levelIndex) {
         if (levelIndex < 0 || levelIndex >= levelStack.size()) {
             return;
         }
 
         get(levelIndex).load(newData);
-        if (levelIndex == levelStack.size() - 1) {
-            dynamicConfig.load(newData);
+        update();
+    }
+
+    /**
+     * Replaces all data of a level and publishes the change as one snapshot. Keys the level no
+     * longer sets resolve from the lower levels again.
+     * @param newData The new data of the level.
+     * @param level   The level.
+     * @throws RuntimeException if the level does not exist.
+     */
+    public synchronized void replace(final Map<String, Object> newData, final String level) {
+        final var config = get(level);
+        for (final var key : config.getData().keySet()) {
+            if (!newData.containsKey(key)) {
+                config.remove(key);
+            }
         }
 
-        load(newData, levelIndex + 1);
+        config.load(newData);
+        update();
     }
 
     /**
-     * Updates the dynamic configuration by iteratively putting the data of each configuration
-     * associated with the levels stored in the level stack. This method iterates through each level
-     * in the level stack, retrieves the corresponding configuration, and merges its data into the
-     * dynamic configuration.
+     * Publishes the keys set at any level since they were last published. Only the slots of those
+     * keys are resolved again, from the highest level down, into copies of the arrays of the
+     * previous snapshot.
      */
-    public void update() {
-        for (final var level : levelStack) {
-            final var config = byLevel.get(level);
-            dynamicConfig.getData().putAll(config.getData());
+    public final synchronized void update() {
+        if (changedSlots.isEmpty()) {
+            return;
         }
+
+        final var current = snapshot;
+        final var length = Math.max(current.values().length, changedSlots.length());
+        final var values = Arrays.copyOf(current.values(), length);
+        final var primitives = Arrays.copyOf(current.primitives(), length);
+        final var levels = new Config[levelStack.size()];
+        for (var i = 0; i < levels.length; ++i) {
+            levels[i] = byLevel.get(levelStack.get(i));
+        }
+
+        for (var slot = changedSlots.nextSetBit(0); slot >= 0;
+             slot = changedSlots.nextSetBit(slot + 1)) {
+            values[slot] = null;
+            primitives[slot] = 0;
+            for (var i = levels.length - 1; i >= 0; --i) {
+                final var value = levels[i].valueAt(slot);
+                if (value != null) {
+                    values[slot] = value;
+                    primitives[slot] = levels[i].primitiveAt(slot);
+                    break;
+                }
+            }
+        }
+
+        changedSlots.clear();
+        snapshot = new ConfigSnapshot(current.version() + 1, values, primitives);
+    }
+
+    /**
+     * Returns the current snapshot of the resolved configuration. This never blocks, and the
+     * snapshot never changes; call this again to see later changes.
+     * @return the snapshot.
+     */
+    public ConfigSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks if a level exists.
+     * @param level The level.
+     * @return true if the level exists; false otherwise.
+     */
+    public synchronized boolean hasLevel(final String level) {
+        return byLevel.containsKey(level);
     }
 
     /**
      * Retrieves the configuration for a specified level.
-     * @param level The level for which to retrieve the configuration.
+     * @param level The level for which to retrieve the configuration; or {@code null} for the
+     *              dynamic configuration.
      * @return The configuration instance for the specified level.
      * @throws RuntimeException if the level does not exist.
      */
-    public Config get(final String level) {
+    public synchronized Config get(final String level) {
         if (level == null) {
             return dynamicConfig;
         } else {
@@ -123,11 +211,12 @@ public class ConfigStack {
     }
 
     /**
-     * Retrieves the dynamic configuration.
+     * Retrieves the dynamic configuration, which always reads the current snapshot. Setting a key
+     * of it sets the key at the highest level and publishes it.
      * @return the dynamic configuration.
      */
     public Config getDynamic() {
-        return get(null);
+        return dynamicConfig;
     }
 
     /**
@@ -136,11 +225,60 @@ public class ConfigStack {
      * @return The configuration at the specified index.
      * @throws IllegalArgumentException if the level index is out of bounds.
      */
-    public Config get(final int levelIndex) {
+    public synchronized Config get(final int levelIndex) {
         if (levelIndex < 0 || levelIndex >= levelStack.size()) {
             throw new IllegalArgumentException("Illegal level index: " + levelIndex);
         }
 
         return get(levelStack.get(levelIndex));
     }
+
+    /**
+     * The dynamic configuration, a view of the current snapshot.
+     */
+    private final class DynamicConfig extends Config {
+        private DynamicConfig(final Set<String> keySet) {
+            super(keySet);
+        }
+
+        @Override
+        public Object get(final String key) {
+            return snapshot.get(key);
+        }
+
+        @Override
+        public <T> T get(final ConfigKey<T> key) {
+            return snapshot.get(key);
+        }
+
+        @Override
+        public int getInt(final ConfigKey<Integer> key, final int defaultValue) {
+            return snapshot.getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(final ConfigKey<Long> key, final long defaultValue) {
+            return snapshot.getLong(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(final ConfigKey<Boolean> key, final boolean defaultValue) {
+            return snapshot.getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public void set(final String key, final Object value) {
+            load(Collections.singletonMap(key, value));
+        }
+
+        @Override
+        public Map<String, Object> getData() {
+            return snapshot.toMap();
+        }
+
+        @Override
+        public void load(final Map<String, Object> newData) {
+            ConfigStack.this.load(newData);
+        }
+    }
 }
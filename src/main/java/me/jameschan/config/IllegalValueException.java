@@ -0,0 +1,17 @@
+package me.jameschan.config;
+
+/**
+ * An exception that is thrown when an attempt is made to set a value that is not of the type of
+ * its {@link ConfigKey}.
+ */
+public class IllegalValueException extends RuntimeException {
+    /**
+     * Constructs an {@code IllegalValueException} with the detail message constructed from the key
+     * and the illegal value.
+     * @param key   The name of the key.
+     * @param value The value that triggered this exception.
+     */
+    public IllegalValueException(final String key, final Object value) {
+        super(String.format("Illegal value of key %s: %s", key, value));
+    }
+}
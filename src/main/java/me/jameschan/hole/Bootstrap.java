@@ -1,15 +1,105 @@
 package me.jameschan.hole;
 
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.daemon.DaemonClient;
+import me.jameschan.hole.daemon.DaemonServer;
 import me.jameschan.hole.handler.HandlerManager;
 import me.jameschan.hole.extend.HoleApp;
 
-import java.util.Arrays;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
+/**
+ * The entry point of the command line. {@code --daemon} starts a resident daemon and
+ * {@code --daemon-stop} stops it; any other arguments are forwarded to the daemon if one is
+ * running, and executed in this process otherwise. A batch ({@code --batch <file>} or
+ * {@code --batch -} as the only arguments) is read by this process either way; if a daemon is
+ * running, its lines are forwarded to the daemon one by one, since the daemon holds the storage.
+ */
 public class Bootstrap {
     public static void main(final String[] args) {
+        final var socketPath = DaemonClient.socketPath();
+        if (args.length == 1 && args[0].equals("--daemon")) {
+            // A daemon lives long, so it initializes everything up front, concurrently
+            final var app = new HoleApp();
+            app.initAll();
+            final var configManager = app.use(ConfigManager.class);
+            configManager.setReloadErrorHandler((path, e) -> System.err.println(e.getMessage()));
+            configManager.watch();
+            final var server = new DaemonServer(app, socketPath);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.run();
+            return;
+        }
+
+        if (args.length == 1 && args[0].equals("--daemon-stop")) {
+            if (!DaemonClient.stop(socketPath)) {
+                System.err.println("Daemon is not running.");
+            }
+            return;
+        }
+
+        final var env = new Env(System.getProperty("user.dir"));
+        final var rawArgs = List.of(args);
+        final var out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        final var isBatch = args.length == 2 && (args[0].equals("--batch") || args[0].equals("-b"));
+        if (isBatch && DaemonClient.isRunning(socketPath)) {
+            executeBatchOnDaemon(socketPath, args[1], env, out);
+            return;
+        }
+
+        final var response = isBatch ? null : DaemonClient.execute(socketPath, rawArgs, env, out);
+        if (response != null) {
+            if (response.statusCode() == StatusCode.ERROR) {
+                System.err.println(response.message());
+                System.exit(1);
+            }
+            return;
+        }
+
         final var holeApp = new HoleApp();
-        final var executorManager = holeApp.use(HandlerManager.class);
-        executorManager.executeRawArgs(List.of(args));
+        try {
+            final var executorManager = holeApp.use(HandlerManager.class);
+            executorManager.executeRawArgs(rawArgs);
+        } finally {
+            holeApp.destroy();
+        }
+    }
+
+    /**
+     * Forwards the command lines of a batch to the running daemon.
+     * @param socketPath The path of the socket of the daemon.
+     * @param path       The path of the batch file, relative to the working directory; or
+     *                   {@code -} to read commands from the standard input.
+     * @param env        The environment of this process.
+     * @param out        The writer of the output.
+     */
+    private static void executeBatchOnDaemon(
+        final Path socketPath,
+        final String path,
+        final Env env,
+        final Writer out
+    ) {
+        try (final var reader = path.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Path.of(env.dir()).resolve(path))
+        ) {
+            final var failureCount = DaemonClient.executeBatch(socketPath, reader, env, out);
+            if (failureCount > 0) {
+                out.write(failureCount + " command(s) failed." + System.lineSeparator());
+                out.flush();
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to execute batch: " + path, e);
+        }
     }
 }
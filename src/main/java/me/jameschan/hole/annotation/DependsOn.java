@@ -0,0 +1,22 @@
+package me.jameschan.hole.annotation;
+
+import me.jameschan.hole.plugin.Plugin;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the plugins whose hooks must run before the hooks of the annotated plugin. Plugins that
+ * do not depend on each other may run their hooks concurrently.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DependsOn {
+    /**
+     * Returns the plugins the annotated plugin depends on.
+     * @return the classes of the plugins.
+     */
+    Class<? extends Plugin>[] value();
+}
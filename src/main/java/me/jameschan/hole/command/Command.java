@@ -5,21 +5,90 @@ import java.util.List;
 /**
  * Represents a parsed command line, encapsulating the template according to which it was parsed,
  * the arguments passed to the command, and the options specified along with their arguments. This
- * record is typically the result of parsing a command line string based on a predefined
+ * is typically the result of parsing a command line string based on a predefined
  * {@link CommandTemplate}.
- * @param template The {@link CommandTemplate} that defines the structure of this command line,
- *                 including the command, required number of arguments, and allowed options.
- * @param args     A list of strings representing the arguments passed to the command. These are the
- *                 positional arguments that follow the command and precede any options.
- * @param options  A list of {@link Option} objects representing the options specified in the
- *                 command line, each with its own arguments as defined by its corresponding
- *                 {@link OptionTemplate}.
+ * <p>
+ * Besides the list of options in command line order, a command keeps the first option of every
+ * option template in the slot of the template's index, so options are retrieved without scanning.
  */
-public record Command(
-    CommandTemplate template,
-    List<String> args,
-    List<Option> options
-) {
+public final class Command {
+    /**
+     * The {@link CommandTemplate} that defines the structure of this command line, including the
+     * command, required number of arguments, and allowed options.
+     */
+    private final CommandTemplate template;
+
+    /**
+     * A list of strings representing the arguments passed to the command. These are the
+     * positional arguments that follow the command and precede any options.
+     */
+    private final List<String> args;
+
+    /**
+     * A list of {@link Option} objects representing the options specified in the command line,
+     * each with its own arguments as defined by its corresponding {@link OptionTemplate}.
+     */
+    private final List<Option> options;
+
+    /**
+     * The first option of every option template by the index of the template; {@code null} for
+     * templates without an option.
+     */
+    private final Option[] optionSlots;
+
+    /**
+     * Constructs a command.
+     * @param template    The template according to which the command line was parsed.
+     * @param args        The arguments passed to the command.
+     * @param options     The options in command line order.
+     * @param optionSlots The first option of every option template by the index of the template.
+     */
+    Command(
+        final CommandTemplate template,
+        final List<String> args,
+        final List<Option> options,
+        final Option[] optionSlots
+    ) {
+        this.template = template;
+        this.args = args;
+        this.options = options;
+        this.optionSlots = optionSlots;
+    }
+
+    /**
+     * Returns the template according to which this command line was parsed.
+     * @return the command template.
+     */
+    public CommandTemplate template() {
+        return template;
+    }
+
+    /**
+     * Returns the arguments passed to the command.
+     * @return the arguments.
+     */
+    public List<String> args() {
+        return args;
+    }
+
+    /**
+     * Returns the options specified in the command line, in command line order.
+     * @return the options.
+     */
+    public List<Option> options() {
+        return options;
+    }
+
+    /**
+     * Retrieves an option from this command line by the index of its template.
+     * @param index The index of the option template in the command template, as returned by
+     *              {@link CommandTemplate#indexOf(String)}.
+     * @return The first {@link Option} of the template if present; otherwise, {@code null}.
+     */
+    public Option getOption(final int index) {
+        return index < 0 || index >= optionSlots.length ? null : optionSlots[index];
+    }
+
     /**
      * Retrieves an option from this command line by its long label. If the specified option is
      * present among the parsed options, it is returned; otherwise, this method returns
@@ -30,12 +99,11 @@ public record Command(
      * {@code null}.
      */
     public Option getOption(final String longLabel) {
-        for (final var option : options) {
-            if (option.template().longLabel().equals(longLabel)) {
-                return option;
-            }
-        }
+        return getOption(template.indexOf(longLabel));
+    }
 
-        return null;
+    @Override
+    public String toString() {
+        return "Command[template=" + template + ", args=" + args + ", options=" + options + "]";
     }
 }
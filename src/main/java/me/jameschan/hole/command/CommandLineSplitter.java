@@ -0,0 +1,70 @@
+package me.jameschan.hole.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a command line, such as a line of a batch file, into the raw arguments a shell would pass
+ * to the program. Arguments are separated by whitespace; single quotes keep everything up to the
+ * closing quote literally, double quotes keep whitespace, and a backslash escapes the next
+ * character outside single quotes.
+ */
+public final class CommandLineSplitter {
+    private CommandLineSplitter() {
+    }
+
+    /**
+     * Splits a command line into raw arguments.
+     * @param line The command line.
+     * @return the raw arguments; empty if the line is blank.
+     * @throws UnterminatedQuoteException if the line ends inside quotes.
+     */
+    public static List<String> split(final String line) {
+        final List<String> rawArgs = new ArrayList<>();
+        final var current = new StringBuilder();
+        var inArg = false;
+        var quote = '\0';
+
+        for (var i = 0; i < line.length(); ++i) {
+            final var c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = '\0';
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '\\' && i + 1 < line.length()) {
+                current.append(line.charAt(++i));
+                inArg = true;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = '\0';
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    rawArgs.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+
+        if (quote != '\0') {
+            throw new UnterminatedQuoteException(line);
+        }
+
+        if (inArg) {
+            rawArgs.add(current.toString());
+        }
+
+        return rawArgs;
+    }
+}
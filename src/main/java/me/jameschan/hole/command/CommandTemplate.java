@@ -1,14 +1,26 @@
 package me.jameschan.hole.command;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Defines the template for a command, specifying the required number of arguments, and a list of
  * permissible option templates. This template is used to parse and validate a command, ensuring
  * that it conforms to the expected format and contains the required options and arguments.
+ * <p>
+ * Option templates are compiled into lookup tables as they are added: ASCII short labels index a
+ * table of 128 slots, and long labels a hash map. Every option template is identified by its index
+ * in the order in which it was added, which is also the slot of its option in a {@link Command}.
  */
 public class CommandTemplate {
+    /**
+     * The number of short labels that are looked up in a table, which are the ASCII characters.
+     */
+    private static final int SHORT_LABEL_TABLE_SIZE = 128;
+
     /**
      * The fixed number of arguments expected after the command.
      */
@@ -19,6 +31,27 @@ public class CommandTemplate {
      */
     protected final List<OptionTemplate> optionTemplateList = new ArrayList<>();
 
+    /**
+     * Option template indexes by ASCII short label; -1 for labels without an option template.
+     */
+    private final int[] indexByShortLabel = new int[SHORT_LABEL_TABLE_SIZE];
+
+    /**
+     * A mapping of non-ASCII short labels to option template indexes.
+     */
+    private final Map<Character, Integer> indexByOtherShortLabel = new HashMap<>();
+
+    /**
+     * A mapping of long labels to option template indexes.
+     */
+    private final Map<String, Integer> indexByLongLabel = new HashMap<>();
+
+    /**
+     * A mapping of long option tokens, which are long labels prefixed by two hyphens, to option
+     * template indexes, so option tokens are looked up without extracting their labels.
+     */
+    private final Map<String, Integer> indexByLongToken = new HashMap<>();
+
     /**
      * Constructs a new {@code CommandTemplate} with a specified number of arguments.
      * @param numArgs The fixed number of arguments expected after the command. This does not
@@ -26,6 +59,7 @@ public class CommandTemplate {
      */
     public CommandTemplate(final int numArgs) {
         this.numArgs = numArgs;
+        Arrays.fill(indexByShortLabel, -1);
     }
 
     /**
@@ -49,7 +83,47 @@ public class CommandTemplate {
      * @param optionTemplate The {@link OptionTemplate} to add to the list of permissible options.
      */
     public void addOptionTemplate(final OptionTemplate optionTemplate) {
+        final var index = optionTemplateList.size();
         this.optionTemplateList.add(optionTemplate);
+
+        // The first option template added with a label keeps it
+        indexByLongLabel.putIfAbsent(optionTemplate.longLabel(), index);
+        indexByLongToken.putIfAbsent("--" + optionTemplate.longLabel(), index);
+        final var shortLabel = optionTemplate.shortLabel();
+        if (shortLabel < SHORT_LABEL_TABLE_SIZE) {
+            if (indexByShortLabel[shortLabel] == -1) {
+                indexByShortLabel[shortLabel] = index;
+            }
+        } else {
+            indexByOtherShortLabel.putIfAbsent(shortLabel, index);
+        }
+    }
+
+    /**
+     * Returns the number of option templates of this command template.
+     * @return the number of option templates.
+     */
+    public int optionCount() {
+        return optionTemplateList.size();
+    }
+
+    /**
+     * Returns the option template at an index.
+     * @param index The index of the option template, in the order in which it was added.
+     * @return the option template.
+     */
+    public OptionTemplate optionTemplate(final int index) {
+        return optionTemplateList.get(index);
+    }
+
+    /**
+     * Returns the index of the option template with a long label.
+     * @param longLabel The long label.
+     * @return the index of the option template; or -1 if no option template has the long label.
+     */
+    public int indexOf(final String longLabel) {
+        final var index = indexByLongLabel.get(longLabel);
+        return index == null ? -1 : index;
     }
 
     /**
@@ -71,13 +145,17 @@ public class CommandTemplate {
     public Command make(final TokenIterator tokenIterator) {
         final List<String> args = new ArrayList<>();
         final List<Option> optionList = new ArrayList<>();
+        final var optionSlots = new Option[optionTemplateList.size()];
         while (tokenIterator.hasNext()) {
             final var next = tokenIterator.next();
 
             if (TokenIterator.isOption(next)) {
-                final var optionLabel = TokenIterator.getOptionLabel(next);
-                final var optionTemplate = findOptionTemplate(optionLabel);
-                optionList.add(optionTemplate.make(tokenIterator));
+                final var index = findOptionIndex(next);
+                final var option = optionTemplateList.get(index).make(tokenIterator);
+                optionList.add(option);
+                if (optionSlots[index] == null) {
+                    optionSlots[index] = option;
+                }
             } else {
                 args.add(next);
             }
@@ -87,31 +165,36 @@ public class CommandTemplate {
             throw new InsufficientArgumentException(this, args.size());
         }
 
-        return new Command(this, args, optionList);
+        return new Command(this, args, optionList, optionSlots);
     }
 
     /**
-     * Searches for an {@link OptionTemplate} in {@code optionTemplateList} that matches the given
-     * option label. This method supports both long and short labels as specified by the option
-     * label argument.
-     * @param optionLabel The label of the option to find. It could be a long or short label.
-     * @return The matching {@link OptionTemplate} if found.
+     * Finds the index of the {@link OptionTemplate} that matches the given option token. A label
+     * of one character is looked up as a short label first, and any label as a long label.
+     * @param optionToken The option token, such as "-p" or "--prefix".
+     * @return The index of the matching {@link OptionTemplate}.
      * @throws OptionNotFoundException If no matching option template is found in
      *                                 {@code optionTemplateList}.
      */
-    private OptionTemplate findOptionTemplate(final String optionLabel) {
-        final boolean canBeShortLabel = optionLabel.length() == 1;
-        final char firstChar = optionLabel.charAt(0);
-        for (final var optionTemplate : optionTemplateList) {
-            if (optionTemplate.longLabel().equals(optionLabel)) {
-                return optionTemplate;
+    private int findOptionIndex(final String optionToken) {
+        final var labelStart = TokenIterator.isLongOption(optionToken) ? 2 : 1;
+        if (optionToken.length() == labelStart + 1) {
+            final var shortLabel = optionToken.charAt(labelStart);
+            final var index = shortLabel < SHORT_LABEL_TABLE_SIZE
+                ? indexByShortLabel[shortLabel]
+                : indexByOtherShortLabel.getOrDefault(shortLabel, -1);
+            if (index != -1) {
+                return index;
             }
+        }
 
-            if (canBeShortLabel && optionTemplate.shortLabel() == firstChar) {
-                return optionTemplate;
-            }
+        final var index = labelStart == 2
+            ? indexByLongToken.get(optionToken)
+            : indexByLongLabel.get(optionToken.substring(1));
+        if (index == null) {
+            throw new OptionNotFoundException(this, TokenIterator.getOptionLabel(optionToken));
         }
 
-        throw new OptionNotFoundException(this, optionLabel);
+        return index;
     }
 }
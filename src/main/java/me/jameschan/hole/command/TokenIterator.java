@@ -1,6 +1,5 @@
 package me.jameschan.hole.command;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -16,36 +15,53 @@ import java.util.List;
  * This iterator also provides functionality to peek at the next token without advancing the
  * iterator, check if a token is an option, determine if a token is a long option, and extract the
  * label part of an option token.
+ * <p>
+ * Tokens are produced lazily by a cursor over the raw arguments, so nothing is copied up front.
+ * Arguments and long options are returned as they are, and the short options of a group are
+ * returned as shared strings for ASCII labels, so iterating over a command line does not allocate.
  */
 public class TokenIterator implements Iterator<String> {
     /**
-     * A list to hold the individual tokens after parsing the command line arguments.
+     * The number of short option tokens that are shared, which are those with ASCII labels.
+     */
+    private static final int SHORT_OPTION_TOKEN_COUNT = 128;
+
+    /**
+     * Short option tokens by label, such as "-a" for 'a'.
+     */
+    private static final String[] SHORT_OPTION_TOKENS = new String[SHORT_OPTION_TOKEN_COUNT];
+
+    static {
+        for (var i = 0; i < SHORT_OPTION_TOKEN_COUNT; ++i) {
+            SHORT_OPTION_TOKENS[i] = "-" + (char) i;
+        }
+    }
+
+    /**
+     * The command line arguments to be parsed into tokens.
+     */
+    private final List<String> plainArgList;
+
+    /**
+     * The index of the argument that holds the current token.
      */
-    private final List<String> tokenList = new ArrayList<>();
+    private int argIndex = 0;
 
     /**
-     * The current position in the token list, used to track iteration progress.
+     * The position of the current short option within a group of short options; or 0 if the
+     * current token is a whole argument.
      */
-    private int i = 0;
+    private int groupIndex = 0;
 
     /**
-     * Constructs a new TokenIterator by parsing an array of command line arguments. Grouped short
-     * options are split into separate tokens, while long options and non-option arguments are added
-     * as-is.
+     * Constructs a new TokenIterator over an array of command line arguments. Grouped short
+     * options are split into separate tokens, while long options and non-option arguments are
+     * returned as-is.
      * @param plainArgList A list of command line arguments to be parsed into tokens.
      */
     public TokenIterator(final List<String> plainArgList) {
-        for (final var plainArg : plainArgList) {
-            if (TokenIterator.isLongOption(plainArg)) {
-                tokenList.add(plainArg);
-            } else if (TokenIterator.isOption(plainArg)) {
-                for (final char option : plainArg.substring(1).toCharArray()) {
-                    tokenList.add("-" + option);
-                }
-            } else {
-                tokenList.add(plainArg);
-            }
-        }
+        this.plainArgList = plainArgList;
+        enterArg();
     }
 
     /**
@@ -53,26 +69,68 @@ public class TokenIterator implements Iterator<String> {
      * @return The next token if available; otherwise, {@code null}.
      */
     public String peek() {
-        return this.hasNext() ? tokenList.get(i) : null;
+        if (!hasNext()) {
+            return null;
+        }
+
+        final var arg = plainArgList.get(argIndex);
+        return groupIndex == 0 ? arg : shortOptionToken(arg.charAt(groupIndex));
     }
 
     @Override
     public boolean hasNext() {
-        return i < tokenList.size();
+        return argIndex < plainArgList.size();
     }
 
     @Override
     public String next() {
-        return hasNext() ? tokenList.get(i++) : null;
+        final var token = peek();
+        if (token == null) {
+            return null;
+        }
+
+        if (groupIndex != 0 && groupIndex + 1 < plainArgList.get(argIndex).length()) {
+            groupIndex++;
+        } else {
+            argIndex++;
+            enterArg();
+        }
+
+        return token;
+    }
+
+    /**
+     * Positions the cursor at the first token of the current argument, which is its first short
+     * option if it is a group of short options. This is called by the constructor, so it checks
+     * the bounds itself rather than through the overridable {@link #hasNext()}.
+     */
+    private void enterArg() {
+        groupIndex = 0;
+        if (argIndex < plainArgList.size()) {
+            final var arg = plainArgList.get(argIndex);
+            if (isOption(arg) && !isLongOption(arg)) {
+                groupIndex = 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the token of a short option.
+     * @param label The label of the short option.
+     * @return the token, which is shared if the label is an ASCII character.
+     */
+    static String shortOptionToken(final char label) {
+        return label < SHORT_OPTION_TOKEN_COUNT ? SHORT_OPTION_TOKENS[label] : "-" + label;
     }
 
     /**
-     * Checks if a token is an option, which starts with a hyphen.
+     * Checks if a token is an option, which starts with a hyphen. A single hyphen is not an option
+     * but an argument, which conventionally stands for the standard input.
      * @param token the token to check.
      * @return true if the token is an option; false otherwise.
      */
     public static boolean isOption(final String token) {
-        return token.startsWith("-");
+        return token.length() > 1 && token.startsWith("-");
     }
 
     /**
@@ -0,0 +1,15 @@
+package me.jameschan.hole.command;
+
+/**
+ * Exception thrown when a command line ends inside a quoted argument, so it cannot be split into
+ * raw arguments.
+ */
+public class UnterminatedQuoteException extends RuntimeException {
+    /**
+     * Constructs an {@code UnterminatedQuoteException} for the given command line.
+     * @param line The command line that ends inside a quoted argument.
+     */
+    public UnterminatedQuoteException(final String line) {
+        super(String.format("Unterminated quote in command line: %s", line));
+    }
+}
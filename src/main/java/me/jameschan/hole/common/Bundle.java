@@ -1,9 +1,16 @@
 package me.jameschan.hole.common;
 
+import java.io.Writer;
+
 /**
  * Bundle.
+ * <p>
+ * A fork of a bundle has an output of its own, which starts with the pending output of the bundle,
+ * so plugins see the same output whether they run alone or on a fork. When the fork is merged,
+ * only what was appended to it is appended to the bundle, and the status code is carried over if
+ * it was changed.
  */
-public class Bundle {
+public class Bundle implements Forkable<Bundle> {
     /**
      * The environment properties.
      */
@@ -15,22 +22,63 @@ public class Bundle {
     public StatusCode statusCode = StatusCode.NULL;
 
     /**
-     * The buffer.
+     * The output, which is streamed to the sink of the bundle if it has one.
+     */
+    public final Output buffer;
+
+    /**
+     * The status code this bundle was forked with; or {@code null} if it is not a fork.
      */
-    public final StringBuffer buffer = new StringBuffer();
+    private StatusCode forkedStatusCode;
 
     /**
-     * Creates a Bundle instance.
+     * The length of the output this bundle was forked with.
+     */
+    private int forkedOutputLength;
+
+    /**
+     * Creates a Bundle instance whose output is accumulated in memory.
      * @param env The environment properties.
      */
     public Bundle(final Env env) {
+        this(env, null);
+    }
+
+    /**
+     * Creates a Bundle instance whose output is streamed to a sink.
+     * @param env  The environment properties.
+     * @param sink The sink of the output; or {@code null} to accumulate the output in memory.
+     */
+    public Bundle(final Env env, final Writer sink) {
         this.env = env;
+        this.buffer = new Output(sink);
     }
 
     public Env getEnv() {
         return env;
     }
 
+    @Override
+    public Bundle fork() {
+        final var fork = new Bundle(env);
+        fork.statusCode = statusCode;
+        fork.forkedStatusCode = statusCode;
+
+        final var pending = buffer.toString();
+        fork.buffer.append(pending);
+        fork.forkedOutputLength = pending.length();
+        return fork;
+    }
+
+    @Override
+    public void merge(final Bundle fork) {
+        // Outputs are append-only, so everything after the seeded content was added by the fork
+        buffer.append(fork.buffer.toString().substring(fork.forkedOutputLength));
+        if (fork.statusCode != fork.forkedStatusCode) {
+            statusCode = fork.statusCode;
+        }
+    }
+
     /**
      * Creates a bundle.
      * @return a bundle.
@@ -39,4 +87,14 @@ public class Bundle {
         final var env = new Env(System.getProperty("user.dir"));
         return new Bundle(env);
     }
+
+    /**
+     * Creates a bundle whose output is streamed to a sink.
+     * @param sink The sink of the output.
+     * @return a bundle.
+     */
+    public static Bundle create(final Writer sink) {
+        final var env = new Env(System.getProperty("user.dir"));
+        return new Bundle(env, sink);
+    }
 }
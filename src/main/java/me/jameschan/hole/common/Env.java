@@ -2,9 +2,19 @@ package me.jameschan.hole.common;
 
 /**
  * The essential environment properties of the local machine.
- * @param dir The user's present working directory.
+ * @param dir    The user's present working directory.
+ * @param daemon Whether the command is executed by a resident daemon on behalf of a client,
+ *               rather than by a process of its own.
  */
 public record Env(
-    String dir
+    String dir,
+    boolean daemon
 ) {
+    /**
+     * Creates the environment of a command executed by a process of its own.
+     * @param dir The user's present working directory.
+     */
+    public Env(final String dir) {
+        this(dir, false);
+    }
 }
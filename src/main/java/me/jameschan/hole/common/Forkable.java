@@ -0,0 +1,21 @@
+package me.jameschan.hole.common;
+
+/**
+ * A state that is worked on concurrently through forks. Every worker gets a fork of its own, and
+ * forks are merged back in a fixed order, so the result does not depend on which worker finished
+ * first.
+ * @param <T> The type of the state.
+ */
+public interface Forkable<T extends Forkable<T>> {
+    /**
+     * Creates a fork of this state, which starts out like this state but is changed independently.
+     * @return the fork.
+     */
+    T fork();
+
+    /**
+     * Applies the changes made to a fork of this state since it was created.
+     * @param fork A fork created by {@link #fork()} of this state.
+     */
+    void merge(T fork);
+}
@@ -0,0 +1,40 @@
+package me.jameschan.hole.common;
+
+import java.nio.file.Path;
+
+/**
+ * Locates the home directory where Hole keeps its persistent data, such as entries and caches. The
+ * directory defaults to {@code ~/.hole} and can be overridden by the {@code hole.home} system
+ * property.
+ */
+public final class HoleHome {
+    /**
+     * The system property that overrides the home directory.
+     */
+    public static final String PROPERTY = "hole.home";
+
+    private HoleHome() {
+    }
+
+    /**
+     * Returns the home directory.
+     * @return the home directory.
+     */
+    public static Path get() {
+        final var home = System.getProperty(PROPERTY);
+        if (home != null) {
+            return Path.of(home);
+        }
+
+        return Path.of(System.getProperty("user.home"), ".hole");
+    }
+
+    /**
+     * Resolves a path against the home directory.
+     * @param other The path to resolve.
+     * @return the resolved path.
+     */
+    public static Path resolve(final String other) {
+        return get().resolve(other);
+    }
+}
@@ -0,0 +1,207 @@
+package me.jameschan.hole.common;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The output of a command. Handlers append to it incrementally; if the output has a sink, such as
+ * the standard output or a socket, everything appended is streamed to the sink in batches of
+ * {@link #FLUSH_THRESHOLD} characters, so a command printing many lines needs constant memory and
+ * its first lines appear before it has finished. Without a sink, the output is accumulated and can
+ * be read with {@link #toString()}.
+ * <p>
+ * The content that has not been streamed yet is pending, and {@link #toString()} returns it, which
+ * lets plugins inspect and extend the tail of the output before it is printed. The streamed output
+ * is trimmed the same way as accumulated output is: leading and trailing whitespace is dropped, and
+ * {@link #finish()} ends non-empty output with a line separator.
+ * <p>
+ * An output is meant to be written by one thread at a time and is not synchronized.
+ */
+public class Output {
+    /**
+     * The number of pending characters that triggers streaming them to the sink.
+     */
+    public static final int FLUSH_THRESHOLD = 8192;
+
+    /**
+     * The content that has not been written to the sink yet.
+     */
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * The sink; or {@code null} if the output is accumulated.
+     */
+    private final Writer sink;
+
+    /**
+     * Whether any non-whitespace character has been written to the sink.
+     */
+    private boolean started = false;
+
+    /**
+     * Creates an output that is accumulated in memory.
+     */
+    public Output() {
+        this(null);
+    }
+
+    /**
+     * Creates an output that is streamed to a sink.
+     * @param sink The sink; or {@code null} to accumulate the output in memory.
+     */
+    public Output(final Writer sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Appends a string.
+     * @param string The string to append.
+     * @return this output.
+     */
+    public Output append(final String string) {
+        pending.append(string);
+        return flushIfFull();
+    }
+
+    /**
+     * Appends a character sequence.
+     * @param charSequence The character sequence to append.
+     * @return this output.
+     */
+    public Output append(final CharSequence charSequence) {
+        pending.append(charSequence);
+        return flushIfFull();
+    }
+
+    /**
+     * Appends a character.
+     * @param c The character to append.
+     * @return this output.
+     */
+    public Output append(final char c) {
+        pending.append(c);
+        return flushIfFull();
+    }
+
+    /**
+     * Appends the decimal representation of an int.
+     * @param i The int to append.
+     * @return this output.
+     */
+    public Output append(final int i) {
+        pending.append(i);
+        return flushIfFull();
+    }
+
+    /**
+     * Appends the decimal representation of a long.
+     * @param l The long to append.
+     * @return this output.
+     */
+    public Output append(final long l) {
+        pending.append(l);
+        return flushIfFull();
+    }
+
+    /**
+     * Appends the string representation of an object.
+     * @param object The object to append.
+     * @return this output.
+     */
+    public Output append(final Object object) {
+        pending.append(object);
+        return flushIfFull();
+    }
+
+    /**
+     * Checks if nothing has been written to this output, apart from whitespace.
+     * @return true if the output is blank; false otherwise.
+     */
+    public boolean isBlank() {
+        return !started && pending.toString().isBlank();
+    }
+
+    /**
+     * Streams the pending content to the sink, except trailing whitespace, which is only written
+     * if more content follows. Does nothing if the output has no sink.
+     * @throws RuntimeException if the sink could not be written.
+     */
+    public void flush() {
+        if (sink == null) {
+            return;
+        }
+
+        final var start = started ? 0 : skipWhitespace();
+        final var end = trimmedEnd(start);
+        try {
+            if (end > start) {
+                sink.append(pending, start, end);
+                started = true;
+            }
+            sink.flush();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to write output", e);
+        }
+
+        pending.delete(0, started ? end : pending.length());
+    }
+
+    /**
+     * Streams all pending content to the sink, followed by a line separator if anything has been
+     * written, and flushes the sink. Does nothing if the output has no sink.
+     * @throws RuntimeException if the sink could not be written.
+     */
+    public void finish() {
+        if (sink == null) {
+            return;
+        }
+
+        flush();
+        try {
+            if (started) {
+                sink.write(System.lineSeparator());
+            }
+            sink.flush();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to write output", e);
+        }
+
+        pending.setLength(0);
+        started = false;
+    }
+
+    /**
+     * Returns the pending content, which is the whole output if this output has no sink.
+     * @return the pending content.
+     */
+    @Override
+    public String toString() {
+        return pending.toString();
+    }
+
+    private Output flushIfFull() {
+        if (sink != null && pending.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+
+        return this;
+    }
+
+    private int skipWhitespace() {
+        var start = 0;
+        while (start < pending.length() && Character.isWhitespace(pending.charAt(start))) {
+            ++start;
+        }
+
+        return start;
+    }
+
+    private int trimmedEnd(final int start) {
+        var end = pending.length();
+        while (end > start && Character.isWhitespace(pending.charAt(end - 1))) {
+            --end;
+        }
+
+        return end;
+    }
+}
@@ -18,7 +18,12 @@ public enum StatusCode {
     /**
      * Indicates that the operation failed due to an invalid command.
      */
-    INVALID_COMMAND(1);
+    INVALID_COMMAND(1),
+
+    /**
+     * Indicates that the operation failed due to an unexpected error.
+     */
+    ERROR(2);
 
     /**
      * Code associated with the status code.
@@ -0,0 +1,228 @@
+package me.jameschan.hole.config;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary cache of parsed config files. Every config file has a cache file named after the hash of
+ * its path, which starts with the stamp of the config file it was parsed from: its path,
+ * modification time and size. A cache file is only used if its stamp matches the config file, so
+ * editing the config file invalidates it; a cache file that is missing, stale or unreadable is
+ * a miss, and the config file is parsed again.
+ */
+final class ConfigCache {
+    /**
+     * Identifies a cache file.
+     */
+    private static final int MAGIC = 0x484f4343;
+
+    /**
+     * The version of the cache file format.
+     */
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte LIST = 5;
+    private static final byte MAP = 6;
+
+    private ConfigCache() {
+    }
+
+    /**
+     * The state of a config file when it was parsed.
+     * @param path         The absolute path of the config file.
+     * @param modifiedTime The modification time of the config file in nanoseconds since the epoch.
+     * @param size         The size of the config file in bytes.
+     */
+    record Stamp(String path, long modifiedTime, long size) {
+    }
+
+    /**
+     * Returns the path of the cache file of a config file.
+     * @param cacheDir The directory of the cache files.
+     * @param stamp    The stamp of the config file.
+     * @return the path of the cache file.
+     */
+    static Path pathOf(final Path cacheDir, final Stamp stamp) {
+        return cacheDir.resolve(String.format("config-%08x.bin", stamp.path().hashCode()));
+    }
+
+    /**
+     * Reads a cache file if its stamp matches.
+     * @param cachePath The path of the cache file.
+     * @param stamp     The stamp of the config file.
+     * @return the cached config; or {@code null} if the cache file is missing, stale or corrupt.
+     */
+    static Map<String, Object> read(final Path cachePath, final Stamp stamp) {
+        try {
+            // Cache files are small, and decoding from memory avoids a call per field
+            final var input = ByteBuffer.wrap(Files.readAllBytes(cachePath));
+            if (input.getInt() != MAGIC || input.getInt() != VERSION) {
+                return null;
+            }
+
+            final var path = readString(input);
+            final var modifiedTime = input.getLong();
+            final var size = input.getLong();
+            if (!new Stamp(path, modifiedTime, size).equals(stamp)) {
+                return null;
+            }
+
+            return readMap(input);
+        } catch (final IOException | RuntimeException e) {
+            // A missing or corrupt cache file is a miss; the config file is parsed again
+            return null;
+        }
+    }
+
+    /**
+     * Writes a cache file, replacing the previous one atomically. Failing to write the cache does
+     * not fail reading the config, so errors are ignored.
+     * @param cachePath The path of the cache file.
+     * @param stamp     The stamp of the config file.
+     * @param data      The parsed config.
+     */
+    static void write(final Path cachePath, final Stamp stamp, final Map<String, Object> data) {
+        final var tempPath = cachePath.resolveSibling(
+            cachePath.getFileName() + "." + ProcessHandle.current().pid() + ".tmp"
+        );
+        try {
+            Files.createDirectories(cachePath.getParent());
+            try (final var output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath))
+            )) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, stamp.path());
+                output.writeLong(stamp.modifiedTime());
+                output.writeLong(stamp.size());
+                writeMap(output, data);
+            }
+
+            Files.move(
+                tempPath,
+                cachePath,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (final IOException | IllegalArgumentException e) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (final IOException ignored) {
+                // The temporary file is overwritten by the next attempt
+            }
+        }
+    }
+
+    private static void writeMap(final DataOutputStream output, final Map<String, Object> map)
+        throws IOException {
+        output.writeInt(map.size());
+        for (final var entry : map.entrySet()) {
+            writeString(output, entry.getKey());
+            writeValue(output, entry.getValue());
+        }
+    }
+
+    private static Map<String, Object> readMap(final ByteBuffer input) {
+        final var size = input.getInt();
+        final var map = new LinkedHashMap<String, Object>();
+        for (var i = 0; i < size; ++i) {
+            map.put(readString(input), readValue(input));
+        }
+
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(final DataOutputStream output, final Object value)
+        throws IOException {
+        switch (value) {
+            case null -> output.writeByte(NULL);
+            case String string -> {
+                output.writeByte(STRING);
+                writeString(output, string);
+            }
+            case Long number -> {
+                output.writeByte(LONG);
+                output.writeLong(number);
+            }
+            case Double number -> {
+                output.writeByte(DOUBLE);
+                output.writeDouble(number);
+            }
+            case Boolean bool -> {
+                output.writeByte(BOOLEAN);
+                output.writeBoolean(bool);
+            }
+            case List<?> list -> {
+                output.writeByte(LIST);
+                output.writeInt(list.size());
+                for (final var item : list) {
+                    writeValue(output, item);
+                }
+            }
+            case Map<?, ?> map -> {
+                output.writeByte(MAP);
+                writeMap(output, (Map<String, Object>) map);
+            }
+            default -> throw new IllegalArgumentException(
+                "Unsupported config value: " + value.getClass().getName()
+            );
+        }
+    }
+
+    private static Object readValue(final ByteBuffer input) {
+        final var type = input.get();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(input);
+            case LONG -> input.getLong();
+            case DOUBLE -> input.getDouble();
+            case BOOLEAN -> input.get() != 0;
+            case LIST -> {
+                final var size = input.getInt();
+                final List<Object> list = new ArrayList<>(size);
+                for (var i = 0; i < size; ++i) {
+                    list.add(readValue(input));
+                }
+                yield list;
+            }
+            case MAP -> readMap(input);
+            default -> throw new IllegalStateException("Unknown config value type: " + type);
+        };
+    }
+
+    private static void writeString(final DataOutputStream output, final String string)
+        throws IOException {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer input) {
+        final var length = input.getInt();
+        final var string = new String(
+            input.array(),
+            input.arrayOffset() + input.position(),
+            length,
+            StandardCharsets.UTF_8
+        );
+        input.position(input.position() + length);
+
+        return string;
+    }
+}
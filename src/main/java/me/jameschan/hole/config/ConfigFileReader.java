@@ -0,0 +1,159 @@
+package me.jameschan.hole.config;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads JSON config files into flat maps of config keys to values. The top-level object of a file
+ * holds the keys; nested objects are flattened into dotted keys, so {@code {"plugin": {"path":
+ * "/opt"}}} sets {@code plugin.path}. Values are strings, {@link Long}s for integral numbers,
+ * {@link Double}s for other numbers, {@link Boolean}s, {@code null}, and lists of values for
+ * arrays; objects inside arrays are read as maps.
+ * <p>
+ * Files are parsed with a streaming reader, without reading them into a string first. The parsed
+ * result is cached in a binary file keyed on the modification time and size of the config file,
+ * so a file that has not changed since it was last read is not parsed again.
+ */
+public final class ConfigFileReader {
+    /**
+     * The directory of the cache files; or {@code null} to read without a cache.
+     */
+    private final Path cacheDir;
+
+    /**
+     * Constructs a config file reader.
+     * @param cacheDir The directory of the cache files; or {@code null} to read without a cache.
+     */
+    public ConfigFileReader(final Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Reads a config file, from its cache if the file has not changed since it was cached.
+     * @param path The path of the config file.
+     * @return the config keys and their values, in file order.
+     * @throws RuntimeException if the file could not be read or is not a JSON object.
+     */
+    public Map<String, Object> read(final Path path) {
+        try {
+            final var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            final var modifiedTime = attributes.lastModifiedTime().toInstant();
+            final var stamp = new ConfigCache.Stamp(
+                path.toAbsolutePath().normalize().toString(),
+                modifiedTime.getEpochSecond() * 1_000_000_000L + modifiedTime.getNano(),
+                attributes.size()
+            );
+
+            final var cachePath = cacheDir == null ? null : ConfigCache.pathOf(cacheDir, stamp);
+            if (cachePath != null) {
+                final var cached = ConfigCache.read(cachePath, stamp);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            final Map<String, Object> data;
+            try (final var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                data = parse(reader);
+            }
+
+            if (cachePath != null) {
+                ConfigCache.write(cachePath, stamp, data);
+            }
+
+            return data;
+        } catch (final IOException | IllegalStateException e) {
+            throw new RuntimeException("Fail to read config file: " + path, e);
+        }
+    }
+
+    /**
+     * Parses a JSON config.
+     * @param reader The reader of the JSON config.
+     * @return the config keys and their values, in order.
+     * @throws IOException           if the JSON is malformed or could not be read.
+     * @throws IllegalStateException if the JSON is not an object.
+     */
+    public static Map<String, Object> parse(final Reader reader) throws IOException {
+        final var jsonReader = new JsonReader(
+            reader instanceof BufferedReader ? reader : new BufferedReader(reader)
+        );
+        final var data = new LinkedHashMap<String, Object>();
+        readObject(jsonReader, "", data);
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("Expected the end of the config");
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads an object, putting its values into a map by their dotted keys.
+     * @param reader The JSON reader.
+     * @param prefix The dotted key of the object followed by a dot; empty for the top level.
+     * @param data   The map to put the values into.
+     */
+    private static void readObject(
+        final JsonReader reader,
+        final String prefix,
+        final Map<String, Object> data
+    ) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final var key = prefix + reader.nextName();
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readObject(reader, key + ".", data);
+            } else {
+                data.put(key, readValue(reader));
+            }
+        }
+        reader.endObject();
+    }
+
+    private static Object readValue(final JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case STRING -> reader.nextString();
+            case NUMBER -> readNumber(reader.nextString());
+            case BOOLEAN -> reader.nextBoolean();
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case BEGIN_ARRAY -> {
+                final List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readValue(reader));
+                }
+                reader.endArray();
+                yield list;
+            }
+            case BEGIN_OBJECT -> {
+                final var map = new LinkedHashMap<String, Object>();
+                readObject(reader, "", map);
+                yield map;
+            }
+            default -> throw new IllegalStateException("Unexpected JSON token: " + reader.peek());
+        };
+    }
+
+    private static Object readNumber(final String number) {
+        try {
+            return Long.parseLong(number);
+        } catch (final NumberFormatException e) {
+            return Double.parseDouble(number);
+        }
+    }
+}
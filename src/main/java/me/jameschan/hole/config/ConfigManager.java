@@ -1,15 +1,41 @@
 package me.jameschan.hole.config;
 
 import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
 import me.jameschan.config.ConfigStack;
+import me.jameschan.hole.common.HoleHome;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.extend.HoleManager;
-import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.Plugin;
+import me.jameschan.hole.plugin.PluginHook;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Config manager.
+ * <p>
+ * The default config holds the builtin keys. Plugins add their keys when they are enabled, which
+ * is why this manager does not depend on the plugin manager: the plugin manager reads the plugin
+ * path from here before any plugin is loaded.
+ * <p>
+ * The user config file ({@link #USER_CONFIG}) is loaded as the {@link #USER_LEVEL} level on top
+ * of the defaults. Config files are read by a {@link ConfigFileReader}, which caches parsed files
+ * in the home directory. Keys of a file that are not known yet, such as those of plugins that are
+ * not loaded, are kept aside and loaded when a plugin adds them, so a large plugin config costs
+ * nothing until its plugin is used.
+ * <p>
+ * Long-lived processes call {@link #watch()} to reload config files when they change. A changed
+ * file rebuilds only its own level, the stack publishes the result as one new snapshot, and the
+ * enabled plugins are handed the config again, so readers never block and never see a half-applied
+ * file.
  */
 public class ConfigManager extends HoleManager {
     // Built-in config keys
@@ -17,10 +43,67 @@ public class ConfigManager extends HoleManager {
     public static final String KEY_PLUGIN_PATH = "plugin.path";
     public static final String KEY_PLUGIN_ENABLED = "plugin.enabled";
 
+    /**
+     * The path of the user config file.
+     */
+    public static final ConfigKey<String> USER_CONFIG = ConfigKey.of(KEY_USER_CONFIG, String.class);
+
+    /**
+     * The directories or JAR files of plugins, separated by the path separator of the platform.
+     */
+    public static final ConfigKey<String> PLUGIN_PATH = ConfigKey.of(KEY_PLUGIN_PATH, String.class);
+
+    /**
+     * The system property that overrides the default plugin path.
+     */
+    public static final String PLUGIN_PATH_PROPERTY = "hole.plugin.path";
+
+    /**
+     * The system property that overrides the default path of the user config file.
+     */
+    public static final String USER_CONFIG_PROPERTY = "hole.config";
+
+    /**
+     * The level of the user config file.
+     */
+    public static final String USER_LEVEL = "USER";
+
     /**
      * Configuration stack.
      */
-    public final ConfigStack configStack;
+    public ConfigStack configStack;
+
+    /**
+     * The reader of config files.
+     */
+    private final ConfigFileReader configFileReader =
+        new ConfigFileReader(HoleHome.resolve("cache"));
+
+    /**
+     * The values of config files whose keys are not known yet, by level.
+     */
+    private final Map<String, Map<String, Object>> pendingDataByLevel = new LinkedHashMap<>();
+
+    /**
+     * The config files backing levels of the stack, by level.
+     */
+    private final Map<String, Path> pathByLevel = new LinkedHashMap<>();
+
+    /**
+     * The enabled plugins that implement {@link PluginHook#CONFIG}.
+     */
+    private final List<Plugin> pluginList = new ArrayList<>();
+
+    /**
+     * The watcher of the config files; or {@code null} if they are not watched.
+     */
+    private ConfigWatcher configWatcher;
+
+    /**
+     * Called with the path of a config file and the exception if the file could not be reloaded.
+     */
+    private volatile BiConsumer<Path, RuntimeException> reloadErrorHandler = (path, e) -> {
+    };
 
     /**
      * Constructs a ConfigManager object.
@@ -28,64 +111,194 @@ public class ConfigManager extends HoleManager {
      */
     public ConfigManager(final HoleApp app) {
         super(app);
+    }
 
-        // Plugin manager
-        final var pluginManager = app.use(PluginManager.class);
+    @Override
+    public void init() {
+        super.init();
 
         // Set up configuration keys
         final var keySet = new HashSet<String>() {{
             add(KEY_USER_CONFIG);
             add(KEY_PLUGIN_PATH);
             add(KEY_PLUGIN_ENABLED);
-
-            pluginManager.forEachEnabled(plugin -> addAll(plugin.configKeys()));
         }};
 
         // Configuration values
         final var defaultConfig = new Config(keySet) {{
-            set(KEY_USER_CONFIG, null);
-            set(KEY_PLUGIN_PATH, null);
+            set(USER_CONFIG, System.getProperty(
+                USER_CONFIG_PROPERTY,
+                HoleHome.resolve("config.json").toString()
+            ));
+            set(PLUGIN_PATH, System.getProperty(
+                PLUGIN_PATH_PROPERTY,
+                HoleHome.resolve("plugins").toString()
+            ));
             set(KEY_PLUGIN_ENABLED, null);
-
-            pluginManager.forEachEnabled(plugin -> plugin.setConfig(this));
         }};
         configStack = new ConfigStack(defaultConfig);
+
+        // The user config file is watched even if it does not exist yet, so creating it applies
+        final var userConfigPath = Path.of(getDynamic().get(USER_CONFIG));
+        if (Files.isRegularFile(userConfigPath)) {
+            loadFromFile(userConfigPath, USER_LEVEL);
+        } else {
+            pathByLevel.put(USER_LEVEL, userConfigPath);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        super.destroy();
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
     }
 
     public Config getDynamic() {
         return configStack.getDynamic();
     }
 
-//    /**
-//     * Loads configuration from a specific file.
-//     * @param filename The filename.
-//     * @param level    The level of the configuration.
-//     */
-//    public void loadFromFile(final String filename, final String level) {
-//        if (!getFileExtension(filename).equals("json")) {
-//            throw new IllegalArgumentException("Do not support non-JSON files.");
-//        }
-//
-//        final var file = new File(filename);
-//        if (!file.exists()) {
-//            final var message = String.format("File not found: %s", file.getAbsoluteFile());
-//            throw new RuntimeException(new FileNotFoundException(message));
-//        } else if (file.isDirectory()) {
-//            final var message = String.format(
-//                "The give filename is a directory: %s",
-//                file.getAbsoluteFile()
-//            );
-//            throw new RuntimeException(new FileNotFoundException(message));
-//        }
-//
-//        try {
-//            final var content = Files.readString(file.toPath());
-//            final var config = this.configStack.createConfig(level);
-//            final Map<String, Object> mapObject
-//                = new Gson().fromJson(content, JsonTypes.MapStringObject);
-//            config.load(mapObject);
-//        } catch (final IOException e) {
-//            throw new RuntimeException(e);
-//        }
-//    }
+    /**
+     * Adds the configuration keys of a plugin and hands the configuration to it.
+     * @param plugin The plugin, which implements {@link PluginHook#CONFIG}.
+     */
+    public synchronized void addPlugin(final Plugin plugin) {
+        // All levels of the stack share the key set of the default config
+        final var configKeys = plugin.configKeys();
+        if (configKeys != null) {
+            configKeys.forEach(key -> getDynamic().keySet.add(key.name()));
+            pendingDataByLevel.forEach((level, pendingData) -> {
+                final var knownData = new HashMap<String, Object>();
+                for (final var key : configKeys) {
+                    if (pendingData.containsKey(key.name())) {
+                        knownData.put(key.name(), pendingData.remove(key.name()));
+                    }
+                }
+
+                if (!knownData.isEmpty()) {
+                    configStack.load(knownData, level);
+                }
+            });
+        }
+
+        pluginList.add(plugin);
+        plugin.setConfig(getDynamic());
+    }
+
+    /**
+     * Sets what is done when a config file could not be reloaded, such as one that is being
+     * written or is not valid JSON. The old values of the file are kept either way. By default,
+     * nothing is done.
+     * @param reloadErrorHandler Called with the path of the file and the exception.
+     */
+    public void setReloadErrorHandler(final BiConsumer<Path, RuntimeException> reloadErrorHandler) {
+        this.reloadErrorHandler = reloadErrorHandler;
+    }
+
+    /**
+     * Starts reloading the config files whenever they change, until this manager is destroyed.
+     * Short-lived commands do not call this, as watching costs a thread. Config files whose
+     * directories do not exist yet are watched as well.
+     * @throws RuntimeException if an existing directory of a config file could not be watched.
+     */
+    public synchronized void watch() {
+        if (configWatcher != null) {
+            return;
+        }
+
+        configWatcher = new ConfigWatcher(
+            this::reload,
+            (path, e) -> reloadErrorHandler.accept(path, e)
+        );
+        pathByLevel.values().forEach(configWatcher::watch);
+    }
+
+    /**
+     * Reloads the levels backed by a config file, and hands the config to the enabled plugins
+     * again. A level whose file is deleted becomes empty; a file that cannot be read, such as one
+     * that is being written, leaves its level as it is and is reported to the reload error handler.
+     * @param path The path of the config file.
+     */
+    public synchronized void reload(final Path path) {
+        final var absolutePath = path.toAbsolutePath().normalize();
+        var reloaded = false;
+        for (final var entry : pathByLevel.entrySet()) {
+            if (!entry.getValue().toAbsolutePath().normalize().equals(absolutePath)) {
+                continue;
+            }
+
+            final Map<String, Object> data;
+            try {
+                data = Files.exists(path) ? configFileReader.read(path) : Map.of();
+            } catch (final RuntimeException e) {
+                reloadErrorHandler.accept(path, e);
+                return;
+            }
+
+            final var level = entry.getKey();
+            if (!configStack.hasLevel(level)) {
+                configStack.createConfig(level);
+            }
+
+            final var knownData = new HashMap<String, Object>();
+            pendingDataByLevel.put(level, split(data, knownData));
+            configStack.replace(knownData, level);
+            reloaded = true;
+        }
+
+        if (reloaded) {
+            pluginList.forEach(plugin -> plugin.setConfig(getDynamic()));
+        }
+    }
+
+    /**
+     * Loads a JSON config file as a level of the config stack, creating the level if it does not
+     * exist. Keys that are not known yet are kept aside until a plugin adds them. The file backs
+     * the level from then on, and is reloaded when it changes if config files are watched.
+     * @param path  The path of the config file.
+     * @param level The level of the configuration.
+     * @throws RuntimeException if the file could not be read or is not a JSON object.
+     */
+    public synchronized void loadFromFile(final Path path, final String level) {
+        final var data = configFileReader.read(path);
+        if (!configStack.hasLevel(level)) {
+            configStack.createConfig(level);
+        }
+
+        final var knownData = new HashMap<String, Object>();
+        pendingDataByLevel
+            .computeIfAbsent(level, k -> new LinkedHashMap<>())
+            .putAll(split(data, knownData));
+        configStack.load(knownData, level);
+
+        pathByLevel.put(level, path);
+        if (configWatcher != null) {
+            configWatcher.watch(path);
+        }
+    }
+
+    /**
+     * Splits the data of a config file into the keys that are known and those that are not.
+     * @param data      The data of the config file.
+     * @param knownData The map to put the values of known keys into.
+     * @return the values of the keys that are not known yet.
+     */
+    private Map<String, Object> split(
+        final Map<String, Object> data,
+        final Map<String, Object> knownData
+    ) {
+        final var keySet = getDynamic().keySet;
+        final var pendingData = new LinkedHashMap<String, Object>();
+        data.forEach((key, value) -> {
+            if (keySet.contains(key)) {
+                knownData.put(key, value);
+            } else {
+                pendingData.put(key, value);
+            }
+        });
+
+        return pendingData;
+    }
 }
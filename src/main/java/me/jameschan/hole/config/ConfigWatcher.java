@@ -0,0 +1,209 @@
+package me.jameschan.hole.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Watches config files for changes with a {@link WatchService} on their directories. Changes are
+ * reported on a daemon thread of the watcher, once per file for a burst of events, since editors
+ * often save a file with several writes or by replacing it.
+ * <p>
+ * A file whose directory does not exist yet is watched through the nearest existing ancestor of
+ * the directory; once the directory is created, it is watched itself, and the file is reported if
+ * it already exists by then.
+ */
+public final class ConfigWatcher implements Closeable {
+    /**
+     * How long to wait for more events after an event before reporting the changed files.
+     */
+    private static final long SETTLE_MILLIS = 50;
+
+    /**
+     * The watch service.
+     */
+    private final WatchService watchService;
+
+    /**
+     * The absolute paths of the watched files.
+     */
+    private final Set<Path> pathSet = new HashSet<>();
+
+    /**
+     * The directories that are registered with the watch service.
+     */
+    private final Set<Path> dirSet = new HashSet<>();
+
+    /**
+     * Called with the path of every changed file.
+     */
+    private final Consumer<Path> listener;
+
+    /**
+     * Called with the path of a changed file and the exception the listener threw for it.
+     */
+    private final BiConsumer<Path, RuntimeException> errorHandler;
+
+    /**
+     * Constructs a config watcher and starts its thread.
+     * @param listener     Called with the absolute path of every changed, created or deleted file.
+     * @param errorHandler Called with the path and the exception if the listener throws; the file
+     *                     is watched on, and its next change is reported again.
+     * @throws RuntimeException if the watch service could not be created.
+     */
+    public ConfigWatcher(
+        final Consumer<Path> listener,
+        final BiConsumer<Path, RuntimeException> errorHandler
+    ) {
+        this.listener = listener;
+        this.errorHandler = errorHandler;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to create config watcher", e);
+        }
+
+        Thread.ofPlatform().name("hole-config-watcher").daemon().start(this::run);
+    }
+
+    /**
+     * Watches a file. Neither the file nor its directory needs to exist.
+     * @param path The path of the file.
+     * @throws RuntimeException if an existing directory could not be watched.
+     */
+    public synchronized void watch(final Path path) {
+        final var absolutePath = path.toAbsolutePath().normalize();
+        pathSet.add(absolutePath);
+        register(absolutePath.getParent());
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to close config watcher", e);
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                final var changedPathSet = new LinkedHashSet<Path>();
+                var key = watchService.take();
+                while (key != null) {
+                    collect(key, changedPathSet);
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                for (final var path : changedPathSet) {
+                    try {
+                        listener.accept(path);
+                    } catch (final RuntimeException e) {
+                        // Keep watching; the next change of the file is reported again
+                        errorHandler.accept(path, e);
+                    }
+                }
+            }
+        } catch (final ClosedWatchServiceException | InterruptedException e) {
+            // The watcher is closed
+        }
+    }
+
+    /**
+     * Adds the watched files of the events of a key to a set, and resets the key.
+     * @param key            The signalled key.
+     * @param changedPathSet The set of changed files.
+     */
+    private synchronized void collect(final WatchKey key, final Set<Path> changedPathSet) {
+        final var dir = (Path) key.watchable();
+        for (final var event : key.pollEvents()) {
+            if (event.context() instanceof Path fileName) {
+                final var path = dir.resolve(fileName);
+                if (pathSet.contains(path)) {
+                    changedPathSet.add(path);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, so every file of the directory may have changed
+                for (final var path : pathSet) {
+                    if (path.getParent().equals(dir)) {
+                        changedPathSet.add(path);
+                    }
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            dirSet.remove(dir);
+        }
+
+        // Directories may have been created or deleted, so files may be watched elsewhere now
+        for (final var path : pathSet) {
+            final var parent = path.getParent();
+            if (dirSet.contains(parent)) {
+                continue;
+            }
+
+            try {
+                if (register(parent) && Files.exists(path)) {
+                    changedPathSet.add(path);
+                }
+            } catch (final RuntimeException e) {
+                errorHandler.accept(path, e);
+            }
+        }
+    }
+
+    /**
+     * Registers a directory with the watch service, or its nearest existing ancestor if it does
+     * not exist.
+     * @param dir The directory.
+     * @return true if the directory itself is watched; false if an ancestor is watched instead.
+     * @throws RuntimeException if the directory or the ancestor could not be registered.
+     */
+    private boolean register(final Path dir) {
+        Path registered = null;
+        while (true) {
+            var target = dir;
+            while (target != null && !Files.isDirectory(target)) {
+                target = target.getParent();
+            }
+
+            // Stop once no directory on the way was created while the last one was registered
+            if (target == null || target.equals(registered)) {
+                return false;
+            }
+
+            if (dirSet.add(target)) {
+                try {
+                    target.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE
+                    );
+                } catch (final IOException e) {
+                    dirSet.remove(target);
+                    throw new RuntimeException("Fail to watch config directory: " + target, e);
+                }
+            }
+
+            if (target.equals(dir)) {
+                return true;
+            }
+            registered = target;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package me.jameschan.hole.daemon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the output of a command to a client as output chunks of the {@link DaemonProtocol}. A
+ * high surrogate at the end of a write is held back until its low surrogate arrives, so every
+ * chunk is valid UTF-8 on its own.
+ */
+final class ChunkWriter extends Writer {
+    /**
+     * The stream of the connection.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * A high surrogate held back from the previous write; or 0 if there is none.
+     */
+    private char heldBack = 0;
+
+    ChunkWriter(final DataOutputStream output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        final var builder = new StringBuilder(length + 1);
+        if (heldBack != 0) {
+            builder.append(heldBack);
+            heldBack = 0;
+        }
+        builder.append(buffer, offset, length);
+
+        final var last = builder.charAt(builder.length() - 1);
+        if (Character.isHighSurrogate(last)) {
+            heldBack = last;
+            builder.setLength(builder.length() - 1);
+        }
+
+        final var bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
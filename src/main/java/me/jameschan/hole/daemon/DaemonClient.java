@@ -0,0 +1,208 @@
+package me.jameschan.hole.daemon;
+
+import me.jameschan.hole.command.CommandLineSplitter;
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.common.StatusCode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A thin client that forwards raw arguments to a running {@link DaemonServer}. The client does not
+ * construct an application, so a command sent to the daemon skips loading managers and plugins.
+ */
+public final class DaemonClient {
+    /**
+     * The name of the socket file in the home directory.
+     */
+    private static final String SOCKET_FILE = "daemon.sock";
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Returns the path of the socket the daemon listens on by default.
+     * @return the path of the socket.
+     */
+    public static Path socketPath() {
+        return HoleHome.resolve(SOCKET_FILE);
+    }
+
+    /**
+     * Checks if a daemon is listening on a socket.
+     * @param socketPath The path of the socket.
+     * @return true if a daemon accepted a connection; false otherwise.
+     */
+    public static boolean isRunning(final Path socketPath) {
+        try (final var channel = connect(socketPath)) {
+            return channel != null;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Executes raw arguments on the daemon, streaming the output of the command to a writer while
+     * the command runs.
+     * @param socketPath The path of the socket.
+     * @param rawArgs    The raw arguments.
+     * @param env        The environment of the client, such as its working directory.
+     * @param out        The writer of the output.
+     * @return the response of the daemon; or {@code null} if no daemon is running.
+     * @throws DaemonException if the daemon accepted the connection but did not respond.
+     */
+    public static DaemonResponse execute(
+        final Path socketPath,
+        final List<String> rawArgs,
+        final Env env,
+        final Writer out
+    ) {
+        final var channel = connect(socketPath);
+        if (channel == null) {
+            return null;
+        }
+
+        try (channel) {
+            final var output = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel))
+            );
+            output.writeByte(DaemonProtocol.EXECUTE);
+            DaemonProtocol.writeString(output, env.dir());
+            output.writeInt(rawArgs.size());
+            for (final var rawArg : rawArgs) {
+                DaemonProtocol.writeString(output, rawArg);
+            }
+            output.flush();
+
+            final var input = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel))
+            );
+            int length;
+            while ((length = input.readInt()) != DaemonProtocol.END_OF_OUTPUT) {
+                final var chunk = new byte[length];
+                input.readFully(chunk);
+                out.write(new String(chunk, StandardCharsets.UTF_8));
+                out.flush();
+            }
+
+            final var statusCode = StatusCode.fromCode(input.readInt());
+            final var message = DaemonProtocol.readString(input);
+
+            return new DaemonResponse(statusCode, message);
+        } catch (final IOException e) {
+            throw new DaemonException("Fail to execute command on daemon: " + socketPath, e);
+        }
+    }
+
+    /**
+     * Executes the command lines of a batch on the daemon, one request per line, streaming their
+     * outputs to a writer. Lines are read by the client, so the batch may come from a file or the
+     * standard input of the client, and the daemon keeps exclusive use of the storage. Like a batch
+     * run in-process, empty lines and lines starting with {@code #} are skipped, and a failed
+     * command does not stop the batch.
+     * @param socketPath The path of the socket.
+     * @param reader     The reader of the command lines.
+     * @param env        The environment of the client, such as its working directory.
+     * @param out        The writer of the output.
+     * @return the number of commands that failed.
+     * @throws IOException     if reading a command line or writing an output fails.
+     * @throws DaemonException if the daemon stopped or did not respond during the batch.
+     */
+    public static int executeBatch(
+        final Path socketPath,
+        final BufferedReader reader,
+        final Env env,
+        final Writer out
+    ) throws IOException {
+        var failureCount = 0;
+        var lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            final var trimmedLine = line.trim();
+            if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+                continue;
+            }
+
+            final var rawArgs = CommandLineSplitter.split(trimmedLine);
+            final var response = execute(socketPath, rawArgs, env, out);
+            if (response == null) {
+                throw new DaemonException("Daemon stopped during batch at line " + lineNumber);
+            }
+
+            if (response.statusCode() == StatusCode.ERROR) {
+                ++failureCount;
+                out.write(String.format("Line %d: %s%n", lineNumber, response.message()));
+            } else if (response.statusCode() == StatusCode.INVALID_COMMAND) {
+                ++failureCount;
+            }
+        }
+
+        out.flush();
+        return failureCount;
+    }
+
+    /**
+     * Asks the daemon to shut down after the command it is executing, if any.
+     * @param socketPath The path of the socket.
+     * @return true if a daemon was running; false otherwise.
+     * @throws DaemonException if the daemon accepted the connection but did not respond.
+     */
+    public static boolean stop(final Path socketPath) {
+        final var channel = connect(socketPath);
+        if (channel == null) {
+            return false;
+        }
+
+        try (channel) {
+            final var output = new DataOutputStream(Channels.newOutputStream(channel));
+            output.writeByte(DaemonProtocol.STOP);
+            output.flush();
+
+            // The daemon closes the connection once it has stopped accepting new ones
+            new DataInputStream(Channels.newInputStream(channel)).readInt();
+            return true;
+        } catch (final IOException e) {
+            throw new DaemonException("Fail to stop daemon: " + socketPath, e);
+        }
+    }
+
+    /**
+     * Connects to a socket.
+     * @param socketPath The path of the socket.
+     * @return the connected channel; or {@code null} if nothing is listening on the socket.
+     */
+    private static SocketChannel connect(final Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return null;
+        }
+
+        try {
+            final var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(UnixDomainSocketAddress.of(socketPath));
+                return channel;
+            } catch (final IOException e) {
+                // The socket file was left behind by a daemon that did not shut down cleanly
+                channel.close();
+                return null;
+            }
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+}
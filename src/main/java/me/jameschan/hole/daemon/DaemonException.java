@@ -0,0 +1,24 @@
+package me.jameschan.hole.daemon;
+
+/**
+ * Exception thrown when the daemon cannot be started, or when a client fails to talk to a running
+ * daemon.
+ */
+public class DaemonException extends RuntimeException {
+    /**
+     * Constructs a {@code DaemonException} with the specified detail message.
+     * @param message The detail message.
+     */
+    public DaemonException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a {@code DaemonException} with the specified detail message and cause.
+     * @param message The detail message.
+     * @param cause   The cause of this exception.
+     */
+    public DaemonException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
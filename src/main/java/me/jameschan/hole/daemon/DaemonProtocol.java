@@ -0,0 +1,74 @@
+package me.jameschan.hole.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The wire format spoken between {@link DaemonClient} and {@link DaemonServer}. Every connection
+ * carries exactly one request and one response.
+ * <p>
+ * A request starts with a type byte. An {@link #EXECUTE} request is followed by the client's
+ * working directory and the raw arguments (count, then each argument); a {@link #STOP} request has
+ * no body. The response to an execute request streams the output of the command as chunks, each a
+ * length-prefixed piece of UTF-8, while the command runs, followed by {@link #END_OF_OUTPUT}, the
+ * status code and the error message, which is empty unless the command failed. The response to a
+ * stop request is a status code. Strings are length-prefixed UTF-8.
+ */
+final class DaemonProtocol {
+    /**
+     * Requests the daemon to execute raw arguments.
+     */
+    static final byte EXECUTE = 1;
+
+    /**
+     * Requests the daemon to shut down.
+     */
+    static final byte STOP = 2;
+
+    /**
+     * Marks the end of the output chunks of a response.
+     */
+    static final int END_OF_OUTPUT = -1;
+
+    /**
+     * The maximum length of a string in bytes, which guards against reading garbage.
+     */
+    private static final int MAX_STRING_LENGTH = 1 << 26;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     * @param output The stream to write to.
+     * @param string The string to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void writeString(final DataOutputStream output, final String string)
+        throws IOException {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     * @param input The stream to read from.
+     * @return the string.
+     * @throws IOException if an I/O error occurs or the length is invalid.
+     */
+    static String readString(final DataInputStream input) throws IOException {
+        final var length = input.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new EOFException("Invalid string length: " + length);
+        }
+
+        final var bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
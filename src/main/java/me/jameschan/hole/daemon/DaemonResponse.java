@@ -0,0 +1,15 @@
+package me.jameschan.hole.daemon;
+
+import me.jameschan.hole.common.StatusCode;
+
+/**
+ * The result of a command executed by the daemon, whose output has already been streamed to the
+ * client.
+ * @param statusCode The status code of the command.
+ * @param message    The error message if the command failed; or an empty string otherwise.
+ */
+public record DaemonResponse(
+    StatusCode statusCode,
+    String message
+) {
+}
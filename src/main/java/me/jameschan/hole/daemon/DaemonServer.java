@@ -0,0 +1,228 @@
+package me.jameschan.hole.daemon;
+
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A resident daemon that keeps one {@link HoleApp} alive and executes the raw arguments sent by
+ * {@link DaemonClient}s over a Unix domain socket. Since managers and plugins are only loaded once,
+ * a command costs a socket round trip instead of a JVM startup.
+ * <p>
+ * Commands are executed one at a time on the thread that calls {@link #run()}, in the order their
+ * connections are accepted. The application is destroyed when the daemon stops. Commands see
+ * {@link Env#daemon()} set, so a command that only returns when the process is terminated can
+ * refuse to run instead of blocking the daemon.
+ */
+public class DaemonServer implements Closeable {
+    /**
+     * The application that executes commands.
+     */
+    private final HoleApp app;
+
+    /**
+     * The path of the socket.
+     */
+    private final Path socketPath;
+
+    /**
+     * Counted down when {@link #run()} has returned and the application has been destroyed.
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * The channel that accepts connections; or {@code null} if the daemon is not running.
+     */
+    private volatile ServerSocketChannel serverChannel;
+
+    /**
+     * Whether the daemon has been asked to stop.
+     */
+    private volatile boolean stopping = false;
+
+    /**
+     * The thread that calls {@link #run()}.
+     */
+    private volatile Thread runThread;
+
+    /**
+     * Creates a daemon.
+     * @param app        The application that executes commands.
+     * @param socketPath The path of the socket to listen on.
+     */
+    public DaemonServer(final HoleApp app, final Path socketPath) {
+        this.app = app;
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Listens on the socket and executes commands until the daemon is stopped, either by a client
+     * or by {@link #close()}.
+     * @throws DaemonException if another daemon is listening on the socket, or the socket could not
+     *                         be bound.
+     */
+    public void run() {
+        runThread = Thread.currentThread();
+        try {
+            bind();
+            while (!stopping) {
+                final SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (final AsynchronousCloseException e) {
+                    break;
+                }
+
+                try (channel) {
+                    serve(channel);
+                } catch (final IOException e) {
+                    // The client went away; keep serving the others
+                }
+            }
+        } catch (final IOException e) {
+            throw new DaemonException("Fail to listen on socket: " + socketPath, e);
+        } finally {
+            try {
+                closeServerChannel();
+            } finally {
+                app.destroy();
+                stopped.countDown();
+            }
+        }
+    }
+
+    /**
+     * Stops the daemon. When called from another thread, such as a shutdown hook, this waits until
+     * the command being executed has finished and the application has been destroyed.
+     */
+    @Override
+    public void close() {
+        stopping = true;
+        closeServerChannel();
+
+        final var thread = runThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                stopped.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void bind() throws IOException {
+        if (DaemonClient.isRunning(socketPath)) {
+            throw new DaemonException("Daemon is already running: " + socketPath);
+        }
+
+        Files.createDirectories(socketPath.getParent());
+        Files.deleteIfExists(socketPath);
+
+        final var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketPath));
+        serverChannel = channel;
+
+        // The daemon may have been closed while the socket was being bound
+        if (stopping) {
+            closeServerChannel();
+        }
+    }
+
+    private synchronized void closeServerChannel() {
+        final var channel = serverChannel;
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+
+        try {
+            channel.close();
+            Files.deleteIfExists(socketPath);
+        } catch (final IOException e) {
+            // The socket file is replaced when the next daemon starts
+        }
+    }
+
+    /**
+     * Reads a request from a connection, handles it, and writes the response.
+     * @param channel The connection.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void serve(final SocketChannel channel) throws IOException {
+        final var input = new DataInputStream(
+            new BufferedInputStream(Channels.newInputStream(channel))
+        );
+        final var output = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel))
+        );
+
+        final var type = input.readByte();
+        if (type == DaemonProtocol.STOP) {
+            stopping = true;
+            output.writeInt(StatusCode.SUCCESS.getCode());
+            output.flush();
+            return;
+        }
+
+        if (type != DaemonProtocol.EXECUTE) {
+            throw new IOException("Unknown request type: " + type);
+        }
+
+        final var dir = DaemonProtocol.readString(input);
+        final var argCount = input.readInt();
+        final var rawArgs = new ArrayList<String>(argCount);
+        for (var i = 0; i < argCount; ++i) {
+            rawArgs.add(DaemonProtocol.readString(input));
+        }
+
+        final var response = execute(rawArgs, new Env(dir, true), output);
+        output.writeInt(DaemonProtocol.END_OF_OUTPUT);
+        output.writeInt(response.statusCode().getCode());
+        DaemonProtocol.writeString(output, response.message());
+        output.flush();
+    }
+
+    /**
+     * Executes raw arguments the same way a command line invocation would, streaming the output of
+     * the command to the client.
+     * @param rawArgs The raw arguments.
+     * @param env     The environment of the client.
+     * @param output  The stream of the connection.
+     * @return the response to send to the client after the output.
+     */
+    private DaemonResponse execute(
+        final List<String> rawArgs,
+        final Env env,
+        final DataOutputStream output
+    ) {
+        final var bundle = new Bundle(env, new ChunkWriter(output));
+        try {
+            app.use(HandlerManager.class).handleRawArgs(rawArgs, bundle);
+            bundle.buffer.finish();
+        } catch (final RuntimeException e) {
+            final var message = e.getMessage() == null ? e.toString() : e.getMessage();
+            return new DaemonResponse(StatusCode.ERROR, message);
+        }
+
+        return new DaemonResponse(bundle.statusCode, "");
+    }
+}
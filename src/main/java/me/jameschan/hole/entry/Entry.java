@@ -1,30 +1,80 @@
 package me.jameschan.hole.entry;
 
-import java.util.HashMap;
-import java.util.Map;
+import me.jameschan.hole.common.Forkable;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Represents an entry with a unique ID and a set of key-value properties. This class allows for the
  * storage and retrieval of properties associated with an entry.
+ * <p>
+ * The properties of an entry owned by a storage are not stored in the entry itself but in a row of
+ * a {@link PropertyTable} shared by many entries, so that property names and storage are shared as
+ * well. A detached entry, such as one that is decoded or forked, keeps its few properties in a
+ * small array of its own instead, since a table of its own would cost whole column pages.
+ * <p>
+ * A fork of an entry holds a copy of its properties and remembers which properties it sets, so
+ * merging it only applies those.
  */
-public class Entry {
+public class Entry implements Forkable<Entry> {
     /**
      * The unique identifier for this entry.
      */
     private final int id;
 
     /**
-     * A map to store properties (key-value pairs) associated with this entry.
+     * The table that stores the properties (key-value pairs) associated with this entry; or
+     * {@code null} if this entry is detached.
+     */
+    private final PropertyTable table;
+
+    /**
+     * The row of the table that holds the properties of this entry.
      */
-    private final Map<String, String> properties = new HashMap<>();
+    private final int row;
 
     /**
-     * Constructs a new Entry with the specified ID.
+     * The properties of a detached entry, as keys at even and values at odd indexes, in the order
+     * in which they were first set; or {@code null} if this entry is stored in a table.
+     */
+    private String[] pairs;
+
+    /**
+     * The number of used slots of {@link #pairs}, which is twice the number of properties.
+     */
+    private int pairSize = 0;
+
+    /**
+     * The keys of the properties set since this entry was forked; or {@code null} if it is not a
+     * fork.
+     */
+    private Set<String> changedKeySet;
+
+    /**
+     * Constructs a new detached Entry with the specified ID, which stores its properties itself.
      * @param id The unique identifier for this entry.
      */
     public Entry(int id) {
         this.id = id;
+        this.table = null;
+        this.row = 0;
+        this.pairs = new String[8];
+    }
+
+    /**
+     * Constructs a new Entry whose properties are stored in a row of the given table.
+     * @param id    The unique identifier for this entry.
+     * @param table The table that stores the properties.
+     * @param row   The row of the table that holds the properties.
+     */
+    Entry(final int id, final PropertyTable table, final int row) {
+        this.id = id;
+        this.table = table;
+        this.row = row;
     }
 
     /**
@@ -42,7 +92,15 @@ public class Entry {
      * @param value The property value to associate with the key.
      */
     public void set(final String key, final String value) {
-        properties.put(key, value);
+        if (table != null) {
+            table.set(row, key, value);
+        } else {
+            setDetached(key, value);
+        }
+
+        if (changedKeySet != null) {
+            changedKeySet.add(key);
+        }
     }
 
     /**
@@ -52,7 +110,92 @@ public class Entry {
      * @throws KeyNotFoundException if the key does not exist in the properties map.
      */
     public String get(final String key) {
-        return Optional.ofNullable(properties.get(key))
+        return Optional.ofNullable(getOrNull(key))
             .orElseThrow(() -> new KeyNotFoundException(key));
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if this entry has a property with the given key.
+     * @param key The key of the property to check.
+     * @return true if the property exists; false otherwise.
+     */
+    public boolean has(final String key) {
+        return getOrNull(key) != null;
+    }
+
+    /**
+     * Performs the given action for each property of this entry.
+     * @param action The action to be performed for each property key and value.
+     */
+    public void forEach(final BiConsumer<String, String> action) {
+        if (table != null) {
+            table.forEach(row, action);
+            return;
+        }
+
+        for (var i = 0; i < pairSize; i += 2) {
+            action.accept(pairs[i], pairs[i + 1]);
+        }
+    }
+
+    @Override
+    public Entry fork() {
+        final var fork = new Entry(id);
+        forEach(fork::set);
+        fork.changedKeySet = new LinkedHashSet<>();
+        return fork;
+    }
+
+    @Override
+    public void merge(final Entry fork) {
+        for (final var key : fork.changedKeySet) {
+            set(key, fork.getOrNull(key));
+        }
+    }
+
+    private String getOrNull(final String key) {
+        if (table != null) {
+            return table.get(row, key);
+        }
+
+        for (var i = 0; i < pairSize; i += 2) {
+            if (pairs[i].equals(key)) {
+                return pairs[i + 1];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Sets a property of a detached entry. Setting {@code null} removes the property, like in a
+     * table.
+     * @param key   The property key.
+     * @param value The property value; or {@code null} to remove the property.
+     */
+    private void setDetached(final String key, final String value) {
+        for (var i = 0; i < pairSize; i += 2) {
+            if (pairs[i].equals(key)) {
+                if (value != null) {
+                    pairs[i + 1] = value;
+                } else {
+                    System.arraycopy(pairs, i + 2, pairs, i, pairSize - i - 2);
+                    pairSize -= 2;
+                    pairs[pairSize] = null;
+                    pairs[pairSize + 1] = null;
+                }
+                return;
+            }
+        }
+
+        if (value == null) {
+            return;
+        }
+
+        if (pairSize == pairs.length) {
+            pairs = Arrays.copyOf(pairs, pairSize * 2);
+        }
+        pairs[pairSize++] = key;
+        pairs[pairSize++] = value;
+    }
+}
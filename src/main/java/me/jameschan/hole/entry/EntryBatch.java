@@ -0,0 +1,50 @@
+package me.jameschan.hole.entry;
+
+import me.jameschan.hole.common.Forkable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of entries created together, such as by an import, which plugin hooks are run on at
+ * once. A fork of a batch holds a fork of every entry, and merging it merges them in order.
+ */
+public class EntryBatch implements Forkable<EntryBatch> {
+    /**
+     * The entries of this batch.
+     */
+    private final List<Entry> entryList;
+
+    /**
+     * Constructs a batch of entries.
+     * @param entryList The entries.
+     */
+    public EntryBatch(final List<Entry> entryList) {
+        this.entryList = entryList;
+    }
+
+    /**
+     * Returns the entries of this batch.
+     * @return the entries.
+     */
+    public List<Entry> entryList() {
+        return entryList;
+    }
+
+    @Override
+    public EntryBatch fork() {
+        final var forkList = new ArrayList<Entry>(entryList.size());
+        for (final var entry : entryList) {
+            forkList.add(entry.fork());
+        }
+
+        return new EntryBatch(forkList);
+    }
+
+    @Override
+    public void merge(final EntryBatch fork) {
+        for (var i = 0; i < entryList.size(); ++i) {
+            entryList.get(i).merge(fork.entryList.get(i));
+        }
+    }
+}
@@ -1,30 +1,57 @@
 package me.jameschan.hole.entry;
 
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.storage.EntryStorage;
+import me.jameschan.hole.entry.storage.LogEntryStorage;
+import me.jameschan.hole.entry.storage.MemoryEntryStorage;
+import me.jameschan.hole.entry.transfer.EntryInput;
+import me.jameschan.hole.entry.transfer.EntryOutput;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.extend.HoleManager;
+import me.jameschan.hole.plugin.Plugin;
+import me.jameschan.hole.plugin.PluginHook;
 import me.jameschan.hole.plugin.PluginManager;
 
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Manages entries within the application, providing functionalities to create, retrieve, and manage
  * entries by their unique identifiers. This class serves as a central registry for all entries,
  * ensuring they are accessible throughout the application based on their IDs.
+ * <p>
+ * Entries are kept by an {@link EntryStorage}. By default, entries are persisted in a
+ * {@link LogEntryStorage} under the {@code entries} directory of {@link HoleHome}; setting the
+ * {@code hole.storage} system property to {@code memory} keeps them in memory instead.
+ * <p>
+ * This manager is safe to use from multiple threads, such as the request threads of a server: IDs
+ * are allocated with a single atomic increment, and both storage engines are thread-safe.
  */
 public class EntryManager extends HoleManager {
     /**
-     * A map that associates entry IDs with their corresponding {@link Entry} instances. This
-     * facilitates efficient lookup of entries based on their unique identifiers.
+     * The system property that selects the storage engine.
      */
-    private final Map<Integer, Entry> byId = new HashMap<>();
+    public static final String STORAGE_PROPERTY = "hole.storage";
+
+    /**
+     * The maximum number of entries imported at once; the hooks of plugins are run once per batch.
+     */
+    static final int IMPORT_BATCH_SIZE = 1024;
+
+    /**
+     * The storage that entries are written to and read from.
+     */
+    private volatile EntryStorage storage;
 
     /**
      * Tracks the highest ID assigned to an entry to ensure that each new entry receives a unique
      * identifier.
      */
-    private Integer maxId = 0;
+    private final AtomicInteger maxId = new AtomicInteger();
 
     /**
      * Constructs a new {@code EntryManager} instance, initializing it with a reference to the
@@ -37,6 +64,50 @@ public class EntryManager extends HoleManager {
         super(app);
     }
 
+    @Override
+    public void init() {
+        super.init();
+        storage = createStorage();
+        maxId.set(storage.maxId());
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    /**
+     * Creates the storage engine selected by the {@code hole.storage} system property.
+     * @return the storage engine.
+     */
+    protected EntryStorage createStorage() {
+        if ("memory".equals(System.getProperty(STORAGE_PROPERTY))) {
+            return new MemoryEntryStorage();
+        }
+
+        return new LogEntryStorage(HoleHome.resolve("entries"));
+    }
+
+    /**
+     * Returns the directory the storage persists entries in.
+     * @return the directory; or {@code null} if entries are only kept in memory.
+     * @see EntryStorage#dir()
+     */
+    public Path getStorageDir() {
+        return storage.dir();
+    }
+
+    /**
+     * Returns the highest ID assigned to an entry.
+     * @return the highest entry ID; or 0 if no entry has been created.
+     */
+    public int getMaxId() {
+        return maxId.get();
+    }
+
     /**
      * Retrieves an entry by its ID.
      * @param id The unique identifier of the entry to retrieve.
@@ -44,7 +115,7 @@ public class EntryManager extends HoleManager {
      * @throws EntryNotFoundException if no entry exists with the provided ID.
      */
     public Entry getById(final Integer id) {
-        return Optional.ofNullable(byId.get(id))
+        return Optional.ofNullable(storage.read(id))
             .orElseThrow(() -> new EntryNotFoundException(id));
     }
 
@@ -57,15 +128,98 @@ public class EntryManager extends HoleManager {
      * data.
      */
     public Entry create(final Map<String, String> data) {
-        final var id = ++this.maxId;
-        final var entry = new Entry(id);
-        this.byId.put(id, entry);
-
+        final var id = maxId.incrementAndGet();
+        final var entry = storage.create(id);
         data.forEach(entry::set);
 
         final var pluginManager = use(PluginManager.class);
-        pluginManager.forEachEnabled(plugin -> plugin.onCreateEntry(entry));
+        pluginManager.forkEachEnabled(PluginHook.ON_CREATE_ENTRY, entry, Plugin::onCreateEntry);
+
+        // Persist the entry after plugins have enriched it, and only then let plugins track it
+        storage.write(entry);
+        pluginManager.forEachEnabled(
+            PluginHook.AFTER_CREATE_ENTRY,
+            plugin -> plugin.afterCreateEntry(entry)
+        );
 
         return entry;
     }
-}
\ No newline at end of file
+
+    /**
+     * Exports all entries to an output in the order of their IDs. Entries are read from the
+     * storage one at a time, so the memory used does not depend on the number of entries.
+     * @param output The output to write the entries to.
+     * @return the number of entries exported.
+     */
+    public int exportTo(final EntryOutput output) {
+        final var lastId = maxId.get();
+        var count = 0;
+        for (var id = 1; id <= lastId; ++id) {
+            final var entry = storage.read(id);
+            if (entry != null) {
+                output.write(entry);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Imports all entries of an input as new entries. Imported entries are given new IDs after the
+     * highest one, in the order of the input, so they never overwrite existing entries; the IDs of
+     * the input are not kept. Entries are imported in batches of at most
+     * {@link #IMPORT_BATCH_SIZE}, and the {@link PluginHook#ON_CREATE_ENTRY} and
+     * {@link PluginHook#AFTER_CREATE_ENTRY} hooks are run once for every batch.
+     * @param input The input to read the entries from.
+     * @return the number of entries imported.
+     */
+    public int importFrom(final EntryInput input) {
+        final var pluginManager = use(PluginManager.class);
+
+        // The properties of a batch as flat name-value pairs, and where every entry ends in them
+        final var propertyList = new ArrayList<String>();
+        final var ends = new int[IMPORT_BATCH_SIZE];
+        final BiConsumer<String, String> collector = (name, value) -> {
+            propertyList.add(name);
+            propertyList.add(value);
+        };
+
+        var count = 0;
+        while (true) {
+            propertyList.clear();
+            var size = 0;
+            while (size < IMPORT_BATCH_SIZE && input.next(collector)) {
+                ends[size++] = propertyList.size();
+            }
+            if (size == 0) {
+                return count;
+            }
+
+            // Reserve the IDs of the whole batch at once
+            final var firstId = maxId.getAndAdd(size) + 1;
+            final var entryList = new ArrayList<Entry>(size);
+            var start = 0;
+            for (var i = 0; i < size; ++i) {
+                final var entry = storage.create(firstId + i);
+                for (var j = start; j < ends[i]; j += 2) {
+                    entry.set(propertyList.get(j), propertyList.get(j + 1));
+                }
+                start = ends[i];
+                entryList.add(entry);
+            }
+
+            pluginManager.forkEachEnabled(
+                PluginHook.ON_CREATE_ENTRY,
+                new EntryBatch(entryList),
+                (plugin, batch) -> plugin.onCreateEntries(batch.entryList())
+            );
+            entryList.forEach(storage::write);
+            pluginManager.forEachEnabled(
+                PluginHook.AFTER_CREATE_ENTRY,
+                plugin -> plugin.afterCreateEntries(entryList)
+            );
+            count += size;
+        }
+    }
+}
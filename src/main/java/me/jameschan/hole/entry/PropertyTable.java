@@ -0,0 +1,357 @@
+package me.jameschan.hole.entry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Stores the properties of many entries in a columnar layout. Property names are interned once per
+ * table and each property is stored in its own column, which holds the values of all rows in pages
+ * of fixed size. Rows are usually entry IDs, so a table that holds a million entries keeps one
+ * column per property name instead of a million hash maps.
+ * <p>
+ * Columns are specialized for their values: as long as every value of a column is the canonical
+ * decimal representation of a {@code long}, such as the timestamps written by the time plugin,
+ * values are stored as primitives. The column is converted to a column of strings the first time
+ * any other value is set.
+ * <p>
+ * A table is safe to use from multiple threads. Writes are exclusive, while reads are optimistic:
+ * they run without locking and are only repeated under a read lock if a write interfered.
+ */
+public class PropertyTable {
+    /**
+     * The number of bits of a row used for the position within a page.
+     */
+    private static final int PAGE_BITS = 10;
+
+    /**
+     * The number of rows in a page.
+     */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * The mask that extracts the position within a page from a row.
+     */
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * Guards the columns of this table.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * A mapping of property names to column indexes.
+     */
+    private final Map<String, Integer> columnIndexByName = new ConcurrentHashMap<>();
+
+    /**
+     * Property names by column index.
+     */
+    private String[] names = new String[4];
+
+    /**
+     * Columns by column index.
+     */
+    private Column[] columns = new Column[4];
+
+    /**
+     * The number of columns.
+     */
+    private int columnCount = 0;
+
+    /**
+     * Returns an entry whose properties are stored in this table, in the row of its ID.
+     * @param id The unique identifier of the entry.
+     * @return the entry.
+     */
+    public Entry entry(final int id) {
+        return new Entry(id, this, id);
+    }
+
+    /**
+     * Returns an entry whose properties are stored in this table, in the given row.
+     * @param id  The unique identifier of the entry.
+     * @param row The row that holds the properties of the entry.
+     * @return the entry.
+     */
+    public Entry entry(final int id, final int row) {
+        return new Entry(id, this, row);
+    }
+
+    /**
+     * Returns the number of distinct property names in this table.
+     * @return the number of columns.
+     */
+    public int columnCount() {
+        final var stamp = lock.readLock();
+        try {
+            return columnCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Sets the value of a property in a row. Setting {@code null} removes the property.
+     * @param row   The row.
+     * @param name  The property name.
+     * @param value The property value.
+     */
+    public void set(final int row, final String name, final String value) {
+        final var stamp = lock.writeLock();
+        try {
+            setUnlocked(row, name, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the value of a property in a row.
+     * @param row  The row.
+     * @param name The property name.
+     * @return the property value; or {@code null} if the row has no such property.
+     */
+    public String get(final int row, final String name) {
+        final var stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final var value = getUnlocked(row, name);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (final RuntimeException e) {
+                // A concurrent write left the columns inconsistent; read again under the lock
+            }
+        }
+
+        final var readStamp = lock.readLock();
+        try {
+            return getUnlocked(row, name);
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Performs the given action for each property of a row, in the order in which the property
+     * names were first added to this table. The action is called without holding any lock.
+     * @param row    The row.
+     * @param action The action to be performed for each property name and value.
+     */
+    public void forEach(final int row, final BiConsumer<String, String> action) {
+        final String[] rowNames;
+        final String[] rowValues;
+        final var stamp = lock.readLock();
+        try {
+            rowNames = new String[columnCount];
+            rowValues = new String[columnCount];
+            for (var i = 0; i < columnCount; ++i) {
+                rowNames[i] = names[i];
+                rowValues[i] = columns[i].get(row);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        for (var i = 0; i < rowNames.length; ++i) {
+            if (rowValues[i] != null) {
+                action.accept(rowNames[i], rowValues[i]);
+            }
+        }
+    }
+
+    private void setUnlocked(final int row, final String name, final String value) {
+        final var columnIndex = columnIndexByName.get(name);
+        if (columnIndex != null) {
+            columns[columnIndex] = columns[columnIndex].set(row, value);
+        } else if (value != null) {
+            final var column = isCanonicalLong(value) ? new LongColumn() : new StringColumn();
+            addColumn(name, column.set(row, value));
+        }
+    }
+
+    private String getUnlocked(final int row, final String name) {
+        final var columnIndex = columnIndexByName.get(name);
+        return columnIndex == null ? null : columns[columnIndex].get(row);
+    }
+
+    private void addColumn(final String name, final Column column) {
+        if (columnCount == columns.length) {
+            names = Arrays.copyOf(names, columnCount * 2);
+            columns = Arrays.copyOf(columns, columnCount * 2);
+        }
+
+        names[columnCount] = name;
+        columns[columnCount] = column;
+        columnIndexByName.put(name, columnCount);
+        columnCount++;
+    }
+
+    /**
+     * Checks if a string is the canonical decimal representation of a long, that is, parsing it
+     * and converting it back yields the same string. The minimum long is excluded, because it is
+     * used to mark missing values.
+     * @param value The string to check.
+     * @return true if the string is a canonical long; false otherwise.
+     */
+    static boolean isCanonicalLong(final String value) {
+        final var length = value.length();
+        final var start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > 19) {
+            return false;
+        }
+
+        if (value.charAt(start) == '0' && (length - start > 1 || start == 1)) {
+            return false;
+        }
+
+        for (var i = start; i < length; ++i) {
+            final var c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+
+        if (length - start < 19) {
+            return true;
+        }
+
+        try {
+            return Long.parseLong(value) != Long.MIN_VALUE;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A column that stores the values of one property for all rows.
+     */
+    private abstract static class Column {
+        /**
+         * Sets the value of a row.
+         * @param row   The row.
+         * @param value The value; or {@code null} to remove the value.
+         * @return the column that holds the value, which is this column unless it had to be
+         * converted to hold the value.
+         */
+        abstract Column set(final int row, final String value);
+
+        /**
+         * Returns the value of a row.
+         * @param row The row.
+         * @return the value; or {@code null} if the row has no value.
+         */
+        abstract String get(final int row);
+    }
+
+    /**
+     * A column of strings.
+     */
+    private static final class StringColumn extends Column {
+        private String[][] pages = new String[1][];
+
+        @Override
+        Column set(final int row, final String value) {
+            final var pageIndex = row >>> PAGE_BITS;
+            if (pageIndex >= pages.length) {
+                if (value == null) {
+                    return this;
+                }
+
+                pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+            }
+
+            var page = pages[pageIndex];
+            if (page == null) {
+                if (value == null) {
+                    return this;
+                }
+
+                page = pages[pageIndex] = new String[PAGE_SIZE];
+            }
+
+            page[row & PAGE_MASK] = value;
+            return this;
+        }
+
+        @Override
+        String get(final int row) {
+            final var pageIndex = row >>> PAGE_BITS;
+            if (pageIndex >= pages.length || pages[pageIndex] == null) {
+                return null;
+            }
+
+            return pages[pageIndex][row & PAGE_MASK];
+        }
+    }
+
+    /**
+     * A column of longs, which marks missing values with {@link Long#MIN_VALUE}.
+     */
+    private static final class LongColumn extends Column {
+        private static final long MISSING = Long.MIN_VALUE;
+
+        private long[][] pages = new long[1][];
+
+        @Override
+        Column set(final int row, final String value) {
+            if (value != null && !isCanonicalLong(value)) {
+                return toStringColumn().set(row, value);
+            }
+
+            final var pageIndex = row >>> PAGE_BITS;
+            if (pageIndex >= pages.length) {
+                if (value == null) {
+                    return this;
+                }
+
+                pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+            }
+
+            var page = pages[pageIndex];
+            if (page == null) {
+                if (value == null) {
+                    return this;
+                }
+
+                page = pages[pageIndex] = new long[PAGE_SIZE];
+                Arrays.fill(page, MISSING);
+            }
+
+            page[row & PAGE_MASK] = value == null ? MISSING : Long.parseLong(value);
+            return this;
+        }
+
+        @Override
+        String get(final int row) {
+            final var pageIndex = row >>> PAGE_BITS;
+            if (pageIndex >= pages.length || pages[pageIndex] == null) {
+                return null;
+            }
+
+            final var value = pages[pageIndex][row & PAGE_MASK];
+            return value == MISSING ? null : Long.toString(value);
+        }
+
+        private StringColumn toStringColumn() {
+            final var column = new StringColumn();
+            for (var pageIndex = 0; pageIndex < pages.length; ++pageIndex) {
+                final var page = pages[pageIndex];
+                if (page == null) {
+                    continue;
+                }
+
+                for (var i = 0; i < PAGE_SIZE; ++i) {
+                    if (page[i] != MISSING) {
+                        column.set((pageIndex << PAGE_BITS) | i, Long.toString(page[i]));
+                    }
+                }
+            }
+
+            return column;
+        }
+    }
+}
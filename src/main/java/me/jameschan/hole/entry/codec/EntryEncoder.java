@@ -0,0 +1,210 @@
+package me.jameschan.hole.entry.codec;
+
+import me.jameschan.hole.entry.Entry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes entries into compact binary records, for storage, export and network transfer. A record
+ * is a sequence of unsigned LEB128 varints and UTF-8 bytes:
+ * <pre>
+ * record   = id count property*
+ * property = name valueLength valueBytes
+ * name     = index &lt;&lt; 1                          a name of the dictionary
+ *          | (nameLength &lt;&lt; 1 | 1) nameBytes     a name added to the dictionary
+ * </pre>
+ * Property names are coded by a {@link NameDictionary}, so a name costs a byte in most records.
+ * An encoder either defines the names it has not written before inline, the first time they
+ * occur, which suits streams read from the start; or only adds them to the dictionary, for owners
+ * that persist the dictionary themselves and read records in any order.
+ * <p>
+ * Records are written into a buffer owned by the encoder, which is reused by the next call.
+ */
+public final class EntryEncoder {
+    /**
+     * The initial capacity of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The dictionary of property names.
+     */
+    private final NameDictionary dictionary;
+
+    /**
+     * Whether names that are not in the dictionary are defined inline.
+     */
+    private final boolean inlineNames;
+
+    /**
+     * The buffer that records are written into.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Constructs an entry encoder.
+     * @param dictionary  The dictionary of property names, which new names are added to.
+     * @param inlineNames Whether to define names that are not in the dictionary inline; if false,
+     *                    the owner of the dictionary must make them known to readers.
+     */
+    public EntryEncoder(final NameDictionary dictionary, final boolean inlineNames) {
+        this.dictionary = dictionary;
+        this.inlineNames = inlineNames;
+    }
+
+    /**
+     * Encodes an entry.
+     * @param entry The entry.
+     * @return the buffer of this encoder, holding the record between its position and limit.
+     */
+    public ByteBuffer encode(final Entry entry) {
+        return encode(entry, 0);
+    }
+
+    /**
+     * Encodes an entry, leaving room before the record, e.g. for a header.
+     * @param entry    The entry.
+     * @param headroom The number of bytes to leave before the record.
+     * @return the buffer of this encoder, holding the headroom and the record between its position
+     * and limit; the headroom starts at position 0.
+     */
+    public ByteBuffer encode(final Entry entry, final int headroom) {
+        buffer.clear();
+        ensureRemaining(headroom + 11);
+        buffer.position(headroom);
+        putVarint(entry.getId());
+
+        // Properties are counted while they are written; one byte is reserved for the count
+        final var countPosition = buffer.position();
+        buffer.put((byte) 0);
+        final var count = new int[]{0};
+        entry.forEach((name, value) -> {
+            putName(name);
+            putString(value);
+            count[0]++;
+        });
+
+        if (count[0] < 0x80) {
+            buffer.put(countPosition, (byte) count[0]);
+        } else {
+            // Move the properties to make room for a longer count
+            final var shift = varintSize(count[0]) - 1;
+            ensureRemaining(shift);
+            final var array = buffer.array();
+            final var start = countPosition + 1;
+            System.arraycopy(array, start, array, start + shift, buffer.position() - start);
+            final var end = buffer.position() + shift;
+            buffer.position(countPosition);
+            putVarint(count[0]);
+            buffer.position(end);
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Returns the number of bytes of a varint.
+     * @param value The value, read as unsigned.
+     * @return the number of bytes, from 1 to 5.
+     */
+    public static int varintSize(final int value) {
+        return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+    }
+
+    private void putName(final String name) {
+        final var index = dictionary.indexOf(name);
+        if (index >= 0) {
+            ensureRemaining(5);
+            putVarint(index << 1);
+        } else if (inlineNames) {
+            dictionary.add(name);
+            putUtf8(name, 1);
+        } else {
+            ensureRemaining(5);
+            putVarint(dictionary.add(name) << 1);
+        }
+    }
+
+    private void putString(final String string) {
+        putUtf8(string, 0);
+    }
+
+    /**
+     * Writes the UTF-8 length of a string shifted left by one and or-ed with a tag, then its UTF-8
+     * bytes, without encoding it into a temporary array.
+     * @param string The string.
+     * @param tag    The lowest bit of the length varint; or 0 for a plain length.
+     */
+    private void putUtf8(final String string, final int tag) {
+        final var length = string.length();
+        var utf8Length = length;
+        for (var i = 0; i < length; ++i) {
+            final var c = string.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                utf8Length += 1;
+            } else if (isSurrogatePair(string, i)) {
+                // Four bytes for two chars
+                utf8Length += 2;
+                ++i;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            }
+        }
+
+        final var prefix = tag == 0 ? utf8Length : utf8Length << 1 | tag;
+        ensureRemaining(5 + utf8Length);
+        putVarint(prefix);
+
+        final var array = buffer.array();
+        var position = buffer.arrayOffset() + buffer.position();
+        for (var i = 0; i < length; ++i) {
+            final var c = string.charAt(i);
+            if (c < 0x80) {
+                array[position++] = (byte) c;
+            } else if (c < 0x800) {
+                array[position++] = (byte) (0xc0 | c >> 6);
+                array[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (isSurrogatePair(string, i)) {
+                final var codePoint = Character.toCodePoint(c, string.charAt(++i));
+                array[position++] = (byte) (0xf0 | codePoint >> 18);
+                array[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                array[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                array[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                // A lone surrogate cannot be encoded, like in String.getBytes
+                array[position++] = '?';
+            } else {
+                array[position++] = (byte) (0xe0 | c >> 12);
+                array[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                array[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+
+        buffer.position(position - buffer.arrayOffset());
+    }
+
+    private static boolean isSurrogatePair(final String string, final int index) {
+        return Character.isHighSurrogate(string.charAt(index))
+            && index + 1 < string.length()
+            && Character.isLowSurrogate(string.charAt(index + 1));
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) (value & 0x7f | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureRemaining(final int size) {
+        if (buffer.remaining() < size) {
+            final var capacity = Math.max(buffer.capacity() * 2, buffer.position() + size);
+            buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package me.jameschan.hole.entry.codec;
+
+import me.jameschan.hole.entry.Entry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads records written by an {@link EntryEncoder} in place, without copying them out of their
+ * buffer, which may be a heap buffer or a mapped file. A reader is a reusable view of one record
+ * at a time: {@link #wrap} validates a record and then adds the names it defines to the
+ * dictionary, and the properties are then decoded on demand, so looking up one property does not
+ * decode the others.
+ */
+public final class EntryReader {
+    /**
+     * The dictionary of property names.
+     */
+    private final NameDictionary dictionary;
+
+    /**
+     * The buffer of the current record.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The ID of the entry of the current record.
+     */
+    private int id;
+
+    /**
+     * The number of properties of the current record.
+     */
+    private int count;
+
+    /**
+     * The offset of the first property of the current record.
+     */
+    private int propertiesStart;
+
+    /**
+     * The offset of the current record, and the offset right after it.
+     */
+    private int recordStart;
+    private int recordEnd;
+
+    /**
+     * The dictionary indexes of the names defined by the current record, in order.
+     */
+    private int[] definedIndexes = new int[8];
+
+    /**
+     * The names defined by the record being validated, which are only added to the dictionary once
+     * the whole record is valid.
+     */
+    private String[] definedNames = new String[8];
+
+    /**
+     * The offset of the next byte to read.
+     */
+    private int cursor;
+
+    /**
+     * Constructs an entry reader.
+     * @param dictionary The dictionary of property names, which names defined by records are
+     *                   added to.
+     */
+    public EntryReader(final NameDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Reads the entry ID of a record without validating it.
+     * @param buffer The buffer holding the record.
+     * @param offset The offset of the record.
+     * @return the entry ID.
+     * @throws MalformedRecordException if the ID is not a valid varint.
+     */
+    public static int idOf(final ByteBuffer buffer, final int offset) {
+        var value = 0;
+        try {
+            for (var i = 0; i < 5; ++i) {
+                final var b = buffer.get(offset + i);
+                value |= (b & 0x7f) << 7 * i;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        } catch (final IndexOutOfBoundsException e) {
+            throw new MalformedRecordException("Truncated entry record", e);
+        }
+
+        throw new MalformedRecordException("Varint is too long at offset " + offset);
+    }
+
+    /**
+     * Makes this reader view the record at the position of a buffer, and moves the position of the
+     * buffer past the record.
+     * @param buffer The buffer holding the record, which must not change while it is viewed.
+     * @return this reader.
+     * @throws MalformedRecordException if the record is truncated or refers to an unknown name;
+     *                                  the dictionary is left unchanged then.
+     */
+    public EntryReader wrap(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        recordStart = buffer.position();
+        cursor = recordStart;
+        var defined = 0;
+        try {
+            id = getVarint();
+            count = getVarint();
+            if (count < 0) {
+                throw new MalformedRecordException("Illegal property count: " + count);
+            }
+            propertiesStart = cursor;
+
+            for (var i = 0; i < count; ++i) {
+                final var token = getVarint();
+                if ((token & 1) == 0) {
+                    if (token >>> 1 >= dictionary.size()) {
+                        throw new MalformedRecordException(
+                            "Unknown property name index: " + (token >>> 1)
+                        );
+                    }
+                } else {
+                    if (defined == definedNames.length) {
+                        definedNames = Arrays.copyOf(definedNames, defined * 2);
+                    }
+                    definedNames[defined++] = getString(token >>> 1);
+                }
+
+                skip(getVarint());
+            }
+        } catch (final IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new MalformedRecordException("Truncated entry record", e);
+        }
+
+        // The record is valid, so its names can be added
+        if (definedIndexes.length < defined) {
+            definedIndexes = new int[definedNames.length];
+        }
+        for (var i = 0; i < defined; ++i) {
+            definedIndexes[i] = dictionary.add(definedNames[i]);
+            definedNames[i] = null;
+        }
+
+        recordEnd = cursor;
+        buffer.position(recordEnd);
+        return this;
+    }
+
+    /**
+     * Returns the ID of the entry of the current record.
+     * @return the entry ID.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns the number of properties of the current record.
+     * @return the number of properties.
+     */
+    public int propertyCount() {
+        return count;
+    }
+
+    /**
+     * Returns the size of the current record in bytes.
+     * @return the size of the record.
+     */
+    public int size() {
+        return recordEnd - recordStart;
+    }
+
+    /**
+     * Retrieves the value of a property of the current record, decoding only that value.
+     * @param name The name of the property.
+     * @return the value; or {@code null} if the record does not have the property.
+     */
+    public String get(final String name) {
+        final var index = dictionary.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+
+        cursor = propertiesStart;
+        var defined = 0;
+        for (var i = 0; i < count; ++i) {
+            final var token = getVarint();
+            final int nameIndex;
+            if ((token & 1) == 0) {
+                nameIndex = token >>> 1;
+            } else {
+                skip(token >>> 1);
+                nameIndex = definedIndexes[defined++];
+            }
+
+            final var length = getVarint();
+            if (nameIndex == index) {
+                return getString(length);
+            }
+            skip(length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Performs the given action for each property of the current record.
+     * @param action The action to be performed for each property name and value.
+     */
+    public void forEach(final BiConsumer<String, String> action) {
+        cursor = propertiesStart;
+        var defined = 0;
+        for (var i = 0; i < count; ++i) {
+            final var token = getVarint();
+            final String name;
+            if ((token & 1) == 0) {
+                name = dictionary.nameOf(token >>> 1);
+            } else {
+                skip(token >>> 1);
+                name = dictionary.nameOf(definedIndexes[defined++]);
+            }
+
+            action.accept(name, getString(getVarint()));
+        }
+    }
+
+    /**
+     * Decodes the current record into an entry.
+     * @return a new entry with the ID and properties of the record.
+     */
+    public Entry toEntry() {
+        final var entry = new Entry(id);
+        forEach(entry::set);
+        return entry;
+    }
+
+    private int getVarint() {
+        var value = 0;
+        for (var shift = 0; shift < 35; shift += 7) {
+            final var b = buffer.get(cursor++);
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new MalformedRecordException("Varint is too long at offset " + (cursor - 1));
+    }
+
+    private String getString(final int length) {
+        if (length < 0 || length > buffer.limit() - cursor) {
+            throw new IndexOutOfBoundsException(cursor + length);
+        }
+
+        final String string;
+        if (buffer.hasArray()) {
+            final var offset = buffer.arrayOffset() + cursor;
+            string = new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+        } else {
+            final var bytes = new byte[length];
+            buffer.get(cursor, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        cursor += length;
+        return string;
+    }
+
+    private void skip(final int length) {
+        if (length < 0 || length > buffer.limit() - cursor) {
+            throw new IndexOutOfBoundsException(cursor + length);
+        }
+
+        cursor += length;
+    }
+}
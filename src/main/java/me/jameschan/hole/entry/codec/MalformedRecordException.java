@@ -0,0 +1,24 @@
+package me.jameschan.hole.entry.codec;
+
+/**
+ * Exception thrown when the bytes of an entry record do not follow the record format, or refer to
+ * a property name that is not in the dictionary.
+ */
+public class MalformedRecordException extends RuntimeException {
+    /**
+     * Constructs a {@code MalformedRecordException} with the specified detail message.
+     * @param message The detail message.
+     */
+    public MalformedRecordException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a {@code MalformedRecordException} with the specified detail message and cause.
+     * @param message The detail message.
+     * @param cause   The cause of this exception.
+     */
+    public MalformedRecordException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,86 @@
+package me.jameschan.hole.entry.codec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The property names known to an {@link EntryEncoder} or an {@link EntryReader}, each with the
+ * index that records refer to it by. Indexes are assigned in the order names are added, so a
+ * reader that adds the same names in the same order agrees with the writer on every index.
+ * <p>
+ * A dictionary has a single writer: adding names and looking up indexes must be synchronized by the
+ * owner. Names may be read by index and the size may be read from other threads at the same time,
+ * without locking, so records can be decoded while the writer adds names.
+ */
+public final class NameDictionary {
+    /**
+     * The indexes of the names.
+     */
+    private final Map<String, Integer> indexByName = new HashMap<>();
+
+    /**
+     * The names by their indexes, which is replaced by a larger copy when it is full.
+     */
+    private volatile String[] names = new String[16];
+
+    /**
+     * The number of names. Written after the name it counts, so readers that see the size see the
+     * name as well.
+     */
+    private volatile int size = 0;
+
+    /**
+     * Returns the index of a name.
+     * @param name The name.
+     * @return the index; or {@code -1} if the name is not in this dictionary.
+     */
+    public int indexOf(final String name) {
+        final var index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Adds a name if it is not in this dictionary yet.
+     * @param name The name.
+     * @return the index of the name.
+     */
+    public int add(final String name) {
+        final var index = indexByName.get(name);
+        if (index != null) {
+            return index;
+        }
+
+        final var newIndex = size;
+        if (newIndex == names.length) {
+            names = Arrays.copyOf(names, newIndex * 2);
+        }
+
+        names[newIndex] = name;
+        indexByName.put(name, newIndex);
+        size = newIndex + 1;
+        return newIndex;
+    }
+
+    /**
+     * Returns the name of an index.
+     * @param index The index.
+     * @return the name.
+     * @throws MalformedRecordException if no name has the index.
+     */
+    public String nameOf(final int index) {
+        if (index < 0 || index >= size) {
+            throw new MalformedRecordException("Unknown property name index: " + index);
+        }
+
+        return names[index];
+    }
+
+    /**
+     * Returns the number of names in this dictionary, which is the index of the next name added.
+     * @return the number of names.
+     */
+    public int size() {
+        return size;
+    }
+}
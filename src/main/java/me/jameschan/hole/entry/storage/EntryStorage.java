@@ -0,0 +1,61 @@
+package me.jameschan.hole.entry.storage;
+
+import me.jameschan.hole.entry.Entry;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+
+/**
+ * A storage engine that persists entries and resolves them by their unique identifiers. The
+ * {@link me.jameschan.hole.entry.EntryManager} delegates all storage concerns to an implementation
+ * of this interface, so that the way entries are kept can be changed without affecting the rest of
+ * the application.
+ */
+public interface EntryStorage extends Closeable {
+    /**
+     * Returns the directory this storage persists entries in. Data derived from the entries, such
+     * as indexes, is persisted next to it, so it lives and dies with the entries.
+     * @return the directory; or {@code null} if entries are only kept in memory.
+     */
+    default Path dir() {
+        return null;
+    }
+
+    /**
+     * Returns the highest entry ID ever written to this storage.
+     * @return the highest entry ID; or 0 if the storage is empty.
+     */
+    int maxId();
+
+    /**
+     * Creates a new, empty entry that is not written yet. Storages may return entries whose
+     * properties are laid out in a way that makes writing them cheap.
+     * @param id The unique identifier of the entry.
+     * @return the new entry.
+     */
+    default Entry create(final int id) {
+        return new Entry(id);
+    }
+
+    /**
+     * Writes an entry to this storage. If an entry with the same ID already exists, it is replaced.
+     * @param entry The entry to write.
+     * @throws StorageException if the entry could not be written.
+     */
+    void write(final Entry entry);
+
+    /**
+     * Reads an entry by its ID.
+     * @param id The unique identifier of the entry to read.
+     * @return the entry; or {@code null} if no entry exists with the given ID.
+     * @throws StorageException if the entry could not be read.
+     */
+    Entry read(final int id);
+
+    /**
+     * Closes this storage, making sure all written entries are durable.
+     * @throws StorageException if the storage could not be closed properly.
+     */
+    @Override
+    void close();
+}
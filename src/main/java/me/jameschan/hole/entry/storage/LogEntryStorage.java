@@ -0,0 +1,971 @@
+package me.jameschan.hole.entry.storage;
+
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.codec.EntryEncoder;
+import me.jameschan.hole.entry.codec.EntryReader;
+import me.jameschan.hole.entry.codec.MalformedRecordException;
+import me.jameschan.hole.entry.codec.NameDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32;
+
+/**
+ * An entry storage backed by a segmented, append-only write-ahead log on disk.
+ * <p>
+ * Every write appends a record to the active segment. When the active segment grows beyond the
+ * maximum segment size, it is sealed and a new segment is started. A record consists of an 8-byte
+ * header (payload length and CRC32 of the payload) followed by the payload, which is the entry
+ * encoded by an {@link EntryEncoder}. Property names are coded by a dictionary that is persisted
+ * in a {@link NameFile}, so a record can be decoded on its own.
+ * <p>
+ * The ID index, which maps every entry ID to the location of its latest record, is kept in a
+ * memory-mapped {@link MappedIndex} file, so an entry is resolved from disk without replaying the
+ * log when the storage is opened. Only if the storage was not closed cleanly is the index rebuilt
+ * by scanning all segments; a torn record at the end of the last segment, which is left behind if
+ * the process dies in the middle of a write, is truncated then. The index is updated when buffered
+ * records are flushed, so it never points beyond the end of a segment.
+ * <p>
+ * Sealed segments are compacted in the background: runs of adjacent sealed segments that contain
+ * superseded records or that fit into a single segment are rewritten into one segment holding only
+ * the live records. The merged segment takes the highest sequence number of the run, so the order
+ * in which records are replayed is preserved.
+ * <p>
+ * Writes are serialized by the monitor of the storage. Reads do not take it: they look up the
+ * index and read the record optimistically, under a {@link StampedLock} that writers only hold
+ * exclusively to publish index updates, new segments and compacted segments. A read that overlaps
+ * such a change is repeated under the read lock, so reads on many threads run in parallel and only
+ * wait for a writer while it publishes. A read only takes the monitor if records of the entry may
+ * still be buffered, to flush them first.
+ */
+public final class LogEntryStorage implements EntryStorage {
+    /**
+     * The default maximum size of a segment in bytes.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L << 20;
+
+    /**
+     * The default interval between two background compactions.
+     */
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * The size of a record header: payload length and CRC32 of the payload.
+     */
+    static final int HEADER_SIZE = 8;
+
+    /**
+     * The number of bits of a location used for the position within a segment.
+     */
+    private static final int POSITION_BITS = 40;
+
+    /**
+     * The size of the buffer that records are accumulated in before being written to the active
+     * segment.
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * The size of the buffer used to scan segments sequentially.
+     */
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The file name suffix of segments being written by compaction.
+     */
+    private static final String COMPACTION_SUFFIX = ".compact";
+
+    /**
+     * The maximum number of buffered records whose index updates are pending.
+     */
+    private static final int MAX_PENDING = 4096;
+
+    /**
+     * The directory that holds the segment files.
+     */
+    private final Path dir;
+
+    /**
+     * The maximum size of a segment in bytes.
+     */
+    private final long maxSegmentSize;
+
+    /**
+     * The lock that prevents other processes from opening the same storage.
+     */
+    private final FileLock fileLock;
+
+    /**
+     * The size of the buffer a record is read into with a single read, if it fits.
+     */
+    private static final int READ_BUFFER_SIZE = 512;
+
+    /**
+     * All segments ordered by their sequence numbers. Segments are added and removed under the
+     * exclusive {@link #layoutLock}, and looked up by reads without it.
+     */
+    private final ConcurrentSkipListMap<Integer, LogSegment> segments =
+        new ConcurrentSkipListMap<>();
+
+    /**
+     * Guards what reads see: the index and the segments. Writers hold it exclusively while they
+     * change either, and reads validate against it.
+     */
+    private final StampedLock layoutLock = new StampedLock();
+
+    /**
+     * The segment that records are currently appended to.
+     */
+    private LogSegment active;
+
+    /**
+     * Records that have been written but not yet flushed to the active segment.
+     */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+    /**
+     * The dictionary of the property names of all records.
+     */
+    private final NameDictionary dictionary = new NameDictionary();
+
+    /**
+     * The encoder of records, which adds new names to the dictionary.
+     */
+    private final EntryEncoder encoder = new EntryEncoder(dictionary, false);
+
+    /**
+     * The reader of records of each reading thread.
+     */
+    private final ThreadLocal<EntryReader> readers =
+        ThreadLocal.withInitial(() -> new EntryReader(dictionary));
+
+    /**
+     * The buffer that records are read into on each reading thread.
+     */
+    private final ThreadLocal<ByteBuffer> readBuffers =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(READ_BUFFER_SIZE));
+
+    /**
+     * The file that persists the dictionary.
+     */
+    private NameFile nameFile;
+
+    /**
+     * The ID index, which maps entry IDs to the locations of their latest records.
+     */
+    private MappedIndex index;
+
+    /**
+     * The IDs of buffered records, whose index updates are applied when the records are flushed.
+     */
+    private final int[] pendingIds = new int[MAX_PENDING];
+
+    /**
+     * The locations of buffered records.
+     */
+    private final long[] pendingLocations = new long[MAX_PENDING];
+
+    /**
+     * The number of buffered records, which reads check without locking.
+     */
+    private volatile int pendingCount = 0;
+
+    /**
+     * The highest ID written to this storage.
+     */
+    private int maxId = 0;
+
+    /**
+     * Whether this storage has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The executor that runs background compactions.
+     */
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * A lock that ensures only one compaction runs at a time.
+     */
+    private final Object compactionLock = new Object();
+
+    /**
+     * The failure of the last background compaction, which is thrown by the next call of
+     * {@link #compact()} or {@link #close()}; or {@code null} if there is none.
+     */
+    private volatile StorageException compactionFailure = null;
+
+    /**
+     * Constructs a log entry storage and opens it.
+     * @param dir                The directory that holds the segment files.
+     * @param maxSegmentSize     The maximum size of a segment in bytes.
+     * @param compactionInterval The interval between two background compactions; or {@code null}
+     *                           to disable background compaction.
+     * @throws StorageException if the storage could not be opened.
+     */
+    public LogEntryStorage(
+        final Path dir,
+        final long maxSegmentSize,
+        final Duration compactionInterval
+    ) {
+        this.dir = dir;
+        this.maxSegmentSize = maxSegmentSize;
+
+        try {
+            Files.createDirectories(dir);
+            this.fileLock = lock(dir);
+            recover();
+        } catch (final IOException e) {
+            throw new StorageException("Fail to open storage: " + dir, e);
+        }
+
+        if (compactionInterval == null) {
+            this.compactor = null;
+        } else {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "hole-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            final var millis = compactionInterval.toMillis();
+            compactor.scheduleWithFixedDelay(
+                this::compactInBackground, millis, millis, TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Constructs a log entry storage with the default segment size and compaction interval.
+     * @param dir The directory that holds the segment files.
+     * @throws StorageException if the storage could not be opened.
+     */
+    public LogEntryStorage(final Path dir) {
+        this(dir, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    @Override
+    public Path dir() {
+        return dir;
+    }
+
+    @Override
+    public synchronized int maxId() {
+        return maxId;
+    }
+
+    @Override
+    public synchronized void write(final Entry entry) {
+        ensureOpen();
+
+        final var record = encode(entry);
+        try {
+            // Names reach the names file before any record that refers to them
+            nameFile.append(dictionary);
+            final var recordSize = record.remaining();
+            if (activeSize() > 0 && activeSize() + recordSize > maxSegmentSize) {
+                roll();
+            }
+
+            if (recordSize > writeBuffer.remaining() || pendingCount == MAX_PENDING) {
+                flush();
+            }
+
+            final var id = entry.getId();
+            final var location = location(active.number, activeSize());
+            if (recordSize > writeBuffer.capacity()) {
+                active.append(record);
+                final var stamp = layoutLock.writeLock();
+                try {
+                    put(id, location);
+                } finally {
+                    layoutLock.unlockWrite(stamp);
+                }
+            } else {
+                writeBuffer.put(record);
+                pendingIds[pendingCount] = id;
+                pendingLocations[pendingCount] = location;
+                pendingCount++;
+            }
+
+            maxId = Math.max(maxId, id);
+        } catch (final IOException e) {
+            throw new StorageException("Fail to write entry: " + entry.getId(), e);
+        }
+    }
+
+    @Override
+    public Entry read(final int id) {
+        ensureOpen();
+
+        if (pendingCount > 0) {
+            // The latest record of the entry may be buffered, and the index only points at it
+            // once it is flushed
+            synchronized (this) {
+                ensureOpen();
+                if (pendingCount > 0) {
+                    flush();
+                }
+            }
+        }
+
+        final var stamp = layoutLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final var entry = readRecord(id);
+                if (layoutLock.validate(stamp)) {
+                    return entry;
+                }
+            } catch (final IOException | RuntimeException e) {
+                // A concurrent flush, compaction or close changed what was read; read again
+            }
+        }
+
+        final var readStamp = layoutLock.readLock();
+        try {
+            ensureOpen();
+            return readRecord(id);
+        } catch (final IOException | MalformedRecordException e) {
+            throw new StorageException("Fail to read entry: " + id, e);
+        } finally {
+            layoutLock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Flushes buffered records to the active segment. Flushed records survive a crash of the
+     * process, but not necessarily a crash of the operating system.
+     * @throws StorageException if the records could not be flushed.
+     */
+    public synchronized void flush() {
+        try {
+            writeBuffer.flip();
+            active.append(writeBuffer);
+            writeBuffer.clear();
+
+            // Records are appended before the index points at them
+            final var stamp = layoutLock.writeLock();
+            try {
+                for (var i = 0; i < pendingCount; ++i) {
+                    put(pendingIds[i], pendingLocations[i]);
+                }
+                pendingCount = 0;
+            } finally {
+                layoutLock.unlockWrite(stamp);
+            }
+        } catch (final IOException e) {
+            throw new StorageException("Fail to flush segment: " + active.path, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A running background compaction is waited for, however long it takes. If the last background
+     * compaction failed, its failure is thrown after the storage has been closed.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            // Waits for a running compaction to finish
+            compactor.close();
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            flush();
+            final var stamp = layoutLock.writeLock();
+            closed = true;
+            try {
+                nameFile.force();
+                active.force();
+
+                final var hints = new TreeMap<Integer, Long>();
+                for (final var segment : segments.values()) {
+                    if (segment.superseded > 0) {
+                        hints.put(segment.number, segment.superseded);
+                    }
+                }
+                index.markClean(maxId, hints);
+                index.close();
+                nameFile.close();
+
+                for (final var segment : segments.values()) {
+                    segment.close();
+                }
+
+                fileLock.release();
+                fileLock.channel().close();
+            } catch (final IOException e) {
+                throw new StorageException("Fail to close storage: " + dir, e);
+            } finally {
+                layoutLock.unlockWrite(stamp);
+            }
+        }
+
+        throwCompactionFailure();
+    }
+
+    /**
+     * Compacts one run of sealed segments, if there is any run worth compacting. Records written
+     * concurrently are not blocked while the live records are being copied.
+     * @throws StorageException if the compaction failed, or if the last background compaction
+     *                          failed.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            throwCompactionFailure();
+            final List<LogSegment> run;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                run = selectCompactionRun();
+            }
+
+            if (!run.isEmpty()) {
+                try {
+                    compact(run);
+                } catch (final IOException e) {
+                    throw new StorageException("Fail to compact storage: " + dir, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of segments in this storage.
+     * @return the number of segments.
+     */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Runs a compaction from the background executor, recording its failure.
+     */
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (final StorageException e) {
+            compactionFailure = e;
+        }
+    }
+
+    /**
+     * Throws the failure of the last background compaction once, if there is one.
+     * @throws StorageException if the last background compaction failed.
+     */
+    private void throwCompactionFailure() {
+        final var failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new StorageException("Background compaction failed: " + dir, failure);
+        }
+    }
+
+    /**
+     * Acquires an exclusive lock on the storage directory.
+     * @param dir The directory to lock.
+     * @return the acquired lock.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static FileLock lock(final Path dir) throws IOException {
+        final var channel = FileChannel.open(
+            dir.resolve("lock"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE
+        );
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            // Already locked by this process
+            lock = null;
+        }
+
+        if (lock == null) {
+            channel.close();
+            throw new StorageException("Storage is in use by another process: " + dir);
+        }
+
+        return lock;
+    }
+
+    /**
+     * Opens the index and all segments. If the index was not closed cleanly, it is rebuilt by
+     * scanning all segments in order.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void recover() throws IOException {
+        final var isNew = !Files.exists(dir.resolve(NameFile.FILE_NAME));
+        nameFile = NameFile.open(dir, dictionary);
+        index = MappedIndex.open(dir.resolve("index"));
+
+        final var numbers = new ArrayList<Integer>();
+        try (final var stream = Files.newDirectoryStream(dir)) {
+            for (final var path : stream) {
+                final var fileName = path.getFileName().toString();
+                if (fileName.endsWith(COMPACTION_SUFFIX)) {
+                    // Left behind by an interrupted compaction
+                    Files.delete(path);
+                } else if (fileName.endsWith(LogSegment.SUFFIX)) {
+                    final var end = fileName.length() - LogSegment.SUFFIX.length();
+                    numbers.add(Integer.parseInt(fileName.substring(0, end)));
+                }
+            }
+        }
+
+        numbers.sort(null);
+        for (final var number : numbers) {
+            final var segment = LogSegment.open(dir, number);
+            segments.put(number, segment);
+            if (isNew && segment.size() > 0) {
+                // Written before records were encoded with a names file
+                throw new StorageException("Unsupported record format of storage: " + dir);
+            }
+        }
+
+        if (index.isClean()) {
+            maxId = index.maxId();
+            index.forEachHint((number, superseded) -> {
+                final var segment = segments.get(number);
+                if (segment != null) {
+                    segment.superseded = superseded;
+                }
+            });
+        } else {
+            rebuildIndex();
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(1, LogSegment.open(dir, 1));
+        }
+
+        active = segments.lastEntry().getValue();
+    }
+
+    /**
+     * Rebuilds the index by scanning all segments in order, truncating a torn record at the end of
+     * the last segment.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        for (final var segment : segments.values()) {
+            final var number = segment.number;
+            final var end = scan(segment, (id, position, record) ->
+                put(id, location(number, position))
+            );
+            if (end < segment.size()) {
+                if (segment == segments.lastEntry().getValue()) {
+                    segment.truncate(end);
+                } else {
+                    throw new StorageException("Segment is corrupted: " + segment.path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void roll() throws IOException {
+        flush();
+        nameFile.force();
+        active.force();
+
+        final var number = active.number + 1;
+        active = LogSegment.open(dir, number);
+        final var stamp = layoutLock.writeLock();
+        try {
+            segments.put(number, active);
+        } finally {
+            layoutLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Points the index at a new location for an entry.
+     * @param id       The ID of the entry.
+     * @param location The location of the latest record of the entry.
+     * @throws IOException if the index could not be grown.
+     */
+    private void put(final int id, final long location) throws IOException {
+        final var previous = index.get(id);
+        if (previous != 0) {
+            final var segment = segments.get(segmentOf(previous));
+            if (segment != null) {
+                segment.superseded++;
+            }
+        }
+
+        index.put(id, location);
+        maxId = Math.max(maxId, id);
+    }
+
+    /**
+     * Returns the size of the active segment, including buffered records.
+     * @return the size of the active segment.
+     */
+    private long activeSize() {
+        return active.size() + writeBuffer.position();
+    }
+
+    /**
+     * Selects the first run of adjacent sealed segments worth compacting. A run is worth compacting
+     * if it consists of more than one segment, or if its only segment contains superseded records.
+     * @return the selected run; or an empty list if nothing is worth compacting.
+     */
+    private List<LogSegment> selectCompactionRun() {
+        final var run = new ArrayList<LogSegment>();
+        var runSize = 0L;
+        for (final var segment : segments.values()) {
+            if (segment == active) {
+                break;
+            }
+
+            if (!run.isEmpty() && runSize + segment.size() > maxSegmentSize) {
+                if (run.size() > 1 || run.getFirst().superseded > 0) {
+                    return run;
+                }
+
+                run.clear();
+                runSize = 0;
+            }
+
+            run.add(segment);
+            runSize += segment.size();
+        }
+
+        if (run.size() > 1 || (run.size() == 1 && run.getFirst().superseded > 0)) {
+            return run;
+        }
+
+        return List.of();
+    }
+
+    /**
+     * Rewrites the live records of a run of segments into a single segment.
+     * @param run The run of adjacent sealed segments to compact.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void compact(final List<LogSegment> run) throws IOException {
+        final var target = run.getLast().number;
+        final var tempPath = dir.resolve(String.format("%08d%s", target, COMPACTION_SUFFIX));
+
+        // Copy live records without blocking readers and writers
+        final var moved = new MovedRecords();
+        try (final var output = FileChannel.open(
+            tempPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        )) {
+            final var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            final var outputPosition = new long[]{0};
+            for (final var segment : run) {
+                scan(segment, (id, position, record) -> {
+                    final var location = location(segment.number, position);
+                    synchronized (this) {
+                        ensureOpen();
+                        if (index.get(id) != location) {
+                            return;
+                        }
+                    }
+
+                    if (record.remaining() > buffer.remaining()) {
+                        writeFully(output, buffer.flip());
+                        buffer.clear();
+                    }
+
+                    moved.add(id, location, location(target, outputPosition[0]));
+                    outputPosition[0] += record.remaining();
+                    if (record.remaining() > buffer.capacity()) {
+                        writeFully(output, record);
+                    } else {
+                        buffer.put(record);
+                    }
+                });
+            }
+
+            writeFully(output, buffer.flip());
+            output.force(false);
+        }
+
+        // Swap the compacted segment in, unless the storage was closed in the meantime
+        synchronized (this) {
+            if (closed) {
+                Files.deleteIfExists(tempPath);
+                return;
+            }
+
+            final var stamp = layoutLock.writeLock();
+            try {
+                swap(run, target, tempPath, moved);
+            } finally {
+                layoutLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Replaces a run of segments with their compacted segment, and points the index at the moved
+     * records that have not been superseded in the meantime.
+     * @param run      The compacted run of segments.
+     * @param target   The number of the compacted segment.
+     * @param tempPath The path the compacted segment was written to.
+     * @param moved    The records moved by the compaction.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void swap(
+        final List<LogSegment> run,
+        final int target,
+        final Path tempPath,
+        final MovedRecords moved
+    ) throws IOException {
+        for (final var segment : run) {
+            segment.close();
+            segments.remove(segment.number);
+        }
+
+        Files.move(
+            tempPath,
+            LogSegment.pathOf(dir, target),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+        for (final var segment : run) {
+            if (segment.number != target) {
+                Files.delete(segment.path);
+            }
+        }
+
+        final var compacted = LogSegment.open(dir, target);
+        segments.put(target, compacted);
+        for (var i = 0; i < moved.size; ++i) {
+            final var id = moved.ids[i];
+            if (index.get(id) == moved.from[i]) {
+                index.put(id, moved.to[i]);
+            } else {
+                compacted.superseded++;
+            }
+        }
+    }
+
+    /**
+     * Reads the latest record of an entry, usually with a single read into the buffer of the
+     * calling thread. Unless the {@link #layoutLock} is held, the result is only valid if the lock
+     * is validated afterwards; a concurrent change may also make this throw.
+     * @param id The ID of the entry.
+     * @return the entry; or {@code null} if no entry exists with the given ID.
+     * @throws IOException              if an I/O error occurs.
+     * @throws MalformedRecordException if the record could not be decoded.
+     * @throws StorageException         if the index does not agree with the segments.
+     */
+    private Entry readRecord(final int id) throws IOException {
+        final var location = index.get(id);
+        if (location == 0) {
+            return null;
+        }
+
+        final var segment = segments.get(segmentOf(location));
+        if (segment == null) {
+            throw new StorageException("Index refers to a missing segment: " + segmentOf(location));
+        }
+
+        final var position = positionOf(location);
+        final var available = segment.size() - position;
+        var buffer = readBuffers.get();
+        buffer.clear().limit((int) Math.min(buffer.capacity(), Math.max(available, 0)));
+        final var read = segment.read(buffer, position);
+        if (read < HEADER_SIZE) {
+            throw new StorageException("Index refers beyond the end of segment: " + segment.path);
+        }
+
+        // Check the length before trusting it, as it may be read from a record being replaced
+        final var length = buffer.getInt(0);
+        if (length < 2 || HEADER_SIZE + length > available) {
+            throw new StorageException("Index refers to a torn record in segment: " + segment.path);
+        }
+
+        final var recordSize = HEADER_SIZE + length;
+        if (recordSize > buffer.capacity()) {
+            buffer = ByteBuffer.allocate(recordSize).put(buffer.flip());
+            if (recordSize <= WRITE_BUFFER_SIZE) {
+                readBuffers.set(buffer);
+            }
+        }
+        buffer.limit(recordSize);
+        segment.readFully(buffer, position + buffer.position());
+
+        return readers.get().wrap(buffer.slice(HEADER_SIZE, length)).toEntry();
+    }
+
+    /**
+     * Scans all records of a segment in order, verifying their checksums.
+     * @param segment The segment to scan.
+     * @param visitor The visitor to call for every valid record.
+     * @return the position right after the last valid record.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static long scan(
+        final LogSegment segment,
+        final RecordVisitor visitor
+    ) throws IOException {
+        final var size = segment.size();
+        final var crc = new CRC32();
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE).limit(0);
+        var readPosition = 0L;
+        var position = 0L;
+        while (position + HEADER_SIZE <= size) {
+            if (buffer.remaining() < HEADER_SIZE) {
+                readPosition += segment.read(buffer.compact(), readPosition);
+                buffer.flip();
+            }
+
+            final var length = buffer.getInt(buffer.position());
+            final var checksum = buffer.getInt(buffer.position() + 4);
+            final var recordSize = HEADER_SIZE + length;
+            if (length < 2 || position + recordSize > size) {
+                break;
+            }
+
+            if (buffer.remaining() < recordSize) {
+                if (recordSize > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(recordSize).put(buffer).flip();
+                }
+
+                readPosition += segment.read(buffer.compact(), readPosition);
+                buffer.flip();
+            }
+
+            final var start = buffer.position();
+            crc.reset();
+            crc.update(buffer.array(), start + HEADER_SIZE, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            final var id = EntryReader.idOf(buffer, start + HEADER_SIZE);
+            visitor.visit(id, position, buffer.slice(start, recordSize));
+            buffer.position(start + recordSize);
+            position += recordSize;
+        }
+
+        return position;
+    }
+
+    /**
+     * Encodes an entry into a record.
+     * @param entry The entry to encode.
+     * @return a buffer holding the record, ready to be read.
+     */
+    private ByteBuffer encode(final Entry entry) {
+        final var record = encoder.encode(entry, HEADER_SIZE);
+        final var length = record.limit() - HEADER_SIZE;
+        final var crc = new CRC32();
+        crc.update(record.array(), record.arrayOffset() + HEADER_SIZE, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+
+        return record;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel.
+     * @param channel The channel to write to.
+     * @param buffer  The buffer to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void writeFully(
+        final FileChannel channel,
+        final ByteBuffer buffer
+    ) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Throws if this storage has been closed.
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new StorageException("Storage has been closed: " + dir);
+        }
+    }
+
+    private static long location(final int segment, final long position) {
+        return ((long) segment << POSITION_BITS) | position;
+    }
+
+    private static int segmentOf(final long location) {
+        return (int) (location >>> POSITION_BITS);
+    }
+
+    private static long positionOf(final long location) {
+        return location & ((1L << POSITION_BITS) - 1);
+    }
+
+    /**
+     * A visitor of the records in a segment.
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        /**
+         * Visits a record.
+         * @param id       The ID of the entry the record belongs to.
+         * @param position The position of the record within the segment.
+         * @param record   The bytes of the record, including its header.
+         * @throws IOException if an I/O error occurs.
+         */
+        void visit(final int id, final long position, final ByteBuffer record) throws IOException;
+    }
+
+    /**
+     * The records moved by a compaction, kept in primitive arrays.
+     */
+    private static final class MovedRecords {
+        private int[] ids = new int[1024];
+        private long[] from = new long[1024];
+        private long[] to = new long[1024];
+        private int size = 0;
+
+        private void add(final int id, final long fromLocation, final long toLocation) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+
+            ids[size] = id;
+            from[size] = fromLocation;
+            to[size] = toLocation;
+            size++;
+        }
+    }
+}
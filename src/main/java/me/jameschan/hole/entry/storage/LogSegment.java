@@ -0,0 +1,166 @@
+package me.jameschan.hole.entry.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single file of a {@link LogEntryStorage}. Records are only ever appended to a segment; once a
+ * segment is sealed, its content never changes until it is replaced by compaction.
+ */
+final class LogSegment implements Closeable {
+    /**
+     * The file name suffix of segment files.
+     */
+    static final String SUFFIX = ".log";
+
+    /**
+     * The sequence number of this segment. Segments with higher numbers hold newer records.
+     */
+    final int number;
+
+    /**
+     * The path of the segment file.
+     */
+    final Path path;
+
+    /**
+     * The channel used to read and write the segment file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of bytes written to the segment file.
+     */
+    private long size;
+
+    /**
+     * The number of records in this segment that have been superseded by newer records. This is a
+     * hint for compaction rather than an exact count.
+     */
+    long superseded = 0;
+
+    private LogSegment(
+        final int number,
+        final Path path,
+        final FileChannel channel
+    ) throws IOException {
+        this.number = number;
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Opens a segment file, creating it if it does not exist.
+     * @param dir    The directory of the storage.
+     * @param number The sequence number of the segment.
+     * @return the opened segment.
+     * @throws IOException if the file could not be opened.
+     */
+    static LogSegment open(final Path dir, final int number) throws IOException {
+        final var path = pathOf(dir, number);
+        final var channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        return new LogSegment(number, path, channel);
+    }
+
+    /**
+     * Returns the path of a segment file.
+     * @param dir    The directory of the storage.
+     * @param number The sequence number of the segment.
+     * @return the path of the segment file.
+     */
+    static Path pathOf(final Path dir, final int number) {
+        return dir.resolve(String.format("%08d%s", number, SUFFIX));
+    }
+
+    /**
+     * Returns the number of bytes written to this segment.
+     * @return the size of this segment.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Reads bytes from this segment until the buffer is full.
+     * @param dst      The buffer to read into.
+     * @param position The file position to start reading at.
+     * @throws IOException if the end of the segment is reached before the buffer is full.
+     */
+    void readFully(final ByteBuffer dst, final long position) throws IOException {
+        var offset = position;
+        while (dst.hasRemaining()) {
+            final var read = channel.read(dst, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment: " + path);
+            }
+
+            offset += read;
+        }
+    }
+
+    /**
+     * Reads as many bytes as are available into the buffer.
+     * @param dst      The buffer to read into.
+     * @param position The file position to start reading at.
+     * @return the number of bytes read.
+     * @throws IOException if an I/O error occurs.
+     */
+    int read(final ByteBuffer dst, final long position) throws IOException {
+        var total = 0;
+        while (dst.hasRemaining()) {
+            final var read = channel.read(dst, position + total);
+            if (read <= 0) {
+                break;
+            }
+
+            total += read;
+        }
+
+        return total;
+    }
+
+    /**
+     * Appends all remaining bytes of the buffer to the end of this segment.
+     * @param src The buffer to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    void append(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            size += channel.write(src, size);
+        }
+    }
+
+    /**
+     * Truncates this segment, discarding every byte after the given size.
+     * @param newSize The new size of the segment.
+     * @throws IOException if an I/O error occurs.
+     */
+    void truncate(final long newSize) throws IOException {
+        channel.truncate(newSize);
+        size = newSize;
+    }
+
+    /**
+     * Forces all written bytes to the storage device.
+     * @throws IOException if an I/O error occurs.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,259 @@
+package me.jameschan.hole.entry.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * A memory-mapped index file that maps entry IDs to record locations. Because entry IDs are dense
+ * integers, the index is a fixed-width table: the location of an entry is the 8-byte slot at
+ * {@code HEADER_SIZE + id * 8}, and 0 stands for a missing entry.
+ * <p>
+ * The header holds a clean flag, the highest entry ID, and the compaction hints of the segments.
+ * The flag is cleared as soon as the index is opened and only set again when the index is closed
+ * after all segments have been forced to disk, so a set flag proves that the index agrees with the
+ * segments and nothing has to be replayed.
+ */
+final class MappedIndex implements Closeable {
+    /**
+     * The size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 4096;
+
+    /**
+     * Identifies an index file.
+     */
+    private static final int MAGIC = 0x484f4c49;
+
+    /**
+     * The version of the index file format.
+     */
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CLEAN_OFFSET = 8;
+    private static final int MAX_ID_OFFSET = 12;
+    private static final int HINT_COUNT_OFFSET = 16;
+    private static final int HINTS_OFFSET = 20;
+
+    /**
+     * The size of a compaction hint: segment number and number of superseded records.
+     */
+    private static final int HINT_SIZE = 12;
+
+    /**
+     * The maximum number of compaction hints that fit into the header.
+     */
+    private static final int MAX_HINTS = (HEADER_SIZE - HINTS_OFFSET) / HINT_SIZE;
+
+    /**
+     * The number of slots of a newly created index file.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * The maximum number of slots, limited by the size of a single mapping.
+     */
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / 8;
+
+    /**
+     * The channel of the index file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapping of the whole index file.
+     */
+    private volatile MappedByteBuffer buffer;
+
+    /**
+     * The number of slots in the index file.
+     */
+    private int capacity;
+
+    /**
+     * Whether the index was closed cleanly the last time it was used.
+     */
+    private final boolean clean;
+
+    private MappedIndex(final FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        final var isNew = channel.size() < HEADER_SIZE;
+        final var slots = isNew ? INITIAL_CAPACITY : (int) ((channel.size() - HEADER_SIZE) / 8);
+        map(slots);
+
+        final var valid = !isNew
+            && buffer.getInt(MAGIC_OFFSET) == MAGIC
+            && buffer.getInt(VERSION_OFFSET) == VERSION;
+        if (!valid) {
+            clear();
+            clean = false;
+        } else {
+            clean = buffer.getInt(CLEAN_OFFSET) == 1;
+        }
+
+        // Until the index is closed, it may disagree with the segments
+        buffer.putInt(CLEAN_OFFSET, 0);
+        buffer.force();
+    }
+
+    /**
+     * Opens an index file, creating it if it does not exist.
+     * @param path The path of the index file.
+     * @return the opened index.
+     * @throws IOException if an I/O error occurs.
+     */
+    static MappedIndex open(final Path path) throws IOException {
+        final var channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        return new MappedIndex(channel);
+    }
+
+    /**
+     * Returns whether the index was closed cleanly the last time it was used. If not, the index
+     * must be rebuilt from the segments.
+     * @return true if the index can be trusted; false otherwise.
+     */
+    boolean isClean() {
+        return clean;
+    }
+
+    /**
+     * Returns the highest entry ID recorded when the index was last closed.
+     * @return the highest entry ID.
+     */
+    int maxId() {
+        return buffer.getInt(MAX_ID_OFFSET);
+    }
+
+    /**
+     * Returns the compaction hints recorded when the index was last closed.
+     * @param consumer The consumer of segment numbers and their numbers of superseded records.
+     */
+    void forEachHint(final HintConsumer consumer) {
+        final var count = buffer.getInt(HINT_COUNT_OFFSET);
+        for (var i = 0; i < count; ++i) {
+            final var offset = HINTS_OFFSET + i * HINT_SIZE;
+            consumer.accept(buffer.getInt(offset), buffer.getLong(offset + 4));
+        }
+    }
+
+    /**
+     * Returns the location of an entry. This may be called while another thread puts a location,
+     * in which case the result is the old or the new location, or a torn value that the caller
+     * must detect.
+     * @param id The ID of the entry.
+     * @return the location of the latest record of the entry; or 0 if no such entry exists.
+     */
+    long get(final int id) {
+        // The mapping of this call; a grown index is mapped anew, while old mappings stay valid
+        final var mapping = buffer;
+        final var offset = HEADER_SIZE + id * 8L;
+        if (id <= 0 || offset + 8 > mapping.capacity()) {
+            return 0;
+        }
+
+        return mapping.getLong((int) offset);
+    }
+
+    /**
+     * Sets the location of an entry, growing the index file if necessary.
+     * @param id       The ID of the entry.
+     * @param location The location of the latest record of the entry.
+     * @throws IOException if the index file could not be grown.
+     */
+    void put(final int id, final long location) throws IOException {
+        if (id >= capacity) {
+            if (id >= MAX_CAPACITY) {
+                throw new StorageException("Entry ID exceeds the capacity of the index: " + id);
+            }
+
+            var newCapacity = capacity;
+            while (id >= newCapacity) {
+                newCapacity = (int) Math.min(MAX_CAPACITY, newCapacity * 2L);
+            }
+
+            map(newCapacity);
+        }
+
+        buffer.putLong(HEADER_SIZE + id * 8, location);
+    }
+
+    /**
+     * Removes all locations from the index.
+     */
+    void clear() {
+        for (var offset = 0; offset < buffer.capacity(); offset += 8) {
+            buffer.putLong(offset, 0);
+        }
+
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+    }
+
+    /**
+     * Forces the index to disk and marks it as clean.
+     * @param maxId The highest entry ID.
+     * @param hints The numbers of superseded records by segment number.
+     */
+    void markClean(final int maxId, final Map<Integer, Long> hints) {
+        buffer.putInt(MAX_ID_OFFSET, maxId);
+
+        var count = 0;
+        for (final var hint : hints.entrySet()) {
+            if (count == MAX_HINTS) {
+                break;
+            }
+
+            final var offset = HINTS_OFFSET + count * HINT_SIZE;
+            buffer.putInt(offset, hint.getKey());
+            buffer.putLong(offset + 4, hint.getValue());
+            count++;
+        }
+        buffer.putInt(HINT_COUNT_OFFSET, count);
+
+        buffer.force();
+        buffer.putInt(CLEAN_OFFSET, 1);
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Maps the index file with the given number of slots, growing the file if necessary.
+     * @param slots The number of slots.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void map(final int slots) throws IOException {
+        final var size = HEADER_SIZE + slots * 8L;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        capacity = slots;
+    }
+
+    /**
+     * A consumer of compaction hints.
+     */
+    @FunctionalInterface
+    interface HintConsumer {
+        /**
+         * Accepts a compaction hint.
+         * @param segment    The number of the segment.
+         * @param superseded The number of superseded records in the segment.
+         */
+        void accept(final int segment, final long superseded);
+    }
+}
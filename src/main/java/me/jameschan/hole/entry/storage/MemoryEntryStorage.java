@@ -0,0 +1,137 @@
+package me.jameschan.hole.entry.storage;
+
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.PropertyTable;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An entry storage that keeps all entries in memory. Entries are lost when the storage is closed.
+ * <p>
+ * The properties of entries are kept in {@link PropertyTable}s whose rows are derived from entry
+ * IDs, so no per-entry objects are retained; entries are handles that are created on demand.
+ * <p>
+ * The storage is safe to use from multiple threads. Entries are spread over a fixed number of
+ * stripes by the low bits of their IDs, and every stripe has its own table and lock, so threads
+ * writing consecutive IDs rarely contend with each other.
+ */
+public class MemoryEntryStorage implements EntryStorage {
+    /**
+     * The number of bits of an ID that select its stripe.
+     */
+    private static final int STRIPE_BITS = 6;
+
+    /**
+     * The number of stripes.
+     */
+    private static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+
+    /**
+     * The mask that extracts the stripe index from an ID.
+     */
+    private static final int STRIPE_MASK = STRIPE_COUNT - 1;
+
+    /**
+     * The stripes of this storage.
+     */
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    /**
+     * The highest ID written to this storage.
+     */
+    private final AtomicInteger maxId = new AtomicInteger();
+
+    public MemoryEntryStorage() {
+        for (var i = 0; i < STRIPE_COUNT; ++i) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public int maxId() {
+        return maxId.get();
+    }
+
+    @Override
+    public Entry create(final int id) {
+        return stripes[id & STRIPE_MASK].table.entry(id, id >>> STRIPE_BITS);
+    }
+
+    @Override
+    public void write(final Entry entry) {
+        final var id = entry.getId();
+        final var row = id >>> STRIPE_BITS;
+        final var stripe = stripes[id & STRIPE_MASK];
+        final var stored = stripe.table.entry(id, row);
+
+        final var stamp = stripe.lock.writeLock();
+        try {
+            if (stripe.written.get(row)) {
+                // Replace all properties, since the new version of the entry may have fewer of them
+                final var properties = new LinkedHashMap<String, String>();
+                entry.forEach(properties::put);
+                stored.forEach((key, value) -> stored.set(key, null));
+                properties.forEach(stored::set);
+            } else {
+                entry.forEach(stored::set);
+            }
+
+            stripe.written.set(row);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+
+        maxId.accumulateAndGet(id, Math::max);
+    }
+
+    @Override
+    public Entry read(final int id) {
+        if (id <= 0) {
+            return null;
+        }
+
+        final var row = id >>> STRIPE_BITS;
+        final var stripe = stripes[id & STRIPE_MASK];
+        final var stamp = stripe.lock.readLock();
+        try {
+            return stripe.written.get(row) ? stripe.table.entry(id, row) : null;
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final var stripe : stripes) {
+            final var stamp = stripe.lock.writeLock();
+            try {
+                stripe.written.clear();
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * A share of the entries of the storage.
+     */
+    private static final class Stripe {
+        /**
+         * The table that stores the properties of the entries of this stripe.
+         */
+        private final PropertyTable table = new PropertyTable();
+
+        /**
+         * The rows of the entries that have been written.
+         */
+        private final BitSet written = new BitSet();
+
+        /**
+         * Guards the set of written rows, and makes writing an entry atomic.
+         */
+        private final StampedLock lock = new StampedLock();
+    }
+}
@@ -0,0 +1,175 @@
+package me.jameschan.hole.entry.storage;
+
+import me.jameschan.hole.entry.codec.NameDictionary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The append-only file of the property names of a {@link LogEntryStorage}, in the order of their
+ * dictionary indexes. Records refer to names by index, so a name is appended here before the first
+ * record that uses it, and the file is forced before the segments are.
+ * <p>
+ * After the header, every name is a 4-byte length followed by its UTF-8 bytes. A torn name at the
+ * end, left behind if the process dies in the middle of an append, is truncated when the file is
+ * opened; no record can refer to it, since records are written after their names.
+ */
+final class NameFile implements Closeable {
+    /**
+     * The name of the file in the storage directory.
+     */
+    static final String FILE_NAME = "names";
+
+    /**
+     * Identifies a names file.
+     */
+    private static final int MAGIC = 0x484f4e4d;
+
+    /**
+     * The version of the names file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header: magic and version.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The path of the file.
+     */
+    final Path path;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of names in the file.
+     */
+    private int count;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private long size;
+
+    private NameFile(final Path path, final FileChannel channel, final int count, final long size) {
+        this.path = path;
+        this.channel = channel;
+        this.count = count;
+        this.size = size;
+    }
+
+    /**
+     * Opens the names file of a storage directory, creating it if it does not exist, and adds its
+     * names to a dictionary.
+     * @param dir        The storage directory.
+     * @param dictionary The empty dictionary to add the names to.
+     * @return the names file.
+     * @throws IOException      if an I/O error occurs.
+     * @throws StorageException if the file is not a names file of this version.
+     */
+    static NameFile open(final Path dir, final NameDictionary dictionary) throws IOException {
+        final var path = dir.resolve(FILE_NAME);
+        final var channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        try {
+            final var fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                // New, or torn while the header was being written
+                final var header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+                channel.truncate(0);
+                writeFully(channel, header.flip(), 0);
+                return new NameFile(path, channel, 0, HEADER_SIZE);
+            }
+
+            final var buffer = ByteBuffer.allocate((int) fileSize);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new StorageException("Unsupported names file: " + path);
+            }
+
+            var count = 0;
+            while (buffer.remaining() >= 4) {
+                final var length = buffer.getInt(buffer.position());
+                if (length < 0 || length > buffer.remaining() - 4) {
+                    break;
+                }
+
+                buffer.position(buffer.position() + 4);
+                final var bytes = new byte[length];
+                buffer.get(bytes);
+                dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+                count++;
+            }
+
+            if (buffer.position() < fileSize) {
+                channel.truncate(buffer.position());
+            }
+
+            return new NameFile(path, channel, count, buffer.position());
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the names of a dictionary that are not in the file yet.
+     * @param dictionary The dictionary, whose first names are those of this file.
+     * @throws IOException if an I/O error occurs.
+     */
+    void append(final NameDictionary dictionary) throws IOException {
+        while (count < dictionary.size()) {
+            final var bytes = dictionary.nameOf(count).getBytes(StandardCharsets.UTF_8);
+            final var buffer = ByteBuffer.allocate(4 + bytes.length)
+                .putInt(bytes.length)
+                .put(bytes);
+            writeFully(channel, buffer.flip(), size);
+            size += 4 + bytes.length;
+            count++;
+        }
+    }
+
+    /**
+     * Forces the names to the storage device.
+     * @throws IOException if an I/O error occurs.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void writeFully(
+        final FileChannel channel,
+        final ByteBuffer buffer,
+        final long position
+    ) throws IOException {
+        var offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package me.jameschan.hole.entry.storage;
+
+/**
+ * Exception thrown when an entry storage fails to read or write its underlying files, or when the
+ * files are found to be corrupted.
+ */
+public class StorageException extends RuntimeException {
+    /**
+     * Constructs a {@code StorageException} with the specified detail message.
+     * @param message The detail message.
+     */
+    public StorageException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a {@code StorageException} with the specified detail message and cause.
+     * @param message The detail message.
+     * @param cause   The cause of this exception.
+     */
+    public StorageException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,154 @@
+package me.jameschan.hole.entry.transfer;
+
+import me.jameschan.hole.entry.codec.EntryReader;
+import me.jameschan.hole.entry.codec.MalformedRecordException;
+import me.jameschan.hole.entry.codec.NameDictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads entries in the binary export format written by {@link BinaryEntryOutput}. The stream is
+ * read in chunks into a buffer, and every record is read in place from the buffer.
+ */
+final class BinaryEntryInput implements EntryInput {
+    /**
+     * The initial capacity of the buffer, which grows for records that do not fit.
+     */
+    private static final int INITIAL_CAPACITY = 64 << 10;
+
+    /**
+     * The stream read from.
+     */
+    private final InputStream inputStream;
+
+    /**
+     * The reader of the records, whose dictionary collects the names defined by the stream.
+     */
+    private final EntryReader reader = new EntryReader(new NameDictionary());
+
+    /**
+     * The buffer of the bytes read but not consumed yet, between its position and limit.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY).limit(0);
+
+    /**
+     * Whether the end of the stream has been reached.
+     */
+    private boolean endOfStream;
+
+    BinaryEntryInput(final InputStream inputStream) {
+        this.inputStream = inputStream;
+        try {
+            if (!fill(8) || buffer.getInt() != BinaryEntryOutput.MAGIC) {
+                throw new EntryTransferException("Not a binary entry stream");
+            }
+
+            final var version = buffer.getInt();
+            if (version != BinaryEntryOutput.VERSION) {
+                throw new EntryTransferException(
+                    "Unsupported binary entry stream version: " + version
+                );
+            }
+        } catch (final EntryTransferException e) {
+            try {
+                inputStream.close();
+            } catch (final IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean next(final BiConsumer<String, String> action) {
+        if (!fill(1)) {
+            return false;
+        }
+
+        fill(BinaryEntryOutput.MAX_LENGTH_SIZE);
+        var length = 0;
+        for (var shift = 0; ; shift += 7) {
+            if (!buffer.hasRemaining() || shift == 7 * BinaryEntryOutput.MAX_LENGTH_SIZE) {
+                throw new EntryTransferException("Malformed record length");
+            }
+
+            final var b = buffer.get();
+            length |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+
+        if (length < 0 || length > BinaryEntryOutput.MAX_RECORD_LENGTH) {
+            throw new EntryTransferException("Illegal record length: " + length);
+        }
+
+        if (!fill(length)) {
+            throw new EntryTransferException("Truncated entry record");
+        }
+
+        final var record = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        try {
+            reader.wrap(record);
+            if (record.hasRemaining()) {
+                throw new MalformedRecordException("Trailing bytes after entry record");
+            }
+            reader.forEach(action);
+        } catch (final MalformedRecordException e) {
+            throw new EntryTransferException("Fail to read entry: " + e.getMessage(), e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            inputStream.close();
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to close entry input", e);
+        }
+    }
+
+    /**
+     * Reads from the stream until the buffer holds at least a number of bytes, or the stream ends.
+     * @param size The number of bytes.
+     * @return true if the buffer holds the bytes; false if the stream ended first.
+     */
+    private boolean fill(final int size) {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, size)).put(buffer);
+        } else {
+            buffer.compact();
+        }
+
+        try {
+            while (buffer.position() < size && !endOfStream) {
+                final var read = inputStream.read(
+                    buffer.array(),
+                    buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining()
+                );
+                if (read < 0) {
+                    endOfStream = true;
+                } else {
+                    buffer.position(buffer.position() + read);
+                }
+            }
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to read entry input", e);
+        } finally {
+            buffer.flip();
+        }
+
+        return buffer.remaining() >= size;
+    }
+}
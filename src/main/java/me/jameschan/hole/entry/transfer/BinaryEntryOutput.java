@@ -0,0 +1,93 @@
+package me.jameschan.hole.entry.transfer;
+
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.codec.EntryEncoder;
+import me.jameschan.hole.entry.codec.NameDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes entries in the binary export format. After the header, magic and version, every entry is
+ * a varint length followed by a record of {@link EntryEncoder} that defines its names inline, so
+ * the stream carries its own dictionary and is read from the start.
+ */
+final class BinaryEntryOutput implements EntryOutput {
+    /**
+     * Identifies a binary export.
+     */
+    static final int MAGIC = 0x484f4c58;
+
+    /**
+     * The version of the binary export format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The maximum number of bytes of the length of a record.
+     */
+    static final int MAX_LENGTH_SIZE = 5;
+
+    /**
+     * The maximum length of a record, so a corrupt length cannot make a reader allocate gigabytes.
+     */
+    static final int MAX_RECORD_LENGTH = 64 << 20;
+
+    /**
+     * The stream written to.
+     */
+    private final OutputStream outputStream;
+
+    /**
+     * The encoder of the records.
+     */
+    private final EntryEncoder encoder = new EntryEncoder(new NameDictionary(), true);
+
+    BinaryEntryOutput(final OutputStream outputStream) {
+        this.outputStream = new BufferedOutputStream(outputStream, 64 << 10);
+        try {
+            for (final var value : new int[]{MAGIC, VERSION}) {
+                for (var shift = 24; shift >= 0; shift -= 8) {
+                    this.outputStream.write(value >>> shift);
+                }
+            }
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to write entry output header", e);
+        }
+    }
+
+    @Override
+    public void write(final Entry entry) {
+        // The length is written into the headroom, right before the record
+        final var buffer = encoder.encode(entry, MAX_LENGTH_SIZE);
+        var length = buffer.limit() - MAX_LENGTH_SIZE;
+        if (length > MAX_RECORD_LENGTH) {
+            throw new EntryTransferException("Entry is too large to export: " + entry.getId());
+        }
+
+        final var start = MAX_LENGTH_SIZE - EntryEncoder.varintSize(length);
+        buffer.position(start);
+        while ((length & ~0x7f) != 0) {
+            buffer.put((byte) (length & 0x7f | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+
+        try {
+            final var offset = buffer.arrayOffset() + start;
+            outputStream.write(buffer.array(), offset, buffer.limit() - start);
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to write entry: " + entry.getId(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            outputStream.close();
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to close entry output", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package me.jameschan.hole.entry.transfer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * The formats entries are exported and imported in.
+ */
+public enum EntryFormat {
+    /**
+     * JSON Lines: one object per line, e.g. {@code {"id":1,"properties":{"key":"apple"}}}.
+     */
+    JSON_LINES("jsonl") {
+        @Override
+        public EntryOutput openOutput(final OutputStream outputStream) {
+            return new JsonLinesEntryOutput(outputStream);
+        }
+
+        @Override
+        public EntryInput openInput(final InputStream inputStream) {
+            return new JsonLinesEntryInput(inputStream);
+        }
+    },
+
+    /**
+     * The binary record format of {@link me.jameschan.hole.entry.codec.EntryEncoder}, with every
+     * record prefixed by its length.
+     */
+    BINARY("bin") {
+        @Override
+        public EntryOutput openOutput(final OutputStream outputStream) {
+            return new BinaryEntryOutput(outputStream);
+        }
+
+        @Override
+        public EntryInput openInput(final InputStream inputStream) {
+            return new BinaryEntryInput(inputStream);
+        }
+    };
+
+    /**
+     * The name of this format, which is also the file name extension of its files.
+     */
+    private final String name;
+
+    EntryFormat(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the format of a name.
+     * @param name The name of the format, such as {@code jsonl} or {@code bin}.
+     * @return the format.
+     * @throws EntryTransferException if no format has the name.
+     */
+    public static EntryFormat of(final String name) {
+        for (final var format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+
+        throw new EntryTransferException("Unknown entry format: " + name);
+    }
+
+    /**
+     * Returns the format of a file by its extension.
+     * @param path The path of the file.
+     * @return {@link #BINARY} for {@code .bin} files; {@link #JSON_LINES} otherwise.
+     */
+    public static EntryFormat of(final Path path) {
+        return path.getFileName().toString().endsWith("." + BINARY.name) ? BINARY : JSON_LINES;
+    }
+
+    /**
+     * Opens an output of this format.
+     * @param outputStream The stream to write to, which is closed with the output.
+     * @return the output.
+     */
+    public abstract EntryOutput openOutput(final OutputStream outputStream);
+
+    /**
+     * Opens an input of this format.
+     * @param inputStream The stream to read from, which is closed with the input.
+     * @return the input.
+     * @throws EntryTransferException if the stream is not of this format.
+     */
+    public abstract EntryInput openInput(final InputStream inputStream);
+}
@@ -0,0 +1,26 @@
+package me.jameschan.hole.entry.transfer;
+
+import java.io.Closeable;
+import java.util.function.BiConsumer;
+
+/**
+ * A stream that entries are imported from, one at a time, so importing takes the same memory
+ * whatever the number of entries. The IDs of the entries in the stream are not read, as imported
+ * entries are given new IDs.
+ */
+public interface EntryInput extends Closeable {
+    /**
+     * Reads the next entry of the stream.
+     * @param action The action to be performed for each property name and value of the entry.
+     * @return true if an entry was read; false at the end of the stream.
+     * @throws EntryTransferException if the stream could not be read or is malformed.
+     */
+    boolean next(final BiConsumer<String, String> action);
+
+    /**
+     * Closes the stream.
+     * @throws EntryTransferException if the stream could not be closed.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,25 @@
+package me.jameschan.hole.entry.transfer;
+
+import me.jameschan.hole.entry.Entry;
+
+import java.io.Closeable;
+
+/**
+ * A stream that entries are exported to, one at a time, so exporting takes the same memory
+ * whatever the number of entries.
+ */
+public interface EntryOutput extends Closeable {
+    /**
+     * Writes an entry to the stream.
+     * @param entry The entry.
+     * @throws EntryTransferException if the entry could not be written.
+     */
+    void write(final Entry entry);
+
+    /**
+     * Flushes and closes the stream.
+     * @throws EntryTransferException if the stream could not be flushed or closed.
+     */
+    @Override
+    void close();
+}
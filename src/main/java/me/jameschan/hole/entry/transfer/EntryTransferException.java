@@ -0,0 +1,24 @@
+package me.jameschan.hole.entry.transfer;
+
+/**
+ * Exception thrown when entries could not be exported to or imported from a stream, or when the
+ * stream does not follow its format.
+ */
+public class EntryTransferException extends RuntimeException {
+    /**
+     * Constructs an {@code EntryTransferException} with the specified detail message.
+     * @param message The detail message.
+     */
+    public EntryTransferException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs an {@code EntryTransferException} with the specified detail message and cause.
+     * @param message The detail message.
+     * @param cause   The cause of this exception.
+     */
+    public EntryTransferException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,70 @@
+package me.jameschan.hole.entry.transfer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads entries from JSON Lines, streaming every property straight from the reader. Unknown
+ * fields of the objects are skipped, and null property values are ignored.
+ */
+final class JsonLinesEntryInput implements EntryInput {
+    /**
+     * The JSON reader, which reads one top-level object per entry.
+     */
+    private final JsonReader jsonReader;
+
+    JsonLinesEntryInput(final InputStream inputStream) {
+        jsonReader = new JsonReader(
+            new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
+        );
+        jsonReader.setLenient(true);
+    }
+
+    @Override
+    public boolean next(final BiConsumer<String, String> action) {
+        try {
+            if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+                return false;
+            }
+
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                if (!jsonReader.nextName().equals("properties")) {
+                    jsonReader.skipValue();
+                    continue;
+                }
+
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    final var name = jsonReader.nextName();
+                    if (jsonReader.peek() == JsonToken.NULL) {
+                        jsonReader.nextNull();
+                    } else {
+                        action.accept(name, jsonReader.nextString());
+                    }
+                }
+                jsonReader.endObject();
+            }
+            jsonReader.endObject();
+            return true;
+        } catch (final IOException | IllegalStateException e) {
+            throw new EntryTransferException("Fail to read entry: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            jsonReader.close();
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to close entry input", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package me.jameschan.hole.entry.transfer;
+
+import com.google.gson.stream.JsonWriter;
+import me.jameschan.hole.entry.Entry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes entries as JSON Lines, streaming every property straight to the writer.
+ */
+final class JsonLinesEntryOutput implements EntryOutput {
+    /**
+     * The writer of the lines.
+     */
+    private final Writer writer;
+
+    /**
+     * The JSON writer over {@link #writer}, which writes one top-level object per entry.
+     */
+    private final JsonWriter jsonWriter;
+
+    JsonLinesEntryOutput(final OutputStream outputStream) {
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        jsonWriter = new JsonWriter(writer);
+        jsonWriter.setLenient(true);
+    }
+
+    @Override
+    public void write(final Entry entry) {
+        try {
+            jsonWriter.beginObject();
+            jsonWriter.name("id").value(entry.getId());
+            jsonWriter.name("properties").beginObject();
+            entry.forEach((name, value) -> {
+                try {
+                    jsonWriter.name(name).value(value);
+                } catch (final IOException e) {
+                    throw new EntryTransferException("Fail to write entry: " + entry.getId(), e);
+                }
+            });
+            jsonWriter.endObject();
+            jsonWriter.endObject();
+            writer.write('\n');
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to write entry: " + entry.getId(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            jsonWriter.close();
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to close entry output", e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package me.jameschan.hole.extend;
 
+import me.jameschan.hole.config.ConfigManager;
 import me.jameschan.hole.entry.EntryManager;
 import me.jameschan.hole.handler.HandlerManager;
 import me.jameschan.hole.plugin.PluginManager;
 import me.jameschan.kernel.App;
+import me.jameschan.kernel.ManagerFactory;
 
 import java.util.List;
 
@@ -12,10 +14,16 @@ import java.util.List;
  */
 public class HoleApp extends App {
     public HoleApp() {
-        super(HoleApp.class, List.of(
-            HandlerManager.class,
-            EntryManager.class,
-            PluginManager.class
+        super(List.<ManagerFactory<HoleApp, ?>>of(
+            ManagerFactory.of(ConfigManager.class, ConfigManager::new),
+            ManagerFactory.of(HandlerManager.class, HandlerManager::new),
+            ManagerFactory.of(EntryManager.class, EntryManager::new),
+            ManagerFactory.of(
+                PluginManager.class,
+                PluginManager::new,
+                ConfigManager.class,
+                HandlerManager.class
+            )
         ));
     }
 }
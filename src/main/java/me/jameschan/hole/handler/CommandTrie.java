@@ -0,0 +1,87 @@
+package me.jameschan.hole.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A trie of command names, in which every node is one word of a command such as {@code kv get}
+ * and may hold the handler of the command that ends there. The root holds the default handler,
+ * which handles command lines without a command name.
+ * <p>
+ * Handlers are mostly registered while the application is initialized, so dispatching a command is
+ * a walk of one hash lookup per word, which does not allocate. A node may instead hold a loader,
+ * which registers the handler of the node the first time the command is dispatched; this is how
+ * plugins are loaded only when one of their commands is used.
+ */
+final class CommandTrie {
+    /**
+     * The root node, which stands for the empty command name.
+     */
+    private final Node root = new Node(null);
+
+    /**
+     * Returns the root node of this trie.
+     * @return the root node.
+     */
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Returns the node of a command name, creating the nodes of its words if necessary.
+     * @param words The words of the command name; empty for the root.
+     * @return the node.
+     */
+    Node getOrCreate(final String[] words) {
+        var node = root;
+        for (final var word : words) {
+            final var parent = node;
+            node = parent.children.computeIfAbsent(
+                word,
+                k -> new Node(parent.name == null ? word : parent.name + " " + word)
+            );
+        }
+
+        return node;
+    }
+
+    /**
+     * A node of the trie.
+     */
+    static final class Node {
+        /**
+         * The command name that ends at this node; or {@code null} for the root.
+         */
+        final String name;
+
+        /**
+         * The child nodes by their words.
+         */
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        /**
+         * The handler of the command that ends at this node; or {@code null} if this node only
+         * groups subcommands or its handler is not loaded yet.
+         */
+        volatile Handler handler;
+
+        /**
+         * Registers the handler of this node when it is first needed; or {@code null} if there is
+         * nothing to load.
+         */
+        volatile Runnable loader;
+
+        private Node(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the child node of a word.
+         * @param word The word.
+         * @return the child node; or {@code null} if no command continues with the word.
+         */
+        Node child(final String word) {
+            return children.get(word);
+        }
+    }
+}
@@ -1,32 +1,45 @@
 package me.jameschan.hole.handler;
 
 import me.jameschan.hole.command.Command;
+import me.jameschan.hole.command.CommandLineSplitter;
 import me.jameschan.hole.command.CommandTemplate;
 import me.jameschan.hole.command.TokenIterator;
 import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.Env;
 import me.jameschan.hole.common.StatusCode;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.extend.HoleManager;
 import me.jameschan.hole.handler.builtin.DefaultHandler;
+import me.jameschan.hole.handler.builtin.ExportHandler;
+import me.jameschan.hole.handler.builtin.ImportHandler;
 import me.jameschan.hole.handler.builtin.NewHandler;
+import me.jameschan.hole.plugin.Plugin;
+import me.jameschan.hole.plugin.PluginHook;
 import me.jameschan.hole.plugin.PluginManager;
 
-import java.util.HashMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * Manages the registration and handling of command handlers within an application context. This
  * class serves as a central point for associating command strings with their corresponding
  * {@link Handler} instances and for dispatching command handling requests to the appropriate
  * handler based on input arguments.
+ * <p>
+ * Command names may consist of several words separated by spaces, such as {@code kv get}, so
+ * plugins can group their commands under a name of their own instead of competing for flat names.
+ * Names are kept in a {@link CommandTrie}, and a command line is dispatched by walking its leading
+ * words down the trie.
  */
 public class HandlerManager extends HoleManager {
     /**
-     * A mapping of command strings to their respective {@link Handler} instances.
+     * The trie of command names and their respective {@link Handler} instances.
      */
-    private final Map<String, Handler> byName = new HashMap<>();
+    private final CommandTrie commandTrie = new CommandTrie();
 
     /**
      * Constructs a new {@code HandlerManager} instance, initializing it with a reference to the
@@ -51,6 +64,8 @@ public class HandlerManager extends HoleManager {
     private void initBuiltinHandlers() {
         this.registerHandler(null, new DefaultHandler(), false);
         this.registerHandler("new", new NewHandler(), false);
+        this.registerHandler("export", new ExportHandler(), false);
+        this.registerHandler("import", new ImportHandler(), false);
     }
 
     /**
@@ -58,7 +73,8 @@ public class HandlerManager extends HoleManager {
      * the executor's {@link CommandTemplate}. If the {@code cover} parameter is {@code false} and
      * an executor is already registered for the command, an {@link HandlerAlreadyExistException} is
      * thrown.
-     * @param name     The name of the command to be handled by the handler.
+     * @param name     The name of the command to be handled by the handler, whose words are
+     *                 separated by spaces; or {@code null} for the default handler.
      * @param handler  The {@link Handler} to be registered.
      * @param override If {@code true}, the new handler will replace any existing handler for the
      *                 same command. If {@code false}, an exception is thrown when attempting to
@@ -67,32 +83,96 @@ public class HandlerManager extends HoleManager {
      *                                      already registered for the command.
      */
     public void registerHandler(final String name, final Handler handler, final boolean override) {
-        if (!override && byName.containsKey(name)) {
-            throw new HandlerAlreadyExistException(name);
+        final var words = name == null ? new String[0] : name.trim().split(" +");
+        final var node = commandTrie.getOrCreate(words);
+        synchronized (node) {
+            if (!override && node.handler != null) {
+                throw new HandlerAlreadyExistException(name);
+            }
+
+            node.handler = handler;
+            node.loader = null;
         }
+    }
+
+    /**
+     * Registers a loader for the handler of a command, which is run the first time the command is
+     * dispatched and must register the handler with {@link #registerHandler}. This lets plugins
+     * announce their commands without loading their classes. The loader may run more than once,
+     * concurrently, until the handler is registered, so it must be idempotent.
+     * @param name   The name of the command, whose words are separated by spaces.
+     * @param loader The loader that registers the handler.
+     * @throws HandlerAlreadyExistException if a handler or loader is already registered for the
+     *                                      command.
+     */
+    public void registerLazyHandler(final String name, final Runnable loader) {
+        final var node = commandTrie.getOrCreate(name.trim().split(" +"));
+        synchronized (node) {
+            if (node.handler != null || node.loader != null) {
+                throw new HandlerAlreadyExistException(name);
+            }
 
-        byName.put(name, handler);
+            node.loader = loader;
+        }
     }
 
     /**
      * Retrieves the {@link Handler} associated with the specified command name. This method enables
      * the lookup of handlers based on command names, facilitating command handling and other
      * operations where handler access is required.
-     * @param command The command string used to identify the handler.
+     * @param command The command string used to identify the handler, whose words are separated
+     *                by spaces; or {@code null} for the default handler.
      * @return The {@link Handler} associated with the specified command name.
      * @throws HandlerNotFoundException if no handler is found for the given command name, ensuring
      *                                  that callers are made aware of the absence of a handler for
      *                                  the requested command.
      */
     public Handler getHandler(final String command) {
-        return Optional.ofNullable(byName.get(command))
-            .orElseThrow(() -> new HandlerNotFoundException(command));
+        var node = commandTrie.root();
+        if (command != null) {
+            for (final var word : command.trim().split(" +")) {
+                node = node.child(word);
+                if (node == null) {
+                    throw new HandlerNotFoundException(command);
+                }
+            }
+        }
+
+        final var handler = resolve(node);
+        if (handler == null) {
+            throw new HandlerNotFoundException(command);
+        }
+
+        return handler;
+    }
+
+    /**
+     * Returns the handler of a node, running its loader first if the handler is not loaded yet.
+     * @param node The node.
+     * @return the handler; or {@code null} if the node has no handler.
+     */
+    private static Handler resolve(final CommandTrie.Node node) {
+        final var handler = node.handler;
+        if (handler != null) {
+            return handler;
+        }
+
+        // The loader stays until the handler is registered, so other threads dispatching the
+        // command meanwhile run it as well; loaders must be idempotent
+        final var loader = node.loader;
+        if (loader != null) {
+            loader.run();
+        }
+
+        return node.handler;
     }
 
     /**
      * Executes the command logic based on the provided {@link Bundle} and {@link TokenIterator}.
-     * This method determines the command to execute based on the next token in the token iterator,
-     * retrieves the corresponding handler, and delegates the command handling to the handler.
+     * This method determines the command to execute by walking the leading words of the token
+     * iterator down the command trie for as long as they continue a command name, retrieves the
+     * handler of the longest such name, and delegates the command handling to the handler. The
+     * words after the name are arguments of the command.
      * <p>
      * If the token iterator contains a valid command name, it retrieves the corresponding handler
      * and invokes its {@link Handler#handle(Command, Bundle, HoleApp)} method with a command object
@@ -105,17 +185,43 @@ public class HandlerManager extends HoleManager {
      *                      code, and output buffer.
      * @param tokenIterator The {@link TokenIterator} providing a sequence of tokens representing
      *                      the command line input to be executed.
-     * @throws NullPointerException if the {@code tokenIterator} is {@code null}.
+     * @throws NullPointerException     if the {@code tokenIterator} is {@code null}.
+     * @throws HandlerNotFoundException if the leading words do not name a command with a handler.
      */
     public void execute(final Bundle bundle, final TokenIterator tokenIterator) {
-        final var hasCommand = tokenIterator.hasNext() &&
-            !TokenIterator.isOption(tokenIterator.peek());
-        final var commandName = hasCommand ? tokenIterator.next() : null;
-        final var handler = getHandler(commandName);
+        var node = commandTrie.root();
+        while (hasWord(tokenIterator)) {
+            final var child = node.child(tokenIterator.peek());
+            if (child == null) {
+                break;
+            }
+
+            node = child;
+            tokenIterator.next();
+        }
+
+        // A command line either starts with a command name or only has options; and a name that
+        // only groups subcommands must be followed by one of them
+        final var handler = resolve(node);
+        if (handler == null || (node == commandTrie.root() && hasWord(tokenIterator))) {
+            final var word = hasWord(tokenIterator) ? tokenIterator.peek() : null;
+            throw new HandlerNotFoundException(
+                node.name == null ? word : word == null ? node.name : node.name + " " + word
+            );
+        }
 
         handler.handle(handler.commandTemplate.make(tokenIterator), bundle, app);
     }
 
+    /**
+     * Checks if the next token is a word that may continue a command name, that is, not an option.
+     * @param tokenIterator The token iterator.
+     * @return true if the next token is a word; false otherwise.
+     */
+    private static boolean hasWord(final TokenIterator tokenIterator) {
+        return tokenIterator.hasNext() && !TokenIterator.isOption(tokenIterator.peek());
+    }
+
     /**
      * Executes a command based on the provided list of raw arguments. This method processes the raw
      * arguments, creates a bundle, allows enabled plugins to execute pre-command logic, executes
@@ -134,33 +240,96 @@ public class HandlerManager extends HoleManager {
      * <p>
      * After the command execution, plugins implementing
      * {@link me.jameschan.hole.plugin.Plugin#beforePrint(Bundle)} are given the opportunity to
-     * print additional information from the bundle. If the output buffer is not empty, it is
-     * printed to the console.
+     * print additional information from the bundle. The output is streamed to the console while
+     * the command runs, so plugins see and can extend only the part that has not been printed yet;
+     * the rest is printed after them.
      * @param rawArgs The list of raw arguments representing the command to execute.
      */
     public void executeRawArgs(final List<String> rawArgs) {
+        // Stream the output to the console while the command runs
+        final var bundle = Bundle.create(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+        );
+        handleRawArgs(rawArgs, bundle);
+
+        // Print what is left after plugins have seen it
+        bundle.buffer.finish();
+    }
+
+    /**
+     * Runs a command based on the provided list of raw arguments and leaves its output in the given
+     * bundle instead of printing it. This is the same pipeline as {@link #executeRawArgs(List)},
+     * and is used by callers that send the output elsewhere, such as the daemon.
+     * @param rawArgs The list of raw arguments representing the command to execute.
+     * @param bundle  The bundle to fill with the status code and output.
+     */
+    public void handleRawArgs(final List<String> rawArgs, final Bundle bundle) {
         // Create token iterator from raw arguments
         final var tokenIterator = new TokenIterator(rawArgs);
 
-        // Create a bundle
-        final var bundle = Bundle.create();
-
         // Let enabled plugins execute the command first
         final var pluginManager = app.use(PluginManager.class);
-        pluginManager.forEachEnabled(plugin -> plugin.beforeExecute(bundle, tokenIterator));
+        pluginManager.forEachEnabled(
+            PluginHook.BEFORE_EXECUTE,
+            plugin -> plugin.beforeExecute(bundle, tokenIterator)
+        );
 
         // If the status code is NULL, it means that the command is yet executed
         if (bundle.statusCode == StatusCode.NULL) {
             execute(bundle, tokenIterator);
         }
 
-        // Let enabled plugins print the bundle content first
-        pluginManager.forEachEnabled((plugin) -> plugin.beforePrint(bundle));
+        // Let enabled plugins print the bundle content first; independent plugins print to forks
+        // of the bundle concurrently, which are merged in plugin order
+        pluginManager.forkEachEnabled(PluginHook.BEFORE_PRINT, bundle, Plugin::beforePrint);
+    }
+
+    /**
+     * Executes many commands against this application, reading one command line per line. Every
+     * line is split like a shell would split it, and then runs through the same pipeline as
+     * {@link #executeRawArgs(List)}, so a batch of commands costs one application startup instead
+     * of one per command. Blank lines and lines starting with {@code #} are skipped.
+     * <p>
+     * The output of every command is streamed to the writer while the command runs. A failing
+     * command does not stop the batch; its error is written after its output, prefixed by its line
+     * number.
+     * @param reader The reader of command lines.
+     * @param writer The writer that outputs are streamed to.
+     * @param env    The environment that commands are executed in.
+     * @return the number of commands that failed.
+     * @throws IOException if reading a command line or writing an output fails.
+     */
+    public int executeBatch(
+        final BufferedReader reader,
+        final Writer writer,
+        final Env env
+    ) throws IOException {
+        var failureCount = 0;
+        var lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            final var trimmedLine = line.trim();
+            if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+                continue;
+            }
 
-        // If the buffer string is not empty, print it on the console
-        final var message = bundle.buffer.toString().trim();
-        if (!message.isEmpty()) {
-            System.out.println(message);
+            final var bundle = new Bundle(env, writer);
+            try {
+                handleRawArgs(CommandLineSplitter.split(trimmedLine), bundle);
+                if (bundle.statusCode == StatusCode.INVALID_COMMAND) {
+                    ++failureCount;
+                }
+            } catch (final RuntimeException e) {
+                ++failureCount;
+                bundle.buffer.append(System.lineSeparator())
+                    .append(String.format("Line %d: %s", lineNumber, e.getMessage()));
+            }
+
+            bundle.buffer.finish();
         }
+
+        writer.flush();
+        return failureCount;
     }
-}
\ No newline at end of file
+}
@@ -7,12 +7,23 @@ import me.jameschan.hole.common.Bundle;
 import me.jameschan.hole.common.StatusCode;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.handler.Handler;
+import me.jameschan.hole.handler.HandlerManager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class DefaultHandler extends Handler {
     public DefaultHandler() {
         super(new CommandTemplate(0) {{
             addOptionTemplate(new OptionTemplate("version"));
             addOptionTemplate(new OptionTemplate("help"));
+            addOptionTemplate(new OptionTemplate("batch", 'b', 1));
         }});
     }
 
@@ -26,9 +37,51 @@ public class DefaultHandler extends Handler {
             return;
         }
 
+        final var batchOption = command.getOption("batch");
+        if (batchOption != null) {
+            executeBatch(batchOption.args().getFirst(), bundle, app);
+            return;
+        }
+
         final var helpOption = command.getOption("help");
         if (helpOption != null) {
             bundle.buffer.append("Manual of using Hole: ");
         }
     }
+
+    /**
+     * Executes the commands of a batch file, streaming their outputs to the standard output.
+     * @param path   The path of the batch file, relative to the working directory; or {@code -} to
+     *               read commands from the standard input.
+     * @param bundle The bundle of the batch command.
+     * @param app    The app that executes the commands.
+     */
+    private static void executeBatch(final String path, final Bundle bundle, final HoleApp app) {
+        final var handlerManager = app.use(HandlerManager.class);
+        final var writer = new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+            1 << 16
+        );
+        final int failureCount;
+        try {
+            if (path.equals("-")) {
+                final var reader = new BufferedReader(
+                    new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                );
+                failureCount = handlerManager.executeBatch(reader, writer, bundle.getEnv());
+            } else {
+                final var file = Path.of(bundle.getEnv().dir()).resolve(path);
+                try (final var reader = Files.newBufferedReader(file)) {
+                    failureCount = handlerManager.executeBatch(reader, writer, bundle.getEnv());
+                }
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to execute batch: " + path, e);
+        }
+
+        if (failureCount > 0) {
+            bundle.statusCode = StatusCode.INVALID_COMMAND;
+            bundle.buffer.append(failureCount).append(" command(s) failed.");
+        }
+    }
 }
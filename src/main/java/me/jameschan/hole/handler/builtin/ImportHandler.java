@@ -0,0 +1,48 @@
+package me.jameschan.hole.handler.builtin;
+
+import me.jameschan.hole.command.Command;
+import me.jameschan.hole.command.CommandTemplate;
+import me.jameschan.hole.command.OptionTemplate;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.entry.transfer.EntryFormat;
+import me.jameschan.hole.entry.transfer.EntryTransferException;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.Handler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports the entries of a file as new entries, e.g. {@code hole import entries.jsonl}. The format
+ * is given by {@code --format} ({@code jsonl} or {@code bin}), or else by the extension of the
+ * file.
+ */
+public class ImportHandler extends Handler {
+    public ImportHandler() {
+        super(new CommandTemplate(1) {{
+            addOptionTemplate(new OptionTemplate("format", 'f', 1));
+        }});
+    }
+
+    @Override
+    public void handle(final Command command, final Bundle bundle, final HoleApp app) {
+        final var path = Path.of(bundle.getEnv().dir()).resolve(command.args().getFirst());
+        final var formatOption = command.getOption("format");
+        final var format = formatOption == null
+            ? EntryFormat.of(path)
+            : EntryFormat.of(formatOption.args().getFirst());
+
+        final int count;
+        try (final var input = format.openInput(Files.newInputStream(path))) {
+            count = app.use(EntryManager.class).importFrom(input);
+        } catch (final IOException e) {
+            throw new EntryTransferException("Fail to open file: " + path, e);
+        }
+
+        bundle.statusCode = StatusCode.SUCCESS;
+        bundle.buffer.append("Entries imported: ").append(count);
+    }
+}
@@ -1,15 +1,17 @@
 package me.jameschan.hole.plugin;
 
 import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
 
 import java.util.Collection;
 
 public interface ConfigFunctionality {
     /**
-     * Returns configuration keys that are allowed to set of get by the application.
+     * Returns configuration keys that are allowed to set of get by the application. Plugins
+     * register each key once, usually as a constant, and read its value through the key.
      * @return configuration keys.
      */
-    Collection<String> configKeys();
+    Collection<ConfigKey<?>> configKeys();
 
     void setConfig(final Config config);
 }
@@ -2,10 +2,33 @@ package me.jameschan.hole.plugin;
 
 import me.jameschan.hole.entry.Entry;
 
+import java.util.List;
+
 public interface EntryModificationFunctionality {
     /**
      * Called when entry is created.
      * @param entry The entry is created.
      */
     void onCreateEntry(final Entry entry);
+
+    /**
+     * Called when a batch of entries is created, such as by an import, before they are written.
+     * Plugins that can handle many entries at once more cheaply than one by one override this.
+     * @param entryList The entries created, in order.
+     */
+    void onCreateEntries(final List<Entry> entryList);
+
+    /**
+     * Called when an entry has been created and written, after every plugin has enriched it.
+     * Plugins are called one by one, in plugin order, and must not modify the entry; this is meant
+     * for plugins that keep track of entries, such as indexes.
+     * @param entry The entry created.
+     */
+    void afterCreateEntry(final Entry entry);
+
+    /**
+     * Called when a batch of entries has been created and written, such as by an import.
+     * @param entryList The entries created, in order.
+     */
+    void afterCreateEntries(final List<Entry> entryList);
 }
@@ -0,0 +1,55 @@
+package me.jameschan.hole.plugin;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A plugin that is known but not constructed yet: the names of its commands and the hooks it
+ * implements are enough to decide when it is needed, so it is constructed, initialized and enabled
+ * only the first time one of its commands is dispatched or one of its hooks is called.
+ * @param className   The name of the plugin class.
+ * @param commandList The names of the commands the plugin registers.
+ * @param hookSet     The hooks the plugin implements.
+ * @param constructor Constructs the plugin.
+ */
+record LazyPlugin(
+    String className,
+    List<String> commandList,
+    Set<PluginHook> hookSet,
+    Supplier<Plugin> constructor
+) {
+    /**
+     * Describes a builtin plugin. Like the manifest of a plugin JAR, the hooks of the plugin are
+     * declared rather than detected from its class by reflection, which would link the class and
+     * load the classes it refers to, such as its handlers.
+     * @param pluginClass The plugin class.
+     * @param hookSet     The hooks the plugin implements.
+     * @param constructor Constructs the plugin.
+     * @param commands    The names of the commands the plugin registers.
+     * @return the lazy plugin.
+     */
+    static LazyPlugin builtin(
+        final Class<? extends Plugin> pluginClass,
+        final Set<PluginHook> hookSet,
+        final Supplier<Plugin> constructor,
+        final String... commands
+    ) {
+        return new LazyPlugin(pluginClass.getName(), List.of(commands), hookSet, constructor);
+    }
+
+    /**
+     * Describes the plugin of a JAR, whose class is loaded when the plugin is constructed.
+     * @param pluginJar    The plugin JAR.
+     * @param pluginLoader The loader that constructs the plugin once its class is loaded.
+     * @return the lazy plugin.
+     */
+    static LazyPlugin of(final PluginJar pluginJar, final PluginLoader pluginLoader) {
+        return new LazyPlugin(
+            pluginJar.className(),
+            pluginJar.commandList(),
+            pluginJar.hookSet(),
+            () -> pluginLoader.loadByClass(pluginJar.loadPluginClass())
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package me.jameschan.hole.plugin;
 
 import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
 import me.jameschan.hole.command.TokenIterator;
 import me.jameschan.hole.common.Bundle;
 import me.jameschan.hole.entry.Entry;
@@ -10,6 +11,7 @@ import me.jameschan.hole.handler.Handler;
 import me.jameschan.hole.handler.HandlerManager;
 
 import java.util.Collection;
+import java.util.List;
 
 public class Plugin extends HoleAppBased implements
     ConfigFunctionality,
@@ -32,7 +34,7 @@ public class Plugin extends HoleAppBased implements
     }
 
     @Override
-    public Collection<String> configKeys() {
+    public Collection<ConfigKey<?>> configKeys() {
         return null;
     }
 
@@ -52,6 +54,20 @@ public class Plugin extends HoleAppBased implements
     public void onCreateEntry(final Entry entry) {
     }
 
+    @Override
+    public void onCreateEntries(final List<Entry> entryList) {
+        entryList.forEach(this::onCreateEntry);
+    }
+
+    @Override
+    public void afterCreateEntry(final Entry entry) {
+    }
+
+    @Override
+    public void afterCreateEntries(final List<Entry> entryList) {
+        entryList.forEach(this::afterCreateEntry);
+    }
+
     /**
      * A convenient method for derived classes to override and registers essential handlers in it.
      */
@@ -0,0 +1,175 @@
+package me.jameschan.hole.plugin;
+
+import me.jameschan.hole.annotation.DependsOn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The order in which the hooks of a set of plugins run, derived from the {@link DependsOn}
+ * annotations of the plugins. Plugins are grouped into waves: the first wave holds the plugins
+ * without dependencies, and every following wave the plugins whose dependencies are all in earlier
+ * waves. Plugins of the same wave do not depend on each other and may run concurrently. Within a
+ * wave, plugins are sorted by class name, so the order is deterministic.
+ * <p>
+ * Dependencies on plugins outside the set are ignored. A graph is immutable.
+ * <p>
+ * For every {@link PluginHook}, the graph also keeps flat arrays of only the plugins that
+ * implement the hook, so calling a hook costs nothing for the plugins that do not implement it.
+ * The waves of a hook are the waves of the graph without the other plugins, so plugins still run
+ * after the plugins they depend on indirectly.
+ */
+final class PluginGraph {
+    /**
+     * The graph of no plugins.
+     */
+    static final PluginGraph EMPTY = new PluginGraph(List.of());
+
+    /**
+     * The plugins in the order in which their hooks run.
+     */
+    private final List<Plugin> ordered;
+
+    /**
+     * The waves of plugins, in the order in which they run.
+     */
+    private final List<List<Plugin>> waves;
+
+    /**
+     * The plugins implementing each hook, by hook ordinal, in the order in which they run.
+     */
+    private final Plugin[][] orderedByHook = new Plugin[PluginHook.values().length][];
+
+    /**
+     * The non-empty waves of the plugins implementing each hook, by hook ordinal.
+     */
+    private final Plugin[][][] wavesByHook = new Plugin[PluginHook.values().length][][];
+
+    /**
+     * Constructs the graph of a set of plugins.
+     * @param plugins The plugins.
+     * @throws PluginLoadingException if the dependencies of the plugins form a cycle.
+     */
+    PluginGraph(final Collection<Plugin> plugins) {
+        final Map<Class<?>, Plugin> byClass = new HashMap<>();
+        plugins.forEach(plugin -> byClass.put(plugin.getClass(), plugin));
+
+        final Map<Plugin, Integer> waveIndexByPlugin = new HashMap<>();
+        final List<List<Plugin>> waveList = new ArrayList<>();
+        for (final var plugin : plugins) {
+            final var waveIndex = waveIndex(plugin, byClass, waveIndexByPlugin, new ArrayList<>());
+            while (waveList.size() <= waveIndex) {
+                waveList.add(new ArrayList<>());
+            }
+
+            waveList.get(waveIndex).add(plugin);
+        }
+
+        final List<Plugin> orderedList = new ArrayList<>();
+        for (final var wave : waveList) {
+            wave.sort(Comparator.comparing(plugin -> plugin.getClass().getName()));
+            orderedList.addAll(wave);
+        }
+
+        this.ordered = List.copyOf(orderedList);
+        this.waves = waveList.stream().map(List::copyOf).toList();
+
+        for (final var hook : PluginHook.values()) {
+            final var hookWaves = waves.stream()
+                .map(wave -> wave.stream()
+                    .filter(plugin -> hook.isImplementedBy(plugin.getClass()))
+                    .toArray(Plugin[]::new))
+                .filter(wave -> wave.length > 0)
+                .toArray(Plugin[][]::new);
+            wavesByHook[hook.ordinal()] = hookWaves;
+            orderedByHook[hook.ordinal()] = Arrays.stream(hookWaves)
+                .flatMap(Arrays::stream)
+                .toArray(Plugin[]::new);
+        }
+    }
+
+    /**
+     * Returns the plugins in the order in which their hooks run.
+     * @return the plugins.
+     */
+    List<Plugin> ordered() {
+        return ordered;
+    }
+
+    /**
+     * Returns the waves of plugins, in the order in which they run.
+     * @return the waves.
+     */
+    List<List<Plugin>> waves() {
+        return waves;
+    }
+
+    /**
+     * Returns the plugins implementing a hook, in the order in which they run. The array must not
+     * be modified.
+     * @param hook The hook.
+     * @return the plugins.
+     */
+    Plugin[] ordered(final PluginHook hook) {
+        return orderedByHook[hook.ordinal()];
+    }
+
+    /**
+     * Returns the non-empty waves of the plugins implementing a hook, in the order in which they
+     * run. The arrays must not be modified.
+     * @param hook The hook.
+     * @return the waves.
+     */
+    Plugin[][] waves(final PluginHook hook) {
+        return wavesByHook[hook.ordinal()];
+    }
+
+    /**
+     * Computes the wave of a plugin, which is one after the latest wave of its dependencies.
+     * @param plugin            The plugin.
+     * @param byClass           The plugins of the graph by class.
+     * @param waveIndexByPlugin The waves of the plugins computed so far.
+     * @param path              The plugins whose waves are being computed, to detect cycles.
+     * @return the index of the wave of the plugin.
+     * @throws PluginLoadingException if the plugin depends on itself through the path.
+     */
+    private static int waveIndex(
+        final Plugin plugin,
+        final Map<Class<?>, Plugin> byClass,
+        final Map<Plugin, Integer> waveIndexByPlugin,
+        final List<Plugin> path
+    ) {
+        final var computed = waveIndexByPlugin.get(plugin);
+        if (computed != null) {
+            return computed;
+        }
+
+        if (path.contains(plugin)) {
+            throw new PluginLoadingException("Plugins depend on each other in a cycle: " +
+                path.stream().map(p -> p.getClass().getName()).toList());
+        }
+
+        var waveIndex = 0;
+        final var dependsOn = plugin.getClass().getAnnotation(DependsOn.class);
+        if (dependsOn != null) {
+            path.add(plugin);
+            for (final var dependencyClass : dependsOn.value()) {
+                final var dependency = byClass.get(dependencyClass);
+                if (dependency != null) {
+                    final var dependencyWaveIndex =
+                        waveIndex(dependency, byClass, waveIndexByPlugin, path);
+                    waveIndex = Math.max(waveIndex, dependencyWaveIndex + 1);
+                }
+            }
+            path.removeLast();
+        }
+
+        waveIndexByPlugin.put(plugin, waveIndex);
+        return waveIndex;
+    }
+}
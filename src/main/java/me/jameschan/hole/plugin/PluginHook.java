@@ -0,0 +1,94 @@
+package me.jameschan.hole.plugin;
+
+import me.jameschan.config.Config;
+import me.jameschan.hole.command.TokenIterator;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.entry.Entry;
+
+import java.util.List;
+
+/**
+ * The hooks that plugins can implement. A plugin implements a hook if its class overrides one of
+ * the no-op methods of the hook declared by {@link Plugin}; only such plugins are called for the
+ * hook.
+ */
+public enum PluginHook {
+    /**
+     * {@link Plugin#configKeys()} and {@link Plugin#setConfig(Config)}.
+     */
+    CONFIG {
+        @Override
+        public boolean isImplementedBy(final Class<? extends Plugin> pluginClass) {
+            return overrides(pluginClass, "configKeys")
+                || overrides(pluginClass, "setConfig", Config.class);
+        }
+    },
+
+    /**
+     * {@link Plugin#beforeExecute(Bundle, TokenIterator)}.
+     */
+    BEFORE_EXECUTE {
+        @Override
+        public boolean isImplementedBy(final Class<? extends Plugin> pluginClass) {
+            return overrides(pluginClass, "beforeExecute", Bundle.class, TokenIterator.class);
+        }
+    },
+
+    /**
+     * {@link Plugin#beforePrint(Bundle)}.
+     */
+    BEFORE_PRINT {
+        @Override
+        public boolean isImplementedBy(final Class<? extends Plugin> pluginClass) {
+            return overrides(pluginClass, "beforePrint", Bundle.class);
+        }
+    },
+
+    /**
+     * {@link Plugin#onCreateEntry(Entry)} and {@link Plugin#onCreateEntries(List)}.
+     */
+    ON_CREATE_ENTRY {
+        @Override
+        public boolean isImplementedBy(final Class<? extends Plugin> pluginClass) {
+            return overrides(pluginClass, "onCreateEntry", Entry.class)
+                || overrides(pluginClass, "onCreateEntries", List.class);
+        }
+    },
+
+    /**
+     * {@link Plugin#afterCreateEntry(Entry)} and {@link Plugin#afterCreateEntries(List)}.
+     */
+    AFTER_CREATE_ENTRY {
+        @Override
+        public boolean isImplementedBy(final Class<? extends Plugin> pluginClass) {
+            return overrides(pluginClass, "afterCreateEntry", Entry.class)
+                || overrides(pluginClass, "afterCreateEntries", List.class);
+        }
+    };
+
+    /**
+     * Checks if a plugin class implements this hook.
+     * @param pluginClass The plugin class.
+     * @return true if the class overrides a method of this hook; false otherwise.
+     */
+    public abstract boolean isImplementedBy(final Class<? extends Plugin> pluginClass);
+
+    /**
+     * Checks if a plugin class overrides a public method declared by {@link Plugin}.
+     * @param pluginClass    The plugin class.
+     * @param name           The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     * @return true if the method is declared by a subclass of {@link Plugin}; false otherwise.
+     */
+    private static boolean overrides(
+        final Class<? extends Plugin> pluginClass,
+        final String name,
+        final Class<?>... parameterTypes
+    ) {
+        try {
+            return pluginClass.getMethod(name, parameterTypes).getDeclaringClass() != Plugin.class;
+        } catch (final NoSuchMethodException e) {
+            throw new RuntimeException("Fail to find plugin hook method: " + name, e);
+        }
+    }
+}
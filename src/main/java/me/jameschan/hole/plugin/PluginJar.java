@@ -1,24 +1,187 @@
 package me.jameschan.hole.plugin;
 
-import java.io.File;
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 
-public class PluginJar {
-    final File file;
+/**
+ * A plugin packaged as a JAR file. The main attributes of the JAR manifest describe the plugin, so
+ * it can be indexed at startup without loading any of its classes:
+ * <ul>
+ *     <li>{@code Hole-Plugin-Class}: the class that extends {@link Plugin};</li>
+ *     <li>{@code Hole-Plugin-Commands}: the comma-separated names of the commands it registers,
+ *     such as {@code weather, weather today};</li>
+ *     <li>{@code Hole-Plugin-Hooks}: the comma-separated {@link PluginHook} names it implements.
+ *     </li>
+ * </ul>
+ * The plugin class is loaded the first time it is needed, by a class loader of its own, so plugins
+ * cannot see each other's classes and a plugin that is never used costs nothing but its manifest.
+ */
+public class PluginJar implements Closeable {
+    public static final String PLUGIN_CLASS_ATTRIBUTE = "Hole-Plugin-Class";
+    public static final String COMMANDS_ATTRIBUTE = "Hole-Plugin-Commands";
+    public static final String HOOKS_ATTRIBUTE = "Hole-Plugin-Hooks";
 
-    public PluginJar(final String jarFileName) {
-        file = new File(jarFileName);
+    /**
+     * The path of the JAR file.
+     */
+    private final Path path;
+
+    /**
+     * The name of the plugin class.
+     */
+    private final String className;
+
+    /**
+     * The names of the commands the plugin registers.
+     */
+    private final List<String> commandList;
+
+    /**
+     * The hooks the plugin implements.
+     */
+    private final Set<PluginHook> hookSet;
+
+    /**
+     * The class loader of the plugin; or {@code null} if the plugin class is not loaded yet.
+     */
+    private URLClassLoader classLoader;
+
+    /**
+     * The plugin class; or {@code null} if it is not loaded yet.
+     */
+    private Class<? extends Plugin> pluginClass;
+
+    private PluginJar(
+        final Path path,
+        final String className,
+        final List<String> commandList,
+        final Set<PluginHook> hookSet
+    ) {
+        this.path = path;
+        this.className = className;
+        this.commandList = commandList;
+        this.hookSet = hookSet;
     }
 
-    public void loadPluginClass() throws MalformedURLException {
-        final var url = file.toURI().toURL();
-        try (final URLClassLoader classLoader = new URLClassLoader(new URL[]{url})) {
-            final var className = file.getName() + "Plugin";
-            classLoader.loadClass(className);
-        } catch (final Exception e) {
-            throw new RuntimeException(e);
+    /**
+     * Reads the description of a plugin from the manifest of a JAR file, without loading classes.
+     * @param path The path of the JAR file.
+     * @return the plugin JAR; or {@code null} if the JAR file does not describe a plugin.
+     * @throws PluginLoadingException if the JAR file could not be read, or names an unknown hook.
+     */
+    public static PluginJar read(final Path path) {
+        final Attributes attributes;
+        try (final var jarFile = new JarFile(path.toFile())) {
+            final var manifest = jarFile.getManifest();
+            if (manifest == null) {
+                return null;
+            }
+
+            attributes = manifest.getMainAttributes();
+        } catch (final IOException e) {
+            throw new PluginLoadingException(e);
         }
+
+        final var className = attributes.getValue(PLUGIN_CLASS_ATTRIBUTE);
+        if (className == null || className.isBlank()) {
+            return null;
+        }
+
+        final var commandList = split(attributes.getValue(COMMANDS_ATTRIBUTE));
+        final var hookSet = EnumSet.noneOf(PluginHook.class);
+        for (final var hookName : split(attributes.getValue(HOOKS_ATTRIBUTE))) {
+            try {
+                hookSet.add(PluginHook.valueOf(hookName));
+            } catch (final IllegalArgumentException e) {
+                throw new PluginLoadingException(
+                    "Unknown plugin hook in " + path + ": " + hookName
+                );
+            }
+        }
+
+        return new PluginJar(path, className.trim(), commandList, hookSet);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public List<String> commandList() {
+        return commandList;
+    }
+
+    public Set<PluginHook> hookSet() {
+        return hookSet;
+    }
+
+    /**
+     * Checks if the plugin class has been loaded.
+     * @return true if the plugin class has been loaded; false otherwise.
+     */
+    public synchronized boolean isLoaded() {
+        return pluginClass != null;
+    }
+
+    /**
+     * Loads the plugin class with a class loader of its own, whose parent is the class loader of
+     * the application, if it is not loaded yet.
+     * @return the plugin class.
+     * @throws PluginLoadingException if the class could not be loaded or does not extend
+     *                                {@link Plugin}.
+     */
+    public synchronized Class<? extends Plugin> loadPluginClass() {
+        if (pluginClass != null) {
+            return pluginClass;
+        }
+
+        try {
+            classLoader = new URLClassLoader(
+                new URL[]{path.toUri().toURL()},
+                Plugin.class.getClassLoader()
+            );
+            pluginClass = Class.forName(className, false, classLoader).asSubclass(Plugin.class);
+        } catch (final MalformedURLException | ClassNotFoundException | ClassCastException e) {
+            throw new PluginLoadingException(e);
+        }
+
+        return pluginClass;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (classLoader == null) {
+            return;
+        }
+
+        try {
+            classLoader.close();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to close plugin class loader: " + path, e);
+        }
+    }
+
+    private static List<String> split(final String value) {
+        if (value == null) {
+            return List.of();
+        }
+
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(item -> !item.isEmpty())
+            .toList();
     }
 }
@@ -9,6 +9,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -56,18 +57,44 @@ public class PluginLoader extends HoleAppBased {
         return pluginInstance;
     }
 
-    public List<Plugin> loadPluginDir(final Path dirPath) {
-        final var pluginList = new ArrayList<Plugin>();
-
-        try (final var directoryStream = Files.newDirectoryStream(dirPath)) {
-            for (final Path path : directoryStream) {
-                if (!Files.isDirectory(path)) continue;
-                System.out.println(path.getFileName().toFile().getAbsoluteFile());
+    /**
+     * Indexes the plugin JARs of a directory by reading their manifests; no plugin class is loaded.
+     * JAR files that do not describe a plugin are skipped. A path to a JAR file is indexed as the
+     * only JAR of its directory.
+     * @param dirPath The directory of plugin JARs, or a plugin JAR.
+     * @return the plugin JARs, sorted by file name; empty if the directory does not exist.
+     * @throws PluginLoadingException if the directory or a JAR file could not be read.
+     */
+    public List<PluginJar> loadPluginDir(final Path dirPath) {
+        final var pluginJarList = new ArrayList<PluginJar>();
+        if (Files.isRegularFile(dirPath)) {
+            final var pluginJar = PluginJar.read(dirPath);
+            if (pluginJar != null) {
+                pluginJarList.add(pluginJar);
             }
+
+            return pluginJarList;
+        }
+
+        if (!Files.isDirectory(dirPath)) {
+            return pluginJarList;
+        }
+
+        final var pathList = new ArrayList<Path>();
+        try (final var directoryStream = Files.newDirectoryStream(dirPath, "*.jar")) {
+            directoryStream.forEach(pathList::add);
         } catch (final IOException e) {
-            throw new RuntimeException(e);
+            throw new PluginLoadingException(e);
+        }
+
+        pathList.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        for (final var path : pathList) {
+            final var pluginJar = PluginJar.read(path);
+            if (pluginJar != null) {
+                pluginJarList.add(pluginJar);
+            }
         }
 
-        return pluginList;
+        return pluginJarList;
     }
 }
@@ -4,4 +4,8 @@ public class PluginLoadingException extends RuntimeException {
     public PluginLoadingException(final Exception exception) {
         super(exception);
     }
+
+    public PluginLoadingException(final String message) {
+        super(message);
+    }
 }
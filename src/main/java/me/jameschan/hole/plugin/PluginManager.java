@@ -3,17 +3,46 @@ package me.jameschan.hole.plugin;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.extend.HoleManager;
 import me.jameschan.hole.plugin.builtin.keyvalue.KeyValuePlugin;
+import me.jameschan.hole.plugin.builtin.server.ServerPlugin;
 import me.jameschan.hole.plugin.builtin.time.TimePlugin;
 
-import java.util.*;
+import me.jameschan.hole.common.Forkable;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.handler.HandlerManager;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.StreamSupport;
 
 /**
  * Manages plugins within an application, handling registration, enabling, disabling, and traversal
  * of plugins. This manager extends {@code HoleManager} to leverage application context-specific
  * functionalities. It maintains a collection of plugins, allowing for dynamic manipulation based on
  * runtime conditions.
+ * <p>
+ * Hooks of enabled plugins run in the order of a {@link PluginGraph}, which respects the
+ * {@link me.jameschan.hole.annotation.DependsOn} annotations of the plugins. Hooks that only
+ * enrich a state, such as creating an entry or printing a bundle, run concurrently on virtual
+ * threads for plugins that do not depend on each other; every plugin works on a fork of the state,
+ * and forks are merged in plugin order, so the result is the same as if the hooks ran one by one.
+ * <p>
+ * Plugins are {@link LazyPlugin lazy}: builtin plugins, and plugin JARs found on the plugin path
+ * ({@link ConfigManager#PLUGIN_PATH}), are only indexed when this manager is initialized. Their
+ * commands are registered with loaders, and they are constructed, initialized and enabled the first
+ * time one of their commands is dispatched or one of their hooks is called, so a command that no
+ * plugin takes part in, such as {@code --version}, constructs no plugin at all.
  */
 public class PluginManager extends HoleManager {
     /**
@@ -24,13 +53,38 @@ public class PluginManager extends HoleManager {
     /**
      * A mapping of plugin class names to their respective instances.
      */
-    private final Map<String, Plugin> byClassName = new HashMap<>();
+    private final Map<String, Plugin> byClassName = new ConcurrentHashMap<>();
 
     /**
      * A set of currently enabled plugins.
      */
     private final Set<Plugin> enabledPluginSet = new HashSet<>();
 
+    /**
+     * The order of the enabled plugins, which is replaced whenever a plugin is enabled or disabled.
+     */
+    private volatile PluginGraph enabledPluginGraph = PluginGraph.EMPTY;
+
+    /**
+     * The indexed plugin JARs.
+     */
+    private final List<PluginJar> pluginJarList = new ArrayList<>();
+
+    /**
+     * The indexed lazy plugins, builtin ones first.
+     */
+    private final List<LazyPlugin> lazyPluginList = new ArrayList<>();
+
+    /**
+     * The lazy plugins that are not loaded yet, by the ordinal of the hooks they implement.
+     */
+    private volatile LazyPlugin[][] pendingByHook = new LazyPlugin[PluginHook.values().length][0];
+
+    /**
+     * The executor that runs the hooks of independent plugins concurrently.
+     */
+    private final ExecutorService hookExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     /**
      * Constructs a {@code PluginManager} object, linking it with the application context.
      * @param app The application instance this manager is associated with.
@@ -43,36 +97,218 @@ public class PluginManager extends HoleManager {
     @Override
     public void init() {
         super.init();
-        load(KeyValuePlugin.class);
-        load(TimePlugin.class);
 
-//        final var classpath = System.getProperty("java.class.path");
-//        final var classpathArray = classpath.split(":");
-//        Arrays.stream(classpathArray).forEach(System.out::println);
+        // Like plugin JARs, builtin plugins declare their hooks, which must match the methods
+        // they override, so indexing them does not link their classes
+        index(LazyPlugin.builtin(
+            KeyValuePlugin.class,
+            EnumSet.of(PluginHook.AFTER_CREATE_ENTRY),
+            () -> new KeyValuePlugin(app),
+            "kv new", "kv get", "key"
+        ));
+        index(LazyPlugin.builtin(
+            TimePlugin.class,
+            EnumSet.of(PluginHook.ON_CREATE_ENTRY),
+            () -> new TimePlugin(app)
+        ));
+        index(LazyPlugin.builtin(
+            ServerPlugin.class,
+            EnumSet.noneOf(PluginHook.class),
+            () -> new ServerPlugin(app),
+            "serve"
+        ));
+        indexPluginJars();
+        updatePending();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        byClassName.values().forEach(Plugin::destroy);
+        hookExecutor.close();
+        pluginJarList.forEach(PluginJar::close);
+    }
+
+    /**
+     * Indexes the plugin JARs on the plugin path, which lists directories or JAR files separated
+     * by the path separator of the platform. No plugin class is loaded.
+     */
+    private synchronized void indexPluginJars() {
+        final var pluginPath = use(ConfigManager.class).getDynamic()
+            .get(ConfigManager.PLUGIN_PATH);
+        if (pluginPath == null) {
+            return;
+        }
+
+        for (final var dir : pluginPath.split(File.pathSeparator)) {
+            if (dir.isBlank()) {
+                continue;
+            }
+
+            for (final var pluginJar : pluginLoader.loadPluginDir(Path.of(dir))) {
+                pluginJarList.add(pluginJar);
+                index(LazyPlugin.of(pluginJar, pluginLoader));
+            }
+        }
+    }
+
+    /**
+     * Indexes a lazy plugin, registering its commands with loaders.
+     * @param lazyPlugin The lazy plugin.
+     */
+    private synchronized void index(final LazyPlugin lazyPlugin) {
+        lazyPluginList.add(lazyPlugin);
+        final var handlerManager = use(HandlerManager.class);
+        for (final var command : lazyPlugin.commandList()) {
+            handlerManager.registerLazyHandler(command, () -> load(lazyPlugin));
+        }
+    }
+
+    /**
+     * Returns the plugin JARs indexed from the plugin path, whether their plugins are loaded or
+     * not.
+     * @return the plugin JARs.
+     */
+    public synchronized List<PluginJar> getPluginJars() {
+        return List.copyOf(pluginJarList);
+    }
+
+    /**
+     * Constructs, initializes and enables a lazy plugin, unless it is loaded already.
+     * @param lazyPlugin The lazy plugin.
+     * @throws RuntimeException if the plugin could not be loaded.
+     */
+    private synchronized void load(final LazyPlugin lazyPlugin) {
+        if (byClassName.containsKey(lazyPlugin.className())) {
+            return;
+        }
+
+        final Plugin plugin;
+        try {
+            plugin = lazyPlugin.constructor().get();
+        } catch (final RuntimeException e) {
+            throw new RuntimeException(
+                "Fail to load and initialize plugin: " + lazyPlugin.className(),
+                e
+            );
+        }
+
+        load(plugin);
+        enable(lazyPlugin.className());
+        updatePending();
+    }
+
+    /**
+     * Loads the lazy plugins that implement a hook, if any of them is not loaded yet.
+     * @param hook The hook.
+     */
+    private void loadPending(final PluginHook hook) {
+        final var pending = pendingByHook[hook.ordinal()];
+        if (pending.length == 0) {
+            return;
+        }
+
+        for (final var lazyPlugin : pending) {
+            load(lazyPlugin);
+        }
+    }
+
+    /**
+     * Recomputes the lazy plugins that are not loaded yet by hook.
+     */
+    private synchronized void updatePending() {
+        final var newPendingByHook = new LazyPlugin[PluginHook.values().length][];
+        for (final var hook : PluginHook.values()) {
+            newPendingByHook[hook.ordinal()] = lazyPluginList.stream()
+                .filter(lazyPlugin -> lazyPlugin.hookSet().contains(hook))
+                .filter(lazyPlugin -> !byClassName.containsKey(lazyPlugin.className()))
+                .toArray(LazyPlugin[]::new);
+        }
+
+        pendingByHook = newPendingByHook;
+    }
+
+    /**
+     * Finds an indexed lazy plugin by the name of its class.
+     * @param className The name of the plugin class.
+     * @return the lazy plugin; or {@code null} if no such plugin is indexed.
+     */
+    private synchronized LazyPlugin findLazy(final String className) {
+        for (final var lazyPlugin : lazyPluginList) {
+            if (lazyPlugin.className().equals(className)) {
+                return lazyPlugin;
+            }
+        }
+
+        return null;
     }
 
     /**
      * Loads a plugin class.
      * @param Class A class that extends the {@code Plugin} class in this package.
      */
-    public void load(final Class<? extends Plugin> Class) {
+    public synchronized void load(final Class<? extends Plugin> Class) {
+        final Plugin plugin;
         try {
-            final var plugin = pluginLoader.loadByClass(Class);
-            plugin.init();
-            byClassName.put(Class.getName(), plugin);
+            plugin = pluginLoader.loadByClass(Class);
         } catch (final RuntimeException e) {
             throw new RuntimeException("Fail to load and initialize plugin: " + Class.getName(), e);
         }
+
+        load(plugin);
     }
 
     /**
-     * Enables a plugin by its name, making it active within the application.
+     * Initializes a plugin constructed by the caller, such as a builtin plugin, which does not
+     * need its constructor to be looked up by reflection.
+     * @param plugin The plugin.
+     */
+    public synchronized void load(final Plugin plugin) {
+        final var className = plugin.getClass().getName();
+        try {
+            plugin.init();
+            byClassName.put(className, plugin);
+        } catch (final RuntimeException e) {
+            throw new RuntimeException("Fail to load and initialize plugin: " + className, e);
+        }
+    }
+
+    /**
+     * Returns a plugin, loading it first if it is an indexed lazy plugin that is not loaded yet.
+     * @param pluginClass The class of the plugin.
+     * @return the plugin; or {@code null} if the plugin is neither loaded nor indexed.
+     */
+    public <T extends Plugin> T get(final Class<T> pluginClass) {
+        final var className = pluginClass.getName();
+        if (!byClassName.containsKey(className)) {
+            final var lazyPlugin = findLazy(className);
+            if (lazyPlugin != null) {
+                load(lazyPlugin);
+            }
+        }
+
+        return pluginClass.cast(byClassName.get(className));
+    }
+
+    /**
+     * Enables a plugin by its name, making it active within the application. A lazy plugin that is
+     * not loaded yet is loaded, which enables it.
      * @param pluginName The name of the plugin to enable.
      */
-    public void enable(final String pluginName) {
+    public synchronized void enable(final String pluginName) {
         final var plugin = byClassName.get(pluginName);
-        if (plugin != null) {
-            enabledPluginSet.add((Plugin) plugin.useThis());
+        if (plugin == null) {
+            final var lazyPlugin = findLazy(pluginName);
+            if (lazyPlugin != null) {
+                load(lazyPlugin);
+            }
+        } else {
+            if (enabledPluginSet.add((Plugin) plugin.useThis())) {
+                enabledPluginGraph = new PluginGraph(enabledPluginSet);
+                if (PluginHook.CONFIG.isImplementedBy(plugin.getClass())) {
+                    use(ConfigManager.class).addPlugin(plugin);
+                }
+            }
         }
     }
 
@@ -80,25 +316,103 @@ public class PluginManager extends HoleManager {
      * Disables a plugin by its name, removing it from the set of active plugins.
      * @param pluginName The name of the plugin to disable.
      */
-    public void disable(final String pluginName) {
+    public synchronized void disable(final String pluginName) {
         final var plugin = byClassName.get(pluginName);
-        enabledPluginSet.remove(plugin);
+        if (enabledPluginSet.remove(plugin)) {
+            enabledPluginGraph = new PluginGraph(enabledPluginSet);
+        }
     }
 
     /**
-     * Returns an iterable collection of all enabled plugins.
+     * Returns an iterable collection of all enabled plugins, in the order in which their hooks
+     * run.
      * @return An iterable of enabled plugins.
      */
     public Iterable<Plugin> getEnabledPlugins() {
-        return enabledPluginSet;
+        return enabledPluginGraph.ordered();
     }
 
     /**
-     * Performs an action on each enabled plugin.
+     * Performs an action on each enabled plugin, one by one, in the order in which their hooks
+     * run.
      * @param callback The action to perform on each plugin.
      */
     public void forEachEnabled(final Consumer<Plugin> callback) {
-        StreamSupport.stream(getEnabledPlugins().spliterator(), false)
-            .forEach(callback);
+        enabledPluginGraph.ordered().forEach(callback);
+    }
+
+    /**
+     * Performs a hook on each enabled plugin implementing it, one by one, in the order in which
+     * their hooks run. This is meant for hooks that must not run concurrently, such as those that
+     * consume the tokens of a command line.
+     * @param hook     The hook.
+     * @param callback The action to perform on each plugin implementing the hook.
+     */
+    public void forEachEnabled(final PluginHook hook, final Consumer<Plugin> callback) {
+        loadPending(hook);
+        for (final var plugin : enabledPluginGraph.ordered(hook)) {
+            callback.accept(plugin);
+        }
+    }
+
+    /**
+     * Performs a hook on each enabled plugin implementing it, running the hooks of plugins that do
+     * not depend on each other concurrently. Each of those plugins works on a fork of the state,
+     * and the forks are merged into the state in plugin order once all of them are done, so the
+     * effects of the hooks are merged deterministically. A plugin that is alone in its wave works
+     * on the state itself.
+     * @param hook     The hook.
+     * @param state    The state the hooks work on.
+     * @param callback The action to perform on each plugin implementing the hook with its state.
+     * @param <T>      The type of the state.
+     * @throws RuntimeException the exception of the first plugin, in plugin order, whose hook
+     *                          failed; no fork of its wave is merged then.
+     */
+    public <T extends Forkable<T>> void forkEachEnabled(
+        final PluginHook hook,
+        final T state,
+        final BiConsumer<Plugin, T> callback
+    ) {
+        loadPending(hook);
+        for (final var wave : enabledPluginGraph.waves(hook)) {
+            if (wave.length == 1) {
+                callback.accept(wave[0], state);
+                continue;
+            }
+
+            final List<T> forkList = new ArrayList<>(wave.length);
+            final List<Future<?>> futureList = new ArrayList<>(wave.length);
+            for (final var plugin : wave) {
+                final var fork = state.fork();
+                forkList.add(fork);
+                futureList.add(hookExecutor.submit(() -> callback.accept(plugin, fork)));
+            }
+
+            for (final var future : futureList) {
+                joinHook(future);
+            }
+
+            forkList.forEach(state::merge);
+        }
+    }
+
+    /**
+     * Waits for the hook of a plugin to finish, rethrowing its exception.
+     * @param future The future of the hook.
+     * @throws RuntimeException if the hook failed or the current thread was interrupted.
+     */
+    private static void joinHook(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new RuntimeException("Fail to run plugin hook", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Fail to run plugin hook", e);
+        }
     }
 }
@@ -2,11 +2,20 @@ package me.jameschan.hole.plugin.builtin.keyvalue;
 
 import me.jameschan.hole.command.Command;
 import me.jameschan.hole.command.CommandTemplate;
+import me.jameschan.hole.command.OptionTemplate;
 import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.entry.Entry;
 import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.entry.EntryNotFoundException;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.handler.Handler;
 
+/**
+ * Finds the values of entries by key. Besides an exact key, a prefix ({@code --prefix}) or a
+ * lexicographic range of keys ({@code --range <from> <to>}, where {@code to} is exclusive) can be
+ * given, in which case every matching key is printed along with its values.
+ */
 public class KeyHandler extends Handler {
     protected final KeyValuePlugin keyValuePlugin;
 
@@ -14,18 +23,86 @@ public class KeyHandler extends Handler {
      * Constructs a new {@code Handler} with the specified {@link CommandTemplate}.
      */
     protected KeyHandler(final KeyValuePlugin keyValuePlugin) {
-        super(new CommandTemplate());
+        super(new CommandTemplate() {{
+            addOptionTemplate(new OptionTemplate("prefix", 'p', 1));
+            addOptionTemplate(new OptionTemplate("range", 'r', 2));
+        }});
         this.keyValuePlugin = keyValuePlugin;
     }
 
     @Override
     public void handle(final Command command, final Bundle bundle, final HoleApp app) {
-        final var key = command.args().getFirst();
-        final var idList = keyValuePlugin.byKey.get(key);
+        final var index = keyValuePlugin.index();
         final var entryManager = app.use(EntryManager.class);
-        idList.forEach(id -> {
-            final var entry = entryManager.getById(id);
-            bundle.buffer.append(entry.get("value")).append(System.lineSeparator());
-        });
+        final var prefixOption = command.getOption("prefix");
+        final var rangeOption = command.getOption("range");
+
+        if (prefixOption != null) {
+            index.forEachWithPrefix(prefixOption.args().getFirst(), (key, idList) ->
+                idList.forEach(id -> appendKeyValue(bundle, key, find(entryManager, id)))
+            );
+        } else if (rangeOption != null) {
+            final var rangeArgs = rangeOption.args();
+            index.forEachInRange(rangeArgs.getFirst(), rangeArgs.get(1), (key, idList) ->
+                idList.forEach(id -> appendKeyValue(bundle, key, find(entryManager, id)))
+            );
+        } else {
+            if (command.args().isEmpty()) {
+                bundle.buffer.append("Usage: key <key> | key --prefix <prefix> | ")
+                    .append("key --range <from> <to>");
+                bundle.statusCode = StatusCode.INVALID_COMMAND;
+                return;
+            }
+
+            final var idList = index.get(command.args().getFirst());
+            if (idList != null) {
+                idList.forEach(id -> {
+                    final var entry = find(entryManager, id);
+                    if (entry != null) {
+                        bundle.buffer.append(valueOf(entry)).append(System.lineSeparator());
+                    }
+                });
+            }
+        }
+
+        bundle.statusCode = StatusCode.SUCCESS;
+    }
+
+    /**
+     * Appends a key and the value of its entry to the output, unless the entry is missing.
+     * @param bundle The bundle.
+     * @param key    The key.
+     * @param entry  The entry; or {@code null} if it is missing.
+     */
+    private static void appendKeyValue(final Bundle bundle, final String key, final Entry entry) {
+        if (entry != null) {
+            bundle.buffer.append(key).append(": ").append(valueOf(entry))
+                .append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Finds an entry of the index. The index is written after the entries, so it should not refer
+     * to a missing entry; but if it does, the entry is skipped rather than failing the listing.
+     * @param entryManager The entry manager.
+     * @param id           The ID of the entry.
+     * @return the entry; or {@code null} if it does not exist.
+     */
+    private static Entry find(final EntryManager entryManager, final int id) {
+        try {
+            return entryManager.getById(id);
+        } catch (final EntryNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of an entry. Entries with a key but no value, such as those created with
+     * the builtin {@code new} command, have an empty value.
+     * @param entry The entry.
+     * @return the value; or an empty string if the entry has none.
+     */
+    private static String valueOf(final Entry entry) {
+        return entry.has("value") ? entry.get("value") : "";
     }
 }
@@ -0,0 +1,366 @@
+package me.jameschan.hole.plugin.builtin.keyvalue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+
+/**
+ * A persistent secondary index that maps keys to the IDs of the entries having them. Keys are kept
+ * sorted in a skip list, which supports exact lookups as well as prefix and lexicographic range
+ * scans, and the IDs of every key are kept in a primitive {@link PostingList}.
+ * <p>
+ * The index is persisted in two files: a snapshot holding all keys in sorted order, and a journal
+ * that every added key is appended to. Opening the index loads the snapshot and replays the
+ * journal; closing it folds the journal into a new snapshot once the journal has grown large. IDs
+ * are added in roughly ascending order, so the highest indexed ID tells which entries may be
+ * missing after a crash. An index of entries that are only kept in memory is not persisted.
+ */
+public class KeyIndex implements Closeable {
+    /**
+     * Identifies a snapshot file.
+     */
+    private static final int MAGIC = 0x484f4b49;
+
+    /**
+     * The version of the snapshot file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size the journal may reach before it is folded into the snapshot.
+     */
+    private static final long SNAPSHOT_THRESHOLD = 1 << 20;
+
+    /**
+     * The maximum length of a key in bytes.
+     */
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    private static final String SNAPSHOT_FILE = "keys.snapshot";
+    private static final String JOURNAL_FILE = "keys.journal";
+
+    /**
+     * The directory that holds the index files; or {@code null} if the index is not persisted.
+     */
+    private final Path dir;
+
+    /**
+     * The sorted mapping of keys to the IDs of the entries having them.
+     */
+    private final ConcurrentSkipListMap<String, PostingList> byKey = new ConcurrentSkipListMap<>();
+
+    /**
+     * The stream that added keys are appended to; or {@code null} if the index is not persisted.
+     */
+    private DataOutputStream journal;
+
+    /**
+     * The size of the journal in bytes.
+     */
+    private long journalSize;
+
+    /**
+     * The highest ID in this index.
+     */
+    private volatile int maxId = 0;
+
+    private KeyIndex(final Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Opens an index, creating it if it does not exist.
+     * @param dir The directory that holds the index files.
+     * @return the opened index.
+     * @throws RuntimeException if the index could not be opened.
+     */
+    public static KeyIndex open(final Path dir) {
+        final var index = new KeyIndex(dir);
+        try {
+            Files.createDirectories(dir);
+            index.load();
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to open key index: " + dir, e);
+        }
+
+        return index;
+    }
+
+    /**
+     * Creates an index that is only kept in memory.
+     * @return the created index.
+     */
+    public static KeyIndex create() {
+        return new KeyIndex(null);
+    }
+
+    /**
+     * Returns the highest ID in this index.
+     * @return the highest ID; or 0 if the index is empty.
+     */
+    public int maxId() {
+        return maxId;
+    }
+
+    /**
+     * Adds an ID to the posting list of a key.
+     * @param key The key.
+     * @param id  The ID of an entry having the key.
+     * @throws RuntimeException if the key could not be written to the journal.
+     */
+    public synchronized void add(final String key, final int id) {
+        if (journal == null) {
+            addInMemory(key, id);
+            return;
+        }
+
+        try {
+            journalSize += writeString(journal, key);
+            journal.writeInt(id);
+            journalSize += 4;
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to write key index journal: " + dir, e);
+        }
+
+        addInMemory(key, id);
+    }
+
+    /**
+     * Returns the IDs of the entries having a key.
+     * @param key The key.
+     * @return the posting list of the key; or {@code null} if no entry has the key.
+     */
+    public PostingList get(final String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * Performs the given action for each key starting with a prefix, in lexicographic order.
+     * @param prefix The prefix.
+     * @param action The action to perform for each key and its posting list.
+     */
+    public void forEachWithPrefix(
+        final String prefix,
+        final BiConsumer<String, PostingList> action
+    ) {
+        for (final var entry : byKey.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Performs the given action for each key in a lexicographic range, in lexicographic order.
+     * @param from   The lowest key, inclusive.
+     * @param to     The highest key, exclusive.
+     * @param action The action to perform for each key and its posting list.
+     */
+    public void forEachInRange(
+        final String from,
+        final String to,
+        final BiConsumer<String, PostingList> action
+    ) {
+        if (from.compareTo(to) >= 0) {
+            return;
+        }
+
+        byKey.subMap(from, true, to, false).forEach(action);
+    }
+
+    /**
+     * Removes all keys from this index, and from its files if it is persisted.
+     * @throws RuntimeException if the index files could not be cleared.
+     */
+    public synchronized void clear() {
+        byKey.clear();
+        maxId = 0;
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+            Files.deleteIfExists(dir.resolve(SNAPSHOT_FILE));
+            journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                dir.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )));
+            journalSize = 0;
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to clear key index: " + dir, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+            if (journalSize > SNAPSHOT_THRESHOLD) {
+                writeSnapshot();
+                Files.write(dir.resolve(JOURNAL_FILE), new byte[0]);
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to close key index: " + dir, e);
+        }
+    }
+
+    private void addInMemory(final String key, final int id) {
+        byKey.computeIfAbsent(key, k -> new PostingList()).add(id);
+        maxId = Math.max(maxId, id);
+    }
+
+    /**
+     * Loads the snapshot and replays the journal, truncating a torn record at its end.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void load() throws IOException {
+        final var snapshotPath = dir.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try (final var input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath))
+            )) {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                    throw new IOException("Not a key index snapshot: " + snapshotPath);
+                }
+
+                maxId = input.readInt();
+                final var keyCount = input.readInt();
+                for (var i = 0; i < keyCount; ++i) {
+                    final var key = readString(input);
+                    final var idCount = input.readInt();
+                    final var postingList = new PostingList(idCount);
+                    for (var j = 0; j < idCount; ++j) {
+                        postingList.add(input.readInt());
+                    }
+
+                    byKey.put(key, postingList);
+                }
+            }
+        }
+
+        final var journalPath = dir.resolve(JOURNAL_FILE);
+        final var snapshotMaxId = maxId;
+        journalSize = 0;
+        if (Files.exists(journalPath)) {
+            try (final var input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(journalPath))
+            )) {
+                while (true) {
+                    final String key;
+                    final int id;
+                    try {
+                        key = readString(input);
+                        id = input.readInt();
+                    } catch (final EOFException e) {
+                        break;
+                    }
+
+                    // The journal may not have been cleared after the last snapshot
+                    if (id > snapshotMaxId) {
+                        addInMemory(key, id);
+                    }
+
+                    journalSize += 4 + key.getBytes(StandardCharsets.UTF_8).length + 4;
+                }
+            }
+
+            try (final var channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(journalSize);
+            }
+        }
+
+        journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+            journalPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND
+        )));
+    }
+
+    /**
+     * Writes all keys to a new snapshot, replacing the previous one atomically.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void writeSnapshot() throws IOException {
+        final var tempPath = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (final var output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tempPath))
+        )) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(maxId);
+            output.writeInt(byKey.size());
+            for (final var entry : byKey.entrySet()) {
+                writeString(output, entry.getKey());
+                final var postingList = entry.getValue();
+                output.writeInt(postingList.size());
+                for (var i = 0; i < postingList.size(); ++i) {
+                    output.writeInt(postingList.get(i));
+                }
+            }
+        }
+
+        Files.move(
+            tempPath,
+            dir.resolve(SNAPSHOT_FILE),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     * @param output The stream to write to.
+     * @param string The string to write.
+     * @return the number of bytes written.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static int writeString(final DataOutputStream output, final String string)
+        throws IOException {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+
+        return 4 + bytes.length;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     * @param input The stream to read from.
+     * @return the string.
+     * @throws IOException if an I/O error occurs.
+     * @throws EOFException  if the stream ends before the string, or the string is torn.
+     */
+    private static String readString(final DataInputStream input) throws IOException {
+        final var length = input.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            // Only a torn record can have an impossible length
+            throw new EOFException("Invalid string length: " + length);
+        }
+
+        final var bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
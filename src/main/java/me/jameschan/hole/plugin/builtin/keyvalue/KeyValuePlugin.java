@@ -1,15 +1,42 @@
 package me.jameschan.hole.plugin.builtin.keyvalue;
 
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.entry.EntryNotFoundException;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.plugin.Plugin;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class KeyValuePlugin extends Plugin {
-    protected Map<String, List<Integer>> byKey = new HashMap<>();
+    /**
+     * The property that entries are indexed by.
+     */
+    public static final String KEY = "key";
+
+    /**
+     * The name of the directory of the index, next to the directory of the storage.
+     */
+    private static final String INDEX_DIR = "keyvalue";
+
+    /**
+     * The index of keys, which is opened the first time it is needed.
+     */
+    private volatile KeyIndex keyIndex;
+
+    /**
+     * The highest entry ID when the index was caught up with the entry store. Entries up to this
+     * ID have been indexed while catching up, and are not registered again.
+     */
+    private int caughtUpId;
+
+    /**
+     * The IDs up to {@link #caughtUpId} that were allocated but not written yet while catching up,
+     * because another thread was creating them.
+     */
+    private final Set<Integer> missedIdSet = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructs an HoleAppBased object.
@@ -21,12 +48,121 @@ public class KeyValuePlugin extends Plugin {
 
     @Override
     protected void initHandlers() {
-        registerHandler("new", new NewHandler(this), true);
-        registerHandler("key", new KeyHandler(this), true);
+        final var keyHandler = new KeyHandler(this);
+        registerHandler("kv new", new NewHandler(this), false);
+        registerHandler("kv get", keyHandler, false);
+        registerHandler("key", keyHandler, false);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (keyIndex != null) {
+            keyIndex.close();
+        }
+    }
+
+    /**
+     * Returns the index of keys, opening it if necessary. The index lives with the entries: it is
+     * persisted in the {@code keyvalue} directory next to the directory of the storage, or only
+     * kept in memory if the entries are. Entries created after the index was last written, for
+     * example because the process died before the journal was flushed, are indexed when the index
+     * is opened; and an index that is ahead of the storage, whose entries must have been removed,
+     * is rebuilt.
+     * @return the index of keys.
+     */
+    public KeyIndex index() {
+        final var index = keyIndex;
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (this) {
+            if (keyIndex == null) {
+                final var entryManager = app.use(EntryManager.class);
+                final var storageDir = entryManager.getStorageDir();
+                final var openedIndex = storageDir == null
+                    ? KeyIndex.create()
+                    : KeyIndex.open(storageDir.resolveSibling(INDEX_DIR));
+
+                caughtUpId = entryManager.getMaxId();
+                if (openedIndex.maxId() > caughtUpId) {
+                    openedIndex.clear();
+                }
+
+                for (var id = openedIndex.maxId() + 1; id <= caughtUpId; ++id) {
+                    try {
+                        final var entry = entryManager.getById(id);
+                        if (entry.has(KEY)) {
+                            openedIndex.add(entry.get(KEY), id);
+                        }
+                    } catch (final EntryNotFoundException e) {
+                        // The entry was never written, or is being created by another thread
+                        missedIdSet.add(id);
+                    }
+                }
+
+                keyIndex = openedIndex;
+            }
+
+            return keyIndex;
+        }
     }
 
-    public void register(final String key, final int id) {
-        final List<Integer> idList = byKey.computeIfAbsent(key, k -> new ArrayList<>());
-        idList.add(id);
+    /**
+     * Indexes every newly written entry that has a key, however it was created. Entries are only
+     * indexed here if the index is open; otherwise they are indexed when it is opened, so creating
+     * an entry does not open the index.
+     * @param entry The entry written.
+     */
+    @Override
+    public void afterCreateEntry(final Entry entry) {
+        final var index = openedIndex();
+        if (index != null && entry.has(KEY)) {
+            add(index, entry);
+        }
+    }
+
+    @Override
+    public void afterCreateEntries(final List<Entry> entryList) {
+        final var index = openedIndex();
+        if (index == null) {
+            return;
+        }
+
+        for (final var entry : entryList) {
+            if (entry.has(KEY)) {
+                add(index, entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of keys if it is open. If the index is being opened, this waits until it is
+     * caught up, so an entry written before is either caught up with or added by the caller.
+     * @return the index of keys; or {@code null} if it is not open.
+     */
+    private KeyIndex openedIndex() {
+        final var index = keyIndex;
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (this) {
+            return keyIndex;
+        }
+    }
+
+    /**
+     * Adds a newly created entry to the index, unless it was indexed while catching up. This is
+     * safe to call from multiple threads, in any order of IDs.
+     * @param index The index of keys.
+     * @param entry The entry, which has a key.
+     */
+    private void add(final KeyIndex index, final Entry entry) {
+        final var id = entry.getId();
+        if (id > caughtUpId || missedIdSet.remove(id)) {
+            index.add(entry.get(KEY), id);
+        }
     }
 }
@@ -3,6 +3,7 @@ package me.jameschan.hole.plugin.builtin.keyvalue;
 import me.jameschan.hole.command.Command;
 import me.jameschan.hole.command.CommandTemplate;
 import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.StatusCode;
 import me.jameschan.hole.entry.EntryManager;
 import me.jameschan.hole.extend.HoleApp;
 import me.jameschan.hole.handler.Handler;
@@ -26,16 +27,14 @@ public class NewHandler extends Handler {
         final var key = args.getFirst();
         final var value = args.get(1);
         final var entryManager = app.use(EntryManager.class);
-        final var entry = entryManager.create(new HashMap<>() {{
+        entryManager.create(new HashMap<>() {{
             put("key", key);
             put("value", value);
         }});
 
-        // Register this to the plugin
-        keyValuePlugin.register(key, entry.getId());
-
         bundle.buffer.append("You've created a new entry: key: ")
             .append(key).append(" ; value: ")
             .append(value);
+        bundle.statusCode = StatusCode.SUCCESS;
     }
 }
@@ -0,0 +1,78 @@
+package me.jameschan.hole.plugin.builtin.keyvalue;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A growable list of entry IDs stored as primitive integers. IDs are appended by a single writer at
+ * a time; readers see every ID that was appended before they read the size.
+ */
+public class PostingList {
+    /**
+     * The IDs in the order they were added.
+     */
+    private int[] ids;
+
+    /**
+     * The number of IDs in this list.
+     */
+    private volatile int size = 0;
+
+    /**
+     * Constructs an empty posting list with the given initial capacity.
+     * @param capacity The initial capacity.
+     */
+    public PostingList(final int capacity) {
+        this.ids = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Constructs an empty posting list.
+     */
+    public PostingList() {
+        this(2);
+    }
+
+    /**
+     * Appends an ID to this list.
+     * @param id The ID to append.
+     */
+    void add(final int id) {
+        final var currentSize = size;
+        if (currentSize == ids.length) {
+            ids = Arrays.copyOf(ids, currentSize * 2);
+        }
+
+        ids[currentSize] = id;
+        size = currentSize + 1;
+    }
+
+    /**
+     * Returns the number of IDs in this list.
+     * @return the number of IDs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ID at the given position.
+     * @param index The position of the ID.
+     * @return the ID.
+     */
+    public int get(final int index) {
+        return ids[index];
+    }
+
+    /**
+     * Performs the given action for each ID in this list.
+     * @param action The action to perform.
+     */
+    public void forEach(final IntConsumer action) {
+        final var currentSize = size;
+        final var currentIds = ids;
+        for (var i = 0; i < currentSize; ++i) {
+            action.accept(currentIds[i]);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package me.jameschan.hole.plugin.builtin.server;
+
+import me.jameschan.hole.command.Command;
+import me.jameschan.hole.command.CommandTemplate;
+import me.jameschan.hole.command.OptionTemplate;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.Handler;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the HTTP server of the {@link ServerPlugin} until the process is terminated. The server
+ * listens on {@code localhost:8080} unless {@code --host} or {@code --port} is given. Since the
+ * command does not return, it is refused when sent to a daemon.
+ */
+public class ServeHandler extends Handler {
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    protected final ServerPlugin serverPlugin;
+
+    /**
+     * Constructs a new {@code Handler} with the specified {@link CommandTemplate}.
+     */
+    protected ServeHandler(final ServerPlugin serverPlugin) {
+        super(new CommandTemplate() {{
+            addOptionTemplate(new OptionTemplate("host", 'h', 1));
+            addOptionTemplate(new OptionTemplate("port", 'p', 1));
+        }});
+        this.serverPlugin = serverPlugin;
+    }
+
+    @Override
+    public void handle(final Command command, final Bundle bundle, final HoleApp app) {
+        // A daemon executes one command at a time, so serving there would block it for good
+        if (bundle.getEnv().daemon()) {
+            bundle.statusCode = StatusCode.INVALID_COMMAND;
+            bundle.buffer.append("Cannot serve from the daemon; stop it with --daemon-stop first.");
+            return;
+        }
+
+        final var hostOption = command.getOption("host");
+        final var portOption = command.getOption("port");
+        final var host = hostOption == null ? "localhost" : hostOption.args().getFirst();
+        final var port = portOption == null
+            ? DEFAULT_PORT
+            : parsePort(portOption.args().getFirst());
+        if (port < 0) {
+            bundle.statusCode = StatusCode.INVALID_COMMAND;
+            bundle.buffer.append("Invalid port: ").append(portOption.args().getFirst());
+            return;
+        }
+
+        final var configManager = app.use(ConfigManager.class);
+        configManager.setReloadErrorHandler((path, e) -> System.err.println(e.getMessage()));
+        configManager.watch();
+        final var address = serverPlugin.start(new InetSocketAddress(host, port));
+        bundle.buffer.append("Listening on http://" + host + ":" + address.getPort())
+            .append(System.lineSeparator());
+        bundle.buffer.flush();
+
+        // Serve until the process is terminated; the server is stopped when the app is destroyed
+        final var terminated = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            app.destroy();
+            terminated.countDown();
+        }));
+
+        try {
+            terminated.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        bundle.statusCode = StatusCode.SUCCESS;
+    }
+
+    /**
+     * Parses a port number.
+     * @param string The string to parse.
+     * @return the port; or -1 if the string is not a port number.
+     */
+    private static int parsePort(final String string) {
+        try {
+            final var port = Integer.parseInt(string);
+            return port <= 0xFFFF ? port : -1;
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+}
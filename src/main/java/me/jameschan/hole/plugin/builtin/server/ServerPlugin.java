@@ -1,9 +1,64 @@
 package me.jameschan.hole.plugin.builtin.server;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.StatusCode;
 import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+import me.jameschan.hole.handler.HandlerNotFoundException;
 import me.jameschan.hole.plugin.Plugin;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exposes the handler pipeline over HTTP. The path segments name the command, and the repeated
+ * {@code arg} query parameters followed by the JSON array of strings in the request body, if any,
+ * are its raw arguments; {@code GET /kv/get?arg=apple} runs the same command as
+ * {@code hole kv get apple}. The status code and output of the command are returned as a JSON
+ * {@link ServerResponse}.
+ * <p>
+ * Every request is served on its own virtual thread, so thousands of slow or idle connections cost
+ * no platform threads. Commands are executed concurrently, so the handlers and plugins of the app
+ * must be thread-safe, which the builtin ones are.
+ */
 public class ServerPlugin extends Plugin {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * The number of pending connections the server queues before refusing new ones.
+     */
+    private static final int BACKLOG = 4096;
+
+    static {
+        // The server writes headers and body separately; without TCP_NODELAY every response of a
+        // kept-alive connection waits for the delayed ACK of the client
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * The running HTTP server; or {@code null} if the server is not running.
+     */
+    private HttpServer server;
+
+    /**
+     * The executor that runs every request on a new virtual thread.
+     */
+    private ExecutorService executor;
+
     /**
      * Constructs an HoleAppBased object.
      * @param app The application instance this object is based upon.
@@ -11,4 +66,143 @@ public class ServerPlugin extends Plugin {
     public ServerPlugin(final HoleApp app) {
         super(app);
     }
+
+    @Override
+    protected void initHandlers() {
+        registerHandler("serve", new ServeHandler(this), false);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        stop();
+    }
+
+    /**
+     * Starts the HTTP server.
+     * @param address The address to listen on; port 0 picks an ephemeral port.
+     * @return the address the server is listening on.
+     * @throws IllegalStateException if the server is already running.
+     * @throws RuntimeException      if the server could not be bound.
+     */
+    public synchronized InetSocketAddress start(final InetSocketAddress address) {
+        if (server != null) {
+            throw new IllegalStateException("Server is already running: " + server.getAddress());
+        }
+
+        try {
+            server = HttpServer.create(address, BACKLOG);
+        } catch (final IOException e) {
+            throw new RuntimeException("Fail to start server: " + address, e);
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::serve);
+        server.start();
+
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the HTTP server if it is running, waiting for the requests being served to finish.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(0);
+        executor.close();
+        server = null;
+        executor = null;
+    }
+
+    private void serve(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            ServerResponse response;
+            int httpStatus;
+            try {
+                final var rawArgs = parseRawArgs(exchange);
+                final var bundle = Bundle.create();
+                app.use(HandlerManager.class).handleRawArgs(rawArgs, bundle);
+
+                final var statusCode = bundle.statusCode;
+                httpStatus = statusCode == StatusCode.INVALID_COMMAND ? 400 : 200;
+                response = new ServerResponse(
+                    statusCode.getCode(),
+                    statusCode.name(),
+                    bundle.buffer.toString().trim()
+                );
+            } catch (final HandlerNotFoundException e) {
+                httpStatus = 404;
+                response = errorResponse(StatusCode.INVALID_COMMAND, e);
+            } catch (final JsonParseException e) {
+                httpStatus = 400;
+                response = errorResponse(StatusCode.INVALID_COMMAND, e);
+            } catch (final RuntimeException e) {
+                httpStatus = 500;
+                response = errorResponse(StatusCode.ERROR, e);
+            }
+
+            final var body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(httpStatus, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static ServerResponse errorResponse(
+        final StatusCode statusCode,
+        final RuntimeException e
+    ) {
+        final var message = e.getMessage() == null ? e.toString() : e.getMessage();
+        return new ServerResponse(statusCode.getCode(), statusCode.name(), message);
+    }
+
+    /**
+     * Converts a request into raw arguments: the command named by the path segments, the
+     * {@code arg} query parameters, and the JSON array of strings in the body.
+     * @param exchange The exchange of the request.
+     * @return the raw arguments.
+     * @throws IOException        if the body could not be read.
+     * @throws JsonParseException if the body is not a JSON array of strings.
+     */
+    private static List<String> parseRawArgs(final HttpExchange exchange) throws IOException {
+        final var rawArgs = new ArrayList<String>();
+
+        final var path = exchange.getRequestURI().getPath();
+        for (final var word : path.split("/")) {
+            if (!word.isEmpty()) {
+                rawArgs.add(word);
+            }
+        }
+
+        final var query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (final var param : query.split("&")) {
+                final var separator = param.indexOf('=');
+                if (separator < 0 || !param.substring(0, separator).equals("arg")) {
+                    continue;
+                }
+
+                rawArgs.add(URLDecoder.decode(
+                    param.substring(separator + 1),
+                    StandardCharsets.UTF_8
+                ));
+            }
+        }
+
+        try (final var reader = new InputStreamReader(
+            exchange.getRequestBody(),
+            StandardCharsets.UTF_8
+        )) {
+            final var bodyArgs = GSON.fromJson(reader, String[].class);
+            if (bodyArgs != null) {
+                rawArgs.addAll(List.of(bodyArgs));
+            }
+        }
+
+        return rawArgs;
+    }
 }
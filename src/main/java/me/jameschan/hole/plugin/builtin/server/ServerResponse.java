@@ -0,0 +1,14 @@
+package me.jameschan.hole.plugin.builtin.server;
+
+/**
+ * The JSON body of a response of the HTTP server.
+ * @param statusCode The code of the status code of the command.
+ * @param status     The name of the status code of the command.
+ * @param output     The trimmed output of the command; or the error message if the command failed.
+ */
+public record ServerResponse(
+    int statusCode,
+    String status,
+    String output
+) {
+}
@@ -13,6 +13,9 @@ public class TimePlugin extends Plugin {
 
     @Override
     public void onCreateEntry(final Entry entry) {
-        entry.set("time", Long.toString(System.currentTimeMillis()));
+        // Keep the time of an imported entry
+        if (!entry.has("time")) {
+            entry.set("time", Long.toString(System.currentTimeMillis()));
+        }
     }
 }
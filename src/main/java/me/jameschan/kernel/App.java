@@ -1,77 +1,253 @@
 package me.jameschan.kernel;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
 
 /**
  * Central application class responsible for managing and providing access to various manager
  * objects. Utilizes a type-safe approach to store and retrieve manager instances based on their
- * class.
+ * class. Managers are constructed by the {@link ManagerFactory factories} the app lists, and used
+ * very often, such as on every command and entry creation, so {@link #use(Class)} is a scan of a
+ * small array that does not allocate.
+ * <p>
+ * Managers are initialized lazily, the first time they are used, after the managers their factories
+ * declare as dependencies. A short-lived command therefore only initializes the managers it needs.
+ * Long-lived apps can initialize all managers at once with {@link #initAll()}, which initializes
+ * managers that do not depend on each other concurrently.
  */
 public class App {
     /**
-     * A map to store instances of managers by their class type. This allows for type-safe retrieval
-     * of manager instances throughout the application, ensuring that only one instance of each
-     * manager is created and reused, following the Singleton pattern for each type of manager.
+     * The classes of the managers, in the order in which the managers were constructed. Apps have
+     * a handful of managers, so finding a class by identity in this array, which fits in a cache
+     * line or two, is faster than any hash lookup.
      */
-    protected final Map<Class<? extends Manager<?>>, Manager<?>> byClass = new HashMap<>();
+    private final Class<?>[] managerClasses;
 
     /**
-     * Constructs an App instance and initializes all provided manager classes. Each manager is
-     * instantiated with this App instance as a constructor argument. The provided manager classes
-     * should all have a constructor that takes the given app class as parameter.
-     * @param appClass         The class of the app.
-     * @param managerClassList List of manager classes to be instantiated and stored.
-     * @throws IllegalArgumentException if any manager could not be instantiated.
+     * The managers, at the same indexes as their classes. This ensures that only one instance of
+     * each manager is created and reused, following the Singleton pattern for each type of
+     * manager.
      */
-    public App(
-        final Class<? extends App> appClass,
-        final List<Class<? extends Manager<?>>> managerClassList
-    ) {
-        for (final var managerClass : managerClassList) {
-            try {
-                final var manager = managerClass
-                    .getDeclaredConstructor(appClass)
-                    .newInstance(this);
-                byClass.put(managerClass, manager);
-            } catch (final Exception e) {
-                final var message = String.format(
-                    "Could not instantiate manager of class: %s",
-                    managerClass.getSimpleName()
+    private final Manager<?>[] managers;
+
+    /**
+     * The indexes of the dependencies of every manager, by the index of the manager.
+     */
+    private final int[][] dependencyIndexes;
+
+    /**
+     * The indexes of all managers, ordered so that every manager follows its dependencies.
+     */
+    private final int[] initOrder;
+
+    /**
+     * The managers in the order in which they were constructed.
+     */
+    protected final List<Manager<?>> managerList = new ArrayList<>();
+
+    /**
+     * Whether this app has been destroyed.
+     */
+    private boolean destroyed = false;
+
+    /**
+     * Constructs an App instance and constructs the managers of the given factories, in order,
+     * with this App instance as their argument. Exceptions thrown by the constructor of a manager
+     * are propagated to the caller.
+     * @param factoryList List of the factories of the managers to be constructed and stored.
+     * @param <A>         The type of this app, which the managers are constructed with.
+     * @throws IllegalArgumentException if two factories construct managers of the same class, or
+     *                                  a manager depends on a manager that does not exist or on
+     *                                  itself, directly or not.
+     */
+    @SuppressWarnings("unchecked")
+    protected <A extends App> App(final List<ManagerFactory<A, ?>> factoryList) {
+        managerClasses = new Class<?>[factoryList.size()];
+        managers = new Manager<?>[factoryList.size()];
+        for (var i = 0; i < factoryList.size(); ++i) {
+            final var factory = factoryList.get(i);
+            if (indexOf(factory.managerClass()) >= 0) {
+                throw new IllegalArgumentException(
+                    "Manager is registered twice: " + factory.managerClass().getSimpleName()
                 );
-                throw new IllegalArgumentException(message);
             }
+
+            final var manager = factory.constructor().apply((A) this);
+            managerClasses[i] = factory.managerClass();
+            managers[i] = manager;
+            managerList.add(manager);
         }
+
+        dependencyIndexes = new int[factoryList.size()][];
+        for (var i = 0; i < factoryList.size(); ++i) {
+            final var factory = factoryList.get(i);
+            dependencyIndexes[i] = factory.dependencyList().stream().mapToInt(dependency -> {
+                final var index = indexOf(dependency);
+                if (index < 0) {
+                    throw new IllegalArgumentException(String.format(
+                        "Manager %s depends on a manager that does not exist: %s",
+                        factory.managerClass().getSimpleName(),
+                        dependency.getSimpleName()
+                    ));
+                }
+
+                return index;
+            }).toArray();
+        }
+
+        final var initOrderList = new ArrayList<Integer>();
+        final var visited = new boolean[managers.length];
+        for (var i = 0; i < managers.length; ++i) {
+            addToInitOrder(i, visited, new boolean[managers.length], initOrderList);
+        }
+
+        initOrder = initOrderList.stream().mapToInt(Integer::intValue).toArray();
     }
 
     /**
-     * Constructs an App instance and initializes all provided manager classes. Each manager is
-     * instantiated with this App instance as a constructor argument.
-     * @param managerClassList List of manager classes to be instantiated and stored.
-     * @throws IllegalArgumentException if any manager could not be instantiated.
+     * Adds a manager to the init order after its dependencies, unless it is added already.
+     * @param index         The index of the manager.
+     * @param visited       Whether every manager has been added.
+     * @param onPath        Whether every manager is being added, to detect cycles.
+     * @param initOrderList The init order.
+     * @throws IllegalArgumentException if the manager depends on itself through the path.
      */
-    public App(final List<Class<? extends Manager<?>>> managerClassList) {
-        this(App.class, managerClassList);
+    private void addToInitOrder(
+        final int index,
+        final boolean[] visited,
+        final boolean[] onPath,
+        final List<Integer> initOrderList
+    ) {
+        if (visited[index]) {
+            return;
+        }
+
+        if (onPath[index]) {
+            throw new IllegalArgumentException(
+                "Managers depend on each other in a cycle: " + managerClasses[index].getSimpleName()
+            );
+        }
+
+        onPath[index] = true;
+        for (final var dependencyIndex : dependencyIndexes[index]) {
+            addToInitOrder(dependencyIndex, visited, onPath, initOrderList);
+        }
+
+        onPath[index] = false;
+        visited[index] = true;
+        initOrderList.add(index);
     }
 
     /**
-     * Retrieves an instance of the specified manager class.
+     * Retrieves an instance of the specified manager class, initializing it after its dependencies
+     * if this is the first time it is used.
      * @param managerClass The class of the manager to retrieve.
      * @return The manager instance of the specified class.
      * @throws IllegalArgumentException if the manager does not exist.
      */
     public <T extends Manager<?>> T use(final Class<T> managerClass) {
-        return Optional.of(this.byClass.get(managerClass))
-            .map(Usable::useThis)
-            .map(managerClass::cast)
-            .orElseThrow(() -> {
-                final var message = String.format(
-                    "Manager does not exist: %s",
-                    managerClass.getSimpleName()
-                );
-                return new IllegalArgumentException(message);
-            });
+        final var index = indexOf(managerClass);
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                "Manager does not exist: " + managerClass.getSimpleName()
+            );
+        }
+
+        final var manager = managers[index];
+        if (!manager.isReady()) {
+            initDependencies(index);
+        }
+
+        manager.useThis();
+        return managerClass.cast(manager);
+    }
+
+    /**
+     * Initializes the dependencies of a manager, and their dependencies first, unless they are
+     * initialized already.
+     * @param index The index of the manager.
+     */
+    private void initDependencies(final int index) {
+        for (final var dependencyIndex : dependencyIndexes[index]) {
+            if (!managers[dependencyIndex].isReady()) {
+                initDependencies(dependencyIndex);
+                managers[dependencyIndex].useThis();
+            }
+        }
+    }
+
+    /**
+     * Initializes all managers that are not initialized yet. Every manager is initialized on a
+     * thread of its own as soon as its dependencies are, so managers that do not depend on each
+     * other are initialized concurrently. This returns when all managers are initialized. The
+     * threads are platform threads, since a manager is initialized while its monitor is held,
+     * which would pin a virtual thread to its carrier for all the blocking the init does.
+     * <p>
+     * Managers must declare every manager they use while they are initialized: a manager used but
+     * not declared may be initialized concurrently, or wait for the manager using it.
+     * @throws RuntimeException the exception of the first manager, in init order, that failed to
+     *                          initialize.
+     */
+    public void initAll() {
+        final var futures = new CompletableFuture<?>[managers.length];
+        try (final var executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofPlatform().name("hole-init-", 0).factory()
+        )) {
+            for (final var index : initOrder) {
+                final var indexes = dependencyIndexes[index];
+                final var dependencyFutures = new CompletableFuture<?>[indexes.length];
+                for (var i = 0; i < dependencyFutures.length; ++i) {
+                    dependencyFutures[i] = futures[indexes[i]];
+                }
+
+                futures[index] = CompletableFuture.allOf(dependencyFutures)
+                    .thenRunAsync(managers[index]::useThis, executor);
+            }
+
+            for (final var index : initOrder) {
+                futures[index].join();
+            }
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new RuntimeException("Fail to initialize managers", e.getCause());
+        }
+    }
+
+    /**
+     * Finds the index of a manager class.
+     * @param managerClass The class of the manager.
+     * @return the index; or -1 if this app has no manager of the class.
+     */
+    private int indexOf(final Class<?> managerClass) {
+        for (var i = 0; i < managerClasses.length; ++i) {
+            if (managerClasses[i] == managerClass) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Destroys all managers in the reverse order of their construction, so that managers are
+     * destroyed before the managers constructed earlier than them. Destroying an app more than
+     * once, such as from a shutdown hook and the main thread, has no further effect.
+     */
+    public synchronized void destroy() {
+        if (destroyed) {
+            return;
+        }
+
+        destroyed = true;
+        final var reversedManagerList = new ArrayList<>(managerList);
+        Collections.reverse(reversedManagerList);
+        reversedManagerList.forEach(Manager::destroy);
     }
 }
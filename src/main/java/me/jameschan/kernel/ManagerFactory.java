@@ -0,0 +1,47 @@
+package me.jameschan.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Creates the manager of a class for an app. Apps list the factories of their managers, usually as
+ * constructor references, so that managers are constructed without reflection and a manager
+ * without a matching constructor does not compile.
+ * <p>
+ * A factory also declares the managers the manager uses while it is initialized, which are
+ * initialized before it. Managers only used later, such as while handling a command, need not be
+ * declared.
+ * @param managerClass   The class of the manager, by which the manager is used.
+ * @param constructor    The function that constructs the manager for an app.
+ * @param dependencyList The classes of the managers the manager uses while it is initialized.
+ * @param <A>            The type of the app.
+ * @param <T>            The type of the manager.
+ */
+public record ManagerFactory<A extends App, T extends Manager<?>>(
+    Class<T> managerClass,
+    Function<A, T> constructor,
+    List<Class<? extends Manager<?>>> dependencyList
+) {
+    /**
+     * Creates a manager factory.
+     * @param managerClass The class of the manager.
+     * @param constructor  The function that constructs the manager for an app.
+     * @param dependencies The classes of the managers the manager uses while it is initialized.
+     * @return the manager factory.
+     */
+    @SafeVarargs
+    public static <A extends App, T extends Manager<?>> ManagerFactory<A, T> of(
+        final Class<T> managerClass,
+        final Function<A, T> constructor,
+        final Class<? extends Manager<?>>... dependencies
+    ) {
+        // Copy the classes one by one, since handing the array over could leak it
+        final var dependencyList = new ArrayList<Class<? extends Manager<?>>>(dependencies.length);
+        for (final var dependency : dependencies) {
+            dependencyList.add(dependency);
+        }
+
+        return new ManagerFactory<>(managerClass, constructor, List.copyOf(dependencyList));
+    }
+}
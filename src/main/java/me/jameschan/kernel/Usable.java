@@ -13,7 +13,14 @@ public abstract class Usable implements Initiable, Destroyable {
     /**
      * Indicates if the object has been destroyed.
      */
-    private boolean destroyed = false;
+    private volatile boolean destroyed = false;
+
+    /**
+     * Indicates if the object has been used after its initialization completed. Derived classes
+     * usually set up their state after calling {@code super.init()}, so {@code initiated} alone
+     * does not tell other threads that the object is ready.
+     */
+    private volatile boolean ready = false;
 
     /**
      * Destroys the object.
@@ -32,7 +39,18 @@ public abstract class Usable implements Initiable, Destroyable {
     }
 
     /**
-     * Checks if the object is initialized and initializes it if necessary.
+     * Checks if the object has been used after its initialization completed, in which case using
+     * it again does not initialize it.
+     * @return true if the object is ready; false otherwise.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Checks if the object is initialized and initializes it if necessary. If several threads use
+     * an object that is not initialized yet, it is initialized only once, and all of them wait for
+     * the initialization to complete.
      * @param autoInit If true, initializes the object if it's not already initialized.
      * @return The Usable object.
      * @throws RuntimeException if the object has been destroyed or not initiated.
@@ -42,12 +60,22 @@ public abstract class Usable implements Initiable, Destroyable {
             throw new RuntimeException("Usable class has been destroyed: " + getClass().getName());
         }
 
-        if (!initiated && autoInit) {
-            this.init();
+        if (ready) {
+            return this;
         }
 
-        if (!initiated) {
-            throw new RuntimeException("Usable class has not been initiated: " + getClass().getName());
+        synchronized (this) {
+            if (!initiated && autoInit) {
+                this.init();
+            }
+
+            if (!initiated) {
+                throw new RuntimeException(
+                    "Usable class has not been initiated: " + getClass().getName()
+                );
+            }
+
+            ready = true;
         }
 
         return this;
@@ -0,0 +1,180 @@
+import me.jameschan.kernel.App;
+import me.jameschan.kernel.Manager;
+import me.jameschan.kernel.ManagerFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AppTest {
+    @Test
+    public void testUse() {
+        final var app = new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new),
+            ManagerFactory.of(SecondManager.class, SecondManager::new)
+        ));
+        final var firstManager = app.use(FirstManager.class);
+        assertSame(app.use(FirstManager.class), firstManager);
+        assertSame(firstManager.app(), app);
+        assertEquals(firstManager.initCount, 1);
+
+        app.destroy();
+        assertEquals(app.destroyedList, List.of("second", "first"));
+    }
+
+    @Test
+    public void testUseMissingManager() {
+        final var app = new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new)
+        ));
+        final var e = assertThrows(
+            IllegalArgumentException.class,
+            () -> app.use(SecondManager.class)
+        );
+        assertEquals(e.getMessage(), "Manager does not exist: SecondManager");
+    }
+
+    @Test
+    public void testConstructorFailure() {
+        final var e = assertThrows(IllegalStateException.class, () -> new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, app -> {
+                throw new IllegalStateException("Fail to connect");
+            })
+        )));
+        assertEquals(e.getMessage(), "Fail to connect");
+    }
+
+    @Test
+    public void testDuplicateManager() {
+        assertThrows(IllegalArgumentException.class, () -> new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new),
+            ManagerFactory.of(FirstManager.class, FirstManager::new)
+        )));
+    }
+
+    @Test
+    public void testLazyInitInDependencyOrder() {
+        final var app = new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new, SecondManager.class),
+            ManagerFactory.of(SecondManager.class, SecondManager::new)
+        ));
+        assertEquals(app.initList, List.of());
+
+        app.use(FirstManager.class);
+        assertEquals(app.initList, List.of("second", "first"));
+    }
+
+    @Test
+    public void testInitAllConcurrently() {
+        final var app = new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new, SecondManager.class),
+            ManagerFactory.of(SecondManager.class, SecondManager::new),
+            ManagerFactory.of(LatchManager.class, LatchManager::new),
+            ManagerFactory.of(OtherLatchManager.class, OtherLatchManager::new)
+        ));
+
+        // The latch managers only both get past the latch if they are initialized concurrently
+        app.initAll();
+        assertEquals(app.initList.size(), 4);
+        assertTrue(app.initList.indexOf("second") < app.initList.indexOf("first"));
+    }
+
+    @Test
+    public void testInvalidDependencies() {
+        assertThrows(IllegalArgumentException.class, () -> new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new, SecondManager.class)
+        )));
+        assertThrows(IllegalArgumentException.class, () -> new TestApp(List.of(
+            ManagerFactory.of(FirstManager.class, FirstManager::new, SecondManager.class),
+            ManagerFactory.of(SecondManager.class, SecondManager::new, FirstManager.class)
+        )));
+    }
+
+    public static class TestApp extends App {
+        final List<String> destroyedList = new ArrayList<>();
+
+        final List<String> initList = Collections.synchronizedList(new ArrayList<>());
+
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        TestApp(final List<ManagerFactory<TestApp, ?>> factoryList) {
+            super(factoryList);
+        }
+    }
+
+    public static class FirstManager extends Manager<TestApp> {
+        int initCount = 0;
+
+        public FirstManager(final TestApp app) {
+            super(app);
+        }
+
+        TestApp app() {
+            return app;
+        }
+
+        @Override
+        public void init() {
+            super.init();
+            ++initCount;
+            app.initList.add("first");
+        }
+
+        @Override
+        public void destroy() {
+            super.destroy();
+            app.destroyedList.add("first");
+        }
+    }
+
+    public static class SecondManager extends Manager<TestApp> {
+        public SecondManager(final TestApp app) {
+            super(app);
+        }
+
+        @Override
+        public void init() {
+            super.init();
+            app.initList.add("second");
+        }
+
+        @Override
+        public void destroy() {
+            super.destroy();
+            app.destroyedList.add("second");
+        }
+    }
+
+    public static class LatchManager extends Manager<TestApp> {
+        public LatchManager(final TestApp app) {
+            super(app);
+        }
+
+        @Override
+        public void init() {
+            super.init();
+            app.latch.countDown();
+            try {
+                assertTrue(app.latch.await(10, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            app.initList.add(getClass().getSimpleName());
+        }
+    }
+
+    public static class OtherLatchManager extends LatchManager {
+        public OtherLatchManager(final TestApp app) {
+            super(app);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import me.jameschan.hole.command.CommandLineSplitter;
+import me.jameschan.hole.command.UnterminatedQuoteException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class CommandLineSplitterTest {
+    @Test
+    public void testSplit() {
+        assertEquals(CommandLineSplitter.split(" new  key value "), List.of("new", "key", "value"));
+        assertEquals(CommandLineSplitter.split(""), List.of());
+
+        // Quotes and escapes
+        assertEquals(
+            CommandLineSplitter.split("new \"a key\" 'c:\\dir' a\\ b \"\""),
+            List.of("new", "a key", "c:\\dir", "a b", "")
+        );
+        assertEquals(CommandLineSplitter.split("new 'say \"hi\"'"), List.of("new", "say \"hi\""));
+
+        assertThrowsExactly(UnterminatedQuoteException.class, () ->
+            CommandLineSplitter.split("new \"key")
+        );
+    }
+}
@@ -0,0 +1,48 @@
+import me.jameschan.hole.command.CommandTemplate;
+import me.jameschan.hole.command.OptionNotFoundException;
+import me.jameschan.hole.command.OptionTemplate;
+import me.jameschan.hole.command.TokenIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandTemplateTest {
+    private final CommandTemplate template = new CommandTemplate(1) {{
+        addOptionTemplate(new OptionTemplate("prefix", 'p', 1));
+        addOptionTemplate(new OptionTemplate("range", 'r', 2));
+        addOptionTemplate(new OptionTemplate("all"));
+        addOptionTemplate(new OptionTemplate("été", 'é'));
+    }};
+
+    @Test
+    public void testMake() {
+        final var command = template.make(new TokenIterator(
+            List.of("arg", "-ap", "first", "--range", "a", "b", "-é", "--prefix", "second")
+        ));
+
+        assertEquals(command.args(), List.of("arg"));
+        assertEquals(command.options().size(), 5);
+        assertEquals(command.getOption("prefix").args(), List.of("first"));
+        assertEquals(command.getOption(template.indexOf("range")).args(), List.of("a", "b"));
+        assertEquals(command.getOption("all").args(), List.of());
+        assertEquals(command.getOption(3).template().longLabel(), "été");
+        assertNull(command.getOption("missing"));
+        assertEquals(template.indexOf("missing"), -1);
+    }
+
+    @Test
+    public void testOptionNotFound() {
+        assertThrows(
+            OptionNotFoundException.class,
+            () -> template.make(new TokenIterator(List.of("arg", "-x")))
+        );
+        assertThrows(
+            OptionNotFoundException.class,
+            () -> template.make(new TokenIterator(List.of("arg", "--")))
+        );
+    }
+}
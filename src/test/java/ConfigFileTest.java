@@ -0,0 +1,196 @@
+import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
+import me.jameschan.hole.config.ConfigFileReader;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.plugin.Plugin;
+import me.jameschan.hole.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConfigFileTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testParse() throws IOException {
+        final var path = home.dir().resolve("config.json");
+        Files.writeString(path, """
+            {
+              "plugin": {"path": "/opt/hole", "enabled": null},
+              "retries": 3,
+              "ratio": 0.5,
+              "verbose": true,
+              "hosts": ["a", 1, {"port": 80}]
+            }
+            """);
+
+        final var data = new ConfigFileReader(null).read(path);
+        assertEquals(List.copyOf(data.keySet()), List.of(
+            "plugin.path", "plugin.enabled", "retries", "ratio", "verbose", "hosts"
+        ));
+        assertEquals(data.get("plugin.path"), "/opt/hole");
+        assertNull(data.get("plugin.enabled"));
+        assertEquals(data.get("retries"), 3L);
+        assertEquals(data.get("ratio"), 0.5);
+        assertEquals(data.get("verbose"), true);
+        assertEquals(data.get("hosts"), List.of("a", 1L, Map.of("port", 80L)));
+
+        Files.writeString(path, "[1, 2]");
+        assertThrows(RuntimeException.class, () -> new ConfigFileReader(null).read(path));
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        final var path = home.dir().resolve("config.json");
+        final var cacheDir = home.dir().resolve("cache");
+        Files.writeString(path, "{\"name\": \"apple\", \"list\": [1.5, false, null]}");
+        final var modifiedTime = FileTime.fromMillis(1_700_000_000_000L);
+        Files.setLastModifiedTime(path, modifiedTime);
+
+        final var reader = new ConfigFileReader(cacheDir);
+        final var parsed = reader.read(path);
+        assertEquals(parsed.get("name"), "apple");
+        try (final var files = Files.list(cacheDir)) {
+            assertEquals(files.count(), 1L);
+        }
+
+        // Same size and modification time: the cached result is used instead of the file
+        Files.writeString(path, "{\"name\": \"mango\", \"list\": [1.5, false, null]}");
+        Files.setLastModifiedTime(path, modifiedTime);
+        final var cached = reader.read(path);
+        assertEquals(cached, parsed);
+        assertEquals(cached.get("list"), Arrays.asList(1.5, false, null));
+
+        // A new modification time invalidates the cache
+        Files.setLastModifiedTime(path, FileTime.fromMillis(1_700_000_001_000L));
+        assertEquals(reader.read(path).get("name"), "mango");
+    }
+
+    @Test
+    public void testUserConfig() throws IOException {
+        Files.writeString(
+            home.dir().resolve("config.json"),
+            "{\"plugin\": {\"path\": \"/opt/plugins\"}, \"weather\": {\"city\": \"Paris\"}}"
+        );
+
+        final var app = home.newApp();
+        final var configManager = app.use(ConfigManager.class);
+        final var config = configManager.getDynamic();
+        assertEquals(config.get(ConfigManager.KEY_PLUGIN_PATH), "/opt/plugins");
+
+        // Keys of a plugin are loaded from the file when the plugin adds them
+        assertNull(config.get("weather.city"));
+        final var pluginManager = app.use(PluginManager.class);
+        pluginManager.load(WeatherPlugin.class);
+        pluginManager.enable(WeatherPlugin.class.getName());
+        assertEquals(config.get("weather.city"), "Paris");
+    }
+
+    @Test
+    public void testHotReload() throws IOException, InterruptedException {
+        final var configPath = home.dir().resolve("config.json");
+        Files.writeString(configPath, "{\"weather\": {\"city\": \"Paris\"}}");
+
+        final var app = home.newApp();
+        final var configManager = app.use(ConfigManager.class);
+        final var pluginManager = app.use(PluginManager.class);
+        pluginManager.load(WeatherPlugin.class);
+        pluginManager.enable(WeatherPlugin.class.getName());
+        final var plugin = pluginManager.get(WeatherPlugin.class);
+        assertEquals(plugin.configCount, 1);
+
+        configManager.watch();
+        final var version = configManager.configStack.snapshot().version();
+        Files.writeString(configPath, """
+            {"plugin": {"path": "/opt/plugins"}, "weather": {"city": "Oslo"}}
+            """);
+
+        final var config = configManager.getDynamic();
+        final var deadline = System.nanoTime() + 10_000_000_000L;
+        while (!"Oslo".equals(config.get("weather.city")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(config.get("weather.city"), "Oslo");
+        assertEquals(config.get(ConfigManager.KEY_PLUGIN_PATH), "/opt/plugins");
+        assertTrue(configManager.configStack.snapshot().version() > version);
+        assertTrue(plugin.configCount > 1);
+
+        // Deleting the file empties its level, so the defaults show through again
+        Files.delete(configPath);
+        while (config.get("weather.city") != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(config.get("weather.city"));
+        assertEquals(
+            config.get(ConfigManager.KEY_PLUGIN_PATH),
+            home.dir().resolve("plugins").toString()
+        );
+    }
+
+    @Test
+    public void testWatchMissingDirectory() throws IOException, InterruptedException {
+        final var configPath = home.dir().resolve("missing/nested/config.json");
+        home.setProperty(ConfigManager.USER_CONFIG_PROPERTY, configPath.toString());
+
+        final var app = home.newApp();
+        final var configManager = app.use(ConfigManager.class);
+        final var errorPathList = new CopyOnWriteArrayList<Path>();
+        configManager.setReloadErrorHandler((path, e) -> errorPathList.add(path));
+        configManager.watch();
+
+        // The file is picked up once its directories are created
+        Files.createDirectories(configPath.getParent());
+        Files.writeString(configPath, "{\"plugin\": {\"path\": \"/opt/plugins\"}}");
+        final var config = configManager.getDynamic();
+        final var deadline = System.nanoTime() + 10_000_000_000L;
+        while (!"/opt/plugins".equals(config.get(ConfigManager.KEY_PLUGIN_PATH))
+            && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(config.get(ConfigManager.KEY_PLUGIN_PATH), "/opt/plugins");
+
+        // A broken file is reported to the handler and keeps the old values
+        Files.writeString(configPath, "{");
+        while (errorPathList.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(errorPathList.getFirst(), configPath);
+        assertEquals(config.get(ConfigManager.KEY_PLUGIN_PATH), "/opt/plugins");
+    }
+
+    public static class WeatherPlugin extends Plugin {
+        static final ConfigKey<String> CITY = ConfigKey.of("weather.city", String.class);
+
+        volatile int configCount = 0;
+
+        public WeatherPlugin(final HoleApp app) {
+            super(app);
+        }
+
+        @Override
+        public void setConfig(final Config config) {
+            ++configCount;
+        }
+
+        @Override
+        public Collection<ConfigKey<?>> configKeys() {
+            return List.of(CITY);
+        }
+    }
+}
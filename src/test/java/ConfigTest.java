@@ -1,6 +1,8 @@
 import me.jameschan.config.Config;
+import me.jameschan.config.ConfigKey;
 import me.jameschan.config.ConfigStack;
 import me.jameschan.config.IllegalKeyException;
+import me.jameschan.config.IllegalValueException;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
@@ -9,7 +11,11 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ConfigTest {
     @Test
@@ -105,4 +111,78 @@ public class ConfigTest {
         assertEquals(dynamicConfig.get("username"), "Andrew Mo");
         assertEquals(dynamicConfig.get("age"), 24);
     }
+
+    @Test
+    public void testConfigSnapshot() {
+        final Set<String> keySet = new HashSet<>(List.of("username", "age", "sex"));
+        final var config = new Config(keySet) {{
+            set("username", "James Chan");
+            set("age", 25);
+        }};
+        final var configStack = new ConfigStack(config);
+        final var userConfig = configStack.createConfig("USER");
+
+        // Levels are sparse, so a change of a lower level shows through higher levels
+        final var before = configStack.snapshot();
+        assertNull(userConfig.get("username"));
+        configStack.load(new HashMap<>() {{
+            put("age", 26);
+        }}, ConfigStack.DEFAULT_LEVEL);
+        final var after = configStack.snapshot();
+        assertEquals(after.get("age"), 26);
+        assertEquals(after.version(), before.version() + 1);
+
+        // Snapshots never change
+        assertEquals(before.get("age"), 25);
+
+        // Higher levels override lower ones, and keys without values resolve to null
+        userConfig.set("age", 30);
+        userConfig.set("sex", "male");
+        configStack.update();
+        assertEquals(configStack.snapshot().get("age"), 30);
+        assertEquals(configStack.snapshot().get("sex"), "male");
+        assertEquals(configStack.snapshot().get("username"), "James Chan");
+        assertNull(configStack.snapshot().get("password"));
+
+        // Nothing changed, so nothing is published
+        final var version = configStack.snapshot().version();
+        configStack.update();
+        assertEquals(configStack.snapshot().version(), version);
+    }
+
+    @Test
+    public void testConfigKey() {
+        final var port = ConfigKey.of("server.port", Integer.class);
+        final var verbose = ConfigKey.of("server.verbose", Boolean.class);
+        final var host = ConfigKey.of("server.host", String.class);
+        assertSame(ConfigKey.of("server.port", Integer.class), port);
+        assertThrows(IllegalArgumentException.class, () -> ConfigKey.of("server.port", Long.class));
+
+        final Set<String> keySet = new HashSet<>(List.of(port.name(), verbose.name(), host.name()));
+        final var config = new Config(keySet) {{
+            set(host, "localhost");
+        }};
+        final var configStack = new ConfigStack(config);
+        assertEquals(configStack.getDynamic().get(host), "localhost");
+        assertEquals(configStack.snapshot().getInt(port, 8080), 8080);
+
+        // Numbers of config files are longs, and are converted to the type of the key
+        configStack.load(new HashMap<>() {{
+            put("server.port", 9000L);
+            put("server.verbose", true);
+        }});
+        final var dynamicConfig = configStack.getDynamic();
+        assertEquals(dynamicConfig.get(port), 9000);
+        assertEquals(dynamicConfig.getInt(port, 8080), 9000);
+        assertTrue(dynamicConfig.getBoolean(verbose, false));
+        assertThrowsExactly(
+            IllegalValueException.class,
+            () -> dynamicConfig.set("server.port", "x")
+        );
+
+        // A key set to null reads as the default value
+        dynamicConfig.set(port, null);
+        assertNull(dynamicConfig.get(port));
+        assertEquals(dynamicConfig.getInt(port, 8080), 8080);
+    }
 }
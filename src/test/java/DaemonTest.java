@@ -0,0 +1,56 @@
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.daemon.DaemonClient;
+import me.jameschan.hole.daemon.DaemonServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DaemonTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testExecuteAndStop() throws Exception {
+        final var socketPath = home.dir().resolve("daemon.sock");
+        final var env = new Env(home.dir().toString());
+        final var out = new StringWriter();
+        assertNull(DaemonClient.execute(socketPath, List.of("--version"), env, out));
+
+        final var server = new DaemonServer(home.newApp(), socketPath);
+        final var thread = new Thread(server::run);
+        thread.start();
+        while (!DaemonClient.isRunning(socketPath)) {
+            Thread.sleep(10);
+        }
+
+        final var response = DaemonClient.execute(socketPath, List.of("--version"), env, out);
+        assertEquals(response.statusCode(), StatusCode.SUCCESS);
+        assertEquals(out.toString(), "Hole v1.0.0" + System.lineSeparator());
+
+        // Errors are reported to the client instead of killing the daemon
+        final var error = DaemonClient.execute(socketPath, List.of("missing"), env, out);
+        assertEquals(error.statusCode(), StatusCode.ERROR);
+
+        // A batch is read by the client and forwarded line by line
+        final var batchOut = new StringWriter();
+        final var batch = new BufferedReader(
+            new StringReader("# comment\n--version\nmissing\n")
+        );
+        assertEquals(DaemonClient.executeBatch(socketPath, batch, env, batchOut), 1);
+        assertEquals(batchOut.toString().lines().toList(),
+            List.of("Hole v1.0.0", "Line 3: Handler not found: missing"));
+
+        DaemonClient.stop(socketPath);
+        thread.join();
+        assertFalse(DaemonClient.isRunning(socketPath));
+    }
+}
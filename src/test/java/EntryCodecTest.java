@@ -0,0 +1,96 @@
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.codec.EntryEncoder;
+import me.jameschan.hole.entry.codec.EntryReader;
+import me.jameschan.hole.entry.codec.MalformedRecordException;
+import me.jameschan.hole.entry.codec.NameDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EntryCodecTest {
+    @Test
+    public void testStream() {
+        final var first = new Entry(300);
+        first.set("name", "James");
+        first.set("city", "Zürich");
+        final var second = new Entry(1);
+        second.set("name", "😀 emoji");
+        second.set("note", "");
+
+        // Names are defined inline the first time, and referred to by index afterwards
+        final var encoder = new EntryEncoder(new NameDictionary(), true);
+        final var firstRecord = copy(encoder.encode(first));
+        final var secondRecord = copy(encoder.encode(second));
+        assertEquals(firstRecord.remaining(), 2 + 1 + 5 + 6 + 5 + 8);
+        assertEquals(secondRecord.remaining(), 1 + 1 + 1 + 11 + 5 + 1);
+
+        final var stream = ByteBuffer.allocate(firstRecord.remaining() + secondRecord.remaining())
+            .put(firstRecord)
+            .put(secondRecord)
+            .flip();
+        final var reader = new EntryReader(new NameDictionary());
+        reader.wrap(stream);
+        assertEquals(reader.id(), 300);
+        assertEquals(reader.get("city"), "Zürich");
+        assertEquals(properties(reader.toEntry()), Map.of("name", "James", "city", "Zürich"));
+
+        reader.wrap(stream);
+        assertEquals(reader.id(), 1);
+        assertEquals(reader.get("name"), "😀 emoji");
+        assertNull(reader.get("city"));
+        assertEquals(properties(reader.toEntry()), Map.of("name", "😀 emoji", "note", ""));
+        assertEquals(stream.remaining(), 0);
+    }
+
+    @Test
+    public void testManyProperties() {
+        final var entry = new Entry(7);
+        for (var i = 0; i < 200; ++i) {
+            entry.set("key-" + i, "value-" + i);
+        }
+
+        final var dictionary = new NameDictionary();
+        final var record = new EntryEncoder(dictionary, false).encode(entry);
+        final var reader = new EntryReader(dictionary).wrap(record);
+        assertEquals(reader.propertyCount(), 200);
+        assertEquals(reader.get("key-199"), "value-199");
+        assertEquals(properties(reader.toEntry()), properties(entry));
+    }
+
+    @Test
+    public void testMalformedRecord() {
+        final var entry = new Entry(1);
+        entry.set("name", "James");
+        final var record = copy(new EntryEncoder(new NameDictionary(), true).encode(entry));
+
+        final var truncated = record.duplicate().limit(record.limit() - 1);
+        final var dictionary = new NameDictionary();
+        final var reader = new EntryReader(dictionary);
+        assertThrows(MalformedRecordException.class, () -> reader.wrap(truncated));
+
+        // The names defined by a rejected record are not added
+        assertEquals(dictionary.size(), 0);
+        assertEquals(reader.wrap(record).get("name"), "James");
+        assertEquals(dictionary.size(), 1);
+
+        // A name referred to by index must be in the dictionary
+        final var unknownName = ByteBuffer.wrap(new byte[]{1, 1, 4, 0});
+        assertThrows(MalformedRecordException.class, () -> reader.wrap(unknownName));
+    }
+
+    private static ByteBuffer copy(final ByteBuffer buffer) {
+        return ByteBuffer.allocate(buffer.remaining()).put(buffer).flip();
+    }
+
+    private static Map<String, String> properties(final Entry entry) {
+        final var properties = new LinkedHashMap<String, String>();
+        entry.forEach(properties::put);
+        return properties;
+    }
+}
@@ -0,0 +1,42 @@
+import me.jameschan.hole.entry.EntryManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EntryManagerTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testConcurrentCreate() throws InterruptedException {
+        final var app = home.newApp();
+        final var entryManager = app.use(EntryManager.class);
+        final var idSet = ConcurrentHashMap.<Integer>newKeySet();
+        final var threads = new ArrayList<Thread>();
+        for (var t = 0; t < 8; ++t) {
+            final var thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (var i = 0; i < 1000; ++i) {
+                    final var value = thread + "-" + i;
+                    final var entry = entryManager.create(Map.of("value", value));
+                    if (entryManager.getById(entry.getId()).get("value").equals(value)) {
+                        idSet.add(entry.getId());
+                    }
+                }
+            }));
+        }
+
+        for (final var thread : threads) {
+            thread.join();
+        }
+
+        // Every entry got a distinct ID and was read back, and no ID was skipped
+        assertEquals(idSet.size(), 8000);
+        assertEquals(entryManager.getMaxId(), 8000);
+    }
+}
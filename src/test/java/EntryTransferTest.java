@@ -0,0 +1,92 @@
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.entry.transfer.EntryFormat;
+import me.jameschan.hole.entry.transfer.EntryTransferException;
+import me.jameschan.hole.handler.HandlerManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EntryTransferTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final var app = home.newApp();
+        final var handlerManager = app.use(HandlerManager.class);
+        final var entryManager = app.use(EntryManager.class);
+        final var apple = new LinkedHashMap<String, String>();
+        apple.put("key", "apple");
+        apple.put("value", "red");
+        entryManager.create(apple);
+        entryManager.create(Map.of("key", "😀", "value", "line\nbreak \"quoted\""));
+        entryManager.create(Map.of());
+
+        assertEquals(run(handlerManager, "export", "entries.jsonl"), "Entries exported: 3");
+        assertEquals(run(handlerManager, "export", "entries.bin"), "Entries exported: 3");
+        assertEquals(run(handlerManager, "export", "raw", "-f", "bin"), "Entries exported: 3");
+        assertEquals(
+            Files.readAllLines(home.dir().resolve("entries.jsonl")).getFirst(),
+            "{\"id\":1,\"properties\":{\"key\":\"apple\",\"value\":\"red\",\"time\":\""
+                + entryManager.getById(1).get("time") + "\"}}"
+        );
+
+        // Imported entries get new IDs and keep their properties, including the time
+        assertEquals(run(handlerManager, "import", "entries.jsonl"), "Entries imported: 3");
+        assertEquals(run(handlerManager, "import", "raw", "--format", "bin"),
+            "Entries imported: 3");
+        assertEquals(entryManager.getMaxId(), 9);
+
+        // Imported entries are indexed by key, also after later entries
+        assertEquals(run(handlerManager, "kv", "new", "banana", "yellow"),
+            "You've created a new entry: key: banana ; value: yellow");
+        assertEquals(run(handlerManager, "key", "apple"), String.join(
+            System.lineSeparator(), "red", "red", "red"
+        ));
+        for (final var offset : List.of(3, 6)) {
+            for (var id = 1; id <= 3; ++id) {
+                final var original = new HashMap<String, String>();
+                final var imported = new HashMap<String, String>();
+                entryManager.getById(id).forEach(original::put);
+                entryManager.getById(id + offset).forEach(imported::put);
+                assertEquals(imported, original);
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedInput() {
+        final var bytes = new byte[]{'H', 'O', 'L', 'X', 0, 0, 0, 1, 9, 1};
+        try (final var input = EntryFormat.BINARY.openInput(new ByteArrayInputStream(bytes))) {
+            assertThrows(EntryTransferException.class, () -> input.next((name, value) -> {}));
+        }
+
+        final var huge = new byte[]{'H', 'O', 'L', 'X', 0, 0, 0, 1, -1, -1, -1, -1, 7};
+        try (final var input = EntryFormat.BINARY.openInput(new ByteArrayInputStream(huge))) {
+            assertThrows(EntryTransferException.class, () -> input.next((name, value) -> {}));
+        }
+
+        assertThrows(
+            EntryTransferException.class,
+            () -> EntryFormat.BINARY.openInput(new ByteArrayInputStream(new byte[]{'{'}))
+        );
+        assertThrows(EntryTransferException.class, () -> EntryFormat.of("csv"));
+    }
+
+    private String run(final HandlerManager handlerManager, final String... rawArgs) {
+        final var bundle = new Bundle(new Env(home.dir().toString()));
+        handlerManager.handleRawArgs(List.of(rawArgs), bundle);
+        return bundle.buffer.toString().trim();
+    }
+}
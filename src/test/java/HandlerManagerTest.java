@@ -0,0 +1,96 @@
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.handler.HandlerManager;
+import me.jameschan.hole.handler.HandlerNotFoundException;
+import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.builtin.keyvalue.KeyValuePlugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HandlerManagerTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testSubcommands() {
+        final var handlerManager = home.newApp().use(HandlerManager.class);
+        assertEquals(run(handlerManager, "kv", "new", "apple", "red"),
+            "You've created a new entry: key: apple ; value: red");
+        assertEquals(run(handlerManager, "kv", "get", "apple"), "red");
+        assertEquals(run(handlerManager, "key", "apple"), "red");
+        assertEquals(run(handlerManager, "new"), "Entry created: 2");
+        assertEquals(run(handlerManager, "--version"), "Hole v1.0.0");
+
+        final var missing = assertThrows(
+            HandlerNotFoundException.class,
+            () -> run(handlerManager, "kv", "put", "apple")
+        );
+        assertEquals(missing.getMessage(), "Handler not found: kv put");
+        assertThrows(HandlerNotFoundException.class, () -> run(handlerManager, "kv"));
+        assertThrows(HandlerNotFoundException.class, () -> run(handlerManager, "apple"));
+    }
+
+    @Test
+    public void testVersionIsLazy() {
+        home.useLogStorage();
+        final var app = home.newApp();
+        final var handlerManager = app.use(HandlerManager.class);
+        assertEquals(run(handlerManager, "--version"), "Hole v1.0.0");
+
+        // Neither the storage nor any plugin is touched
+        assertFalse(Files.exists(home.dir().resolve("entries")));
+        assertFalse(app.use(PluginManager.class).getEnabledPlugins().iterator().hasNext());
+
+        assertEquals(run(handlerManager, "kv", "new", "apple", "red"),
+            "You've created a new entry: key: apple ; value: red");
+        assertEquals(run(handlerManager, "key", "apple"), "red");
+    }
+
+    @Test
+    public void testKeyWithoutValue() {
+        final var app = home.newApp();
+        app.use(EntryManager.class).create(Map.of("key", "pear"));
+        final var handlerManager = app.use(HandlerManager.class);
+        assertEquals(run(handlerManager, "kv", "new", "peach", "pink"),
+            "You've created a new entry: key: peach ; value: pink");
+        assertEquals(run(handlerManager, "key", "pear"), "");
+        assertEquals(run(handlerManager, "key", "--prefix", "pe"),
+            "peach: pink" + System.lineSeparator() + "pear:");
+    }
+
+    @Test
+    public void testKeyIndexFollowsStorage() {
+        final var firstApp = home.newApp();
+        final var firstHandlerManager = firstApp.use(HandlerManager.class);
+        run(firstHandlerManager, "kv", "new", "apple", "red");
+        assertEquals(run(firstHandlerManager, "key", "apple"), "red");
+        firstApp.destroy();
+
+        // Entries in memory are gone, and so are their keys, although IDs are reused
+        final var secondApp = home.newApp();
+        final var handlerManager = secondApp.use(HandlerManager.class);
+        run(handlerManager, "kv", "new", "banana", "yellow");
+        assertEquals(run(handlerManager, "key", "apple"), "");
+        assertEquals(run(handlerManager, "key", "banana"), "yellow");
+        assertFalse(Files.exists(home.dir().resolve("keyvalue")));
+
+        // A key of a missing entry is skipped instead of failing the listing
+        secondApp.use(PluginManager.class).get(KeyValuePlugin.class).index().add("bean", 9);
+        assertEquals(run(handlerManager, "key", "bean"), "");
+        assertEquals(run(handlerManager, "key", "--prefix", "b"), "banana: yellow");
+    }
+
+    private static String run(final HandlerManager handlerManager, final String... rawArgs) {
+        final var bundle = Bundle.create();
+        handlerManager.handleRawArgs(List.of(rawArgs), bundle);
+        return bundle.buffer.toString().trim();
+    }
+}
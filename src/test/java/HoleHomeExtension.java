@@ -0,0 +1,101 @@
+import me.jameschan.hole.common.HoleHome;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs every test of a class against a temporary home directory whose entries are kept in memory.
+ * Apps created with {@link #newApp()} are destroyed after the test, the system properties set
+ * through this extension are cleared, and the home directory is deleted.
+ * <pre>{@code
+ * @RegisterExtension
+ * final HoleHomeExtension home = new HoleHomeExtension();
+ * }</pre>
+ */
+public class HoleHomeExtension implements BeforeEachCallback, AfterEachCallback {
+    /**
+     * The home directory of the current test.
+     */
+    private Path dir;
+
+    /**
+     * The apps created by the current test, in order.
+     */
+    private final List<HoleApp> appList = new ArrayList<>();
+
+    /**
+     * The system properties set for the current test.
+     */
+    private final List<String> propertyList = new ArrayList<>();
+
+    @Override
+    public void beforeEach(final ExtensionContext context) throws IOException {
+        dir = Files.createTempDirectory("hole-home");
+        setProperty(HoleHome.PROPERTY, dir.toString());
+        setProperty(EntryManager.STORAGE_PROPERTY, "memory");
+    }
+
+    @Override
+    public void afterEach(final ExtensionContext context) throws IOException {
+        try {
+            for (var i = appList.size() - 1; i >= 0; --i) {
+                appList.get(i).destroy();
+            }
+        } finally {
+            appList.clear();
+            propertyList.forEach(System::clearProperty);
+            propertyList.clear();
+            try (final Stream<Path> stream = Files.walk(dir)) {
+                stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Returns the home directory of the current test.
+     * @return the home directory.
+     */
+    public Path dir() {
+        return dir;
+    }
+
+    /**
+     * Creates an app in the home directory, which is destroyed after the test unless the test
+     * destroys it first.
+     * @return the app.
+     */
+    public HoleApp newApp() {
+        final var app = new HoleApp();
+        appList.add(app);
+        return app;
+    }
+
+    /**
+     * Sets a system property for the current test.
+     * @param key   The key of the property.
+     * @param value The value of the property.
+     */
+    public void setProperty(final String key, final String value) {
+        System.setProperty(key, value);
+        propertyList.add(key);
+    }
+
+    /**
+     * Persists the entries of the apps created afterwards in the home directory, rather than
+     * keeping them in memory.
+     */
+    public void useLogStorage() {
+        System.clearProperty(EntryManager.STORAGE_PROPERTY);
+    }
+}
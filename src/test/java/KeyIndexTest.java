@@ -0,0 +1,84 @@
+import me.jameschan.hole.plugin.builtin.keyvalue.KeyIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class KeyIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testScans() {
+        try (final var index = KeyIndex.open(dir)) {
+            index.add("apple", 1);
+            index.add("banana", 2);
+            index.add("apricot", 3);
+            index.add("apple", 4);
+
+            assertEquals(index.get("apple").size(), 2);
+            assertEquals(index.get("apple").get(1), 4);
+            assertNull(index.get("cherry"));
+
+            final var prefixKeys = new ArrayList<String>();
+            index.forEachWithPrefix("ap", (key, idList) -> prefixKeys.add(key));
+            assertEquals(prefixKeys, List.of("apple", "apricot"));
+
+            final var rangeKeys = new ArrayList<String>();
+            index.forEachInRange("apricot", "cherry", (key, idList) -> rangeKeys.add(key));
+            assertEquals(rangeKeys, List.of("apricot", "banana"));
+        }
+    }
+
+    @Test
+    public void testReopenWithTornJournal() throws IOException {
+        try (final var index = KeyIndex.open(dir)) {
+            index.add("apple", 1);
+            index.add("banana", 2);
+        }
+
+        // Simulate a crash in the middle of appending a key
+        final var tornRecord = new byte[]{0, 0, 0, 5, 'c', 'h'};
+        Files.write(dir.resolve("keys.journal"), tornRecord, StandardOpenOption.APPEND);
+
+        try (final var index = KeyIndex.open(dir)) {
+            assertEquals(index.maxId(), 2);
+            assertEquals(index.get("banana").get(0), 2);
+            index.add("cherry", 3);
+        }
+
+        try (final var index = KeyIndex.open(dir)) {
+            assertEquals(index.maxId(), 3);
+            assertEquals(index.get("cherry").get(0), 3);
+        }
+    }
+
+    @Test
+    public void testClear() {
+        try (final var index = KeyIndex.open(dir)) {
+            index.add("apple", 1);
+            index.clear();
+            index.add("banana", 1);
+        }
+
+        try (final var index = KeyIndex.open(dir)) {
+            assertEquals(index.maxId(), 1);
+            assertNull(index.get("apple"));
+            assertEquals(index.get("banana").get(0), 1);
+        }
+
+        // An index kept in memory needs no directory
+        try (final var index = KeyIndex.create()) {
+            index.add("cherry", 1);
+            assertEquals(index.get("cherry").get(0), 1);
+        }
+    }
+}
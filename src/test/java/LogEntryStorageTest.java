@@ -0,0 +1,169 @@
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.storage.LogEntryStorage;
+import me.jameschan.hole.entry.storage.StorageException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class LogEntryStorageTest {
+    @TempDir
+    Path dir;
+
+    private static Entry createEntry(final int id, final String value) {
+        final var entry = new Entry(id);
+        entry.set("key", "key-" + id);
+        entry.set("value", value);
+
+        return entry;
+    }
+
+    @Test
+    public void testReopen() {
+        try (final var storage = new LogEntryStorage(dir)) {
+            for (var id = 1; id <= 100; ++id) {
+                storage.write(createEntry(id, "value-" + id));
+            }
+
+            // Entries can be read before they are flushed
+            assertEquals(storage.read(42).get("value"), "value-42");
+        }
+
+        try (final var storage = new LogEntryStorage(dir)) {
+            assertEquals(storage.maxId(), 100);
+            assertEquals(storage.read(1).get("key"), "key-1");
+            assertEquals(storage.read(100).get("value"), "value-100");
+            assertNull(storage.read(101));
+
+            // The same storage cannot be opened twice
+            assertThrowsExactly(StorageException.class, () -> new LogEntryStorage(dir));
+        }
+    }
+
+    @Test
+    public void testTornTail() throws IOException {
+        try (final var storage = new LogEntryStorage(dir)) {
+            storage.write(createEntry(1, "first"));
+            storage.write(createEntry(2, "second"));
+        }
+
+        // Simulate a crash in the middle of writing a record
+        final var tornRecord = new byte[]{0, 0, 0, 100, 1, 2};
+        Files.write(dir.resolve("00000001.log"), tornRecord, StandardOpenOption.APPEND);
+
+        try (final var storage = new LogEntryStorage(dir)) {
+            assertEquals(storage.maxId(), 2);
+            storage.write(createEntry(3, "third"));
+        }
+
+        try (final var storage = new LogEntryStorage(dir)) {
+            assertEquals(storage.read(2).get("value"), "second");
+            assertEquals(storage.read(3).get("value"), "third");
+        }
+    }
+
+    @Test
+    public void testUncleanShutdown() throws IOException {
+        final var copy = dir.resolve("copy");
+        try (final var storage = new LogEntryStorage(dir.resolve("origin"))) {
+            for (var id = 1; id <= 10; ++id) {
+                storage.write(createEntry(id, "value-" + id));
+            }
+            storage.flush();
+
+            // Copy the files while the storage is still open, as if the process had died
+            Files.createDirectories(copy);
+            try (final var stream = Files.list(dir.resolve("origin"))) {
+                for (final var path : stream.toList()) {
+                    Files.copy(path, copy.resolve(path.getFileName()));
+                }
+            }
+        }
+
+        try (final var storage = new LogEntryStorage(copy)) {
+            assertEquals(storage.maxId(), 10);
+            assertEquals(storage.read(10).get("value"), "value-10");
+        }
+    }
+
+    @Test
+    public void testCompaction() {
+        try (final var storage = new LogEntryStorage(dir, 1024, null)) {
+            for (var round = 0; round < 5; ++round) {
+                for (var id = 1; id <= 20; ++id) {
+                    storage.write(createEntry(id, "value-" + id + "-" + round));
+                }
+            }
+
+            final var segmentCount = storage.segmentCount();
+            for (var i = 0; i < segmentCount; ++i) {
+                storage.compact();
+            }
+
+            assertEquals(storage.read(7).get("value"), "value-7-4");
+        }
+
+        try (final var storage = new LogEntryStorage(dir, 1024, null)) {
+            for (var id = 1; id <= 20; ++id) {
+                assertEquals(storage.read(id).get("value"), "value-" + id + "-4");
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        try (final var storage = new LogEntryStorage(dir, 4096, null)) {
+            for (var id = 1; id <= 100; ++id) {
+                storage.write(createEntry(id, "value-" + id + "-0"));
+            }
+            storage.flush();
+
+            // Readers always see a whole record of the entry while it is rewritten and compacted
+            final var failures = new AtomicInteger();
+            final var done = new AtomicBoolean();
+            final var readers = new ArrayList<Thread>();
+            for (var t = 0; t < 4; ++t) {
+                readers.add(Thread.ofPlatform().start(() -> {
+                    var id = 0;
+                    while (!done.get()) {
+                        id = id % 100 + 1;
+                        try {
+                            final var entry = storage.read(id);
+                            if (!entry.get("key").equals("key-" + id)
+                                || !entry.get("value").startsWith("value-" + id + "-")) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (final RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+
+            for (var round = 1; round <= 20; ++round) {
+                for (var id = 1; id <= 100; ++id) {
+                    storage.write(createEntry(id, "value-" + id + "-" + round));
+                }
+                storage.compact();
+            }
+
+            done.set(true);
+            for (final var reader : readers) {
+                reader.join();
+            }
+
+            assertEquals(failures.get(), 0);
+            assertEquals(storage.read(100).get("value"), "value-100-20");
+        }
+    }
+}
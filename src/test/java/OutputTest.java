@@ -0,0 +1,54 @@
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.Output;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutputTest {
+    @Test
+    public void testStreaming() {
+        final var sink = new StringWriter();
+        final var output = new Output(sink);
+        final var line = "x".repeat(99) + "\n";
+        output.append("\n  ");
+        for (var i = 0; i < 200; ++i) {
+            output.append(line);
+        }
+
+        // Full batches are streamed before the output is finished, except trailing whitespace
+        assertTrue(sink.toString().length() >= Output.FLUSH_THRESHOLD);
+        assertTrue(output.toString().length() < Output.FLUSH_THRESHOLD);
+
+        output.append("tail  \n");
+        output.finish();
+        final var expected = (line.repeat(200) + "tail").trim() + System.lineSeparator();
+        assertEquals(sink.toString(), expected);
+    }
+
+    @Test
+    public void testAccumulating() {
+        final var output = new Output();
+        output.append("a").append(1).append(' ').append(2L);
+        output.finish();
+        assertEquals(output.toString(), "a1 2");
+    }
+
+    @Test
+    public void testBundleFork() {
+        final var bundle = Bundle.create();
+        bundle.buffer.append("head");
+
+        // Forks see the pending output and only their own additions are merged
+        final var first = bundle.fork();
+        final var second = bundle.fork();
+        assertEquals(first.buffer.toString(), "head");
+        first.buffer.append(" first");
+        second.buffer.append(" second");
+        bundle.merge(first);
+        bundle.merge(second);
+        assertEquals(bundle.buffer.toString(), "head first second");
+    }
+}
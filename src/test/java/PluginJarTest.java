@@ -0,0 +1,146 @@
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.config.ConfigManager;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.handler.HandlerManager;
+import me.jameschan.hole.plugin.PluginJar;
+import me.jameschan.hole.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PluginJarTest {
+    private static final String GREET_PLUGIN = """
+        package sample;
+
+        import me.jameschan.hole.command.Command;
+        import me.jameschan.hole.command.CommandTemplate;
+        import me.jameschan.hole.common.Bundle;
+        import me.jameschan.hole.common.StatusCode;
+        import me.jameschan.hole.entry.Entry;
+        import me.jameschan.hole.extend.HoleApp;
+        import me.jameschan.hole.handler.Handler;
+        import me.jameschan.hole.plugin.Plugin;
+
+        public class GreetPlugin extends Plugin {
+            public GreetPlugin(final HoleApp app) {
+                super(app);
+            }
+
+            @Override
+            protected void initHandlers() {
+                registerHandler("greet", new Handler(new CommandTemplate(1)) {
+                    @Override
+                    public void handle(Command command, Bundle bundle, HoleApp app) {
+                        bundle.buffer.append("Hello, ").append(command.args().getFirst());
+                        bundle.statusCode = StatusCode.SUCCESS;
+                    }
+                }, false);
+            }
+
+            @Override
+            public void onCreateEntry(final Entry entry) {
+                entry.set("greeted", "yes");
+            }
+        }
+        """;
+
+    private static final String IDLE_PLUGIN = """
+        package sample;
+
+        import me.jameschan.hole.extend.HoleApp;
+        import me.jameschan.hole.plugin.Plugin;
+
+        public class IdlePlugin extends Plugin {
+            public IdlePlugin(final HoleApp app) {
+                super(app);
+            }
+        }
+        """;
+
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testLazyLoading() throws IOException {
+        final var pluginDir = home.dir().resolve("plugins");
+        Files.createDirectories(pluginDir);
+        buildJar(pluginDir.resolve("greet.jar"), "GreetPlugin", GREET_PLUGIN, Map.of(
+            PluginJar.COMMANDS_ATTRIBUTE, "greet",
+            PluginJar.HOOKS_ATTRIBUTE, "ON_CREATE_ENTRY"
+        ));
+        buildJar(pluginDir.resolve("idle.jar"), "IdlePlugin", IDLE_PLUGIN, Map.of(
+            PluginJar.COMMANDS_ATTRIBUTE, "idle"
+        ));
+
+        home.setProperty(ConfigManager.PLUGIN_PATH_PROPERTY, pluginDir.toString());
+        final var app = home.newApp();
+        final var handlerManager = app.use(HandlerManager.class);
+        final var pluginJars = app.use(PluginManager.class).getPluginJars();
+        assertEquals(pluginJars.size(), 2);
+        final var greetJar = pluginJars.getFirst();
+        final var idleJar = pluginJars.get(1);
+        assertFalse(greetJar.isLoaded());
+        assertFalse(idleJar.isLoaded());
+
+        final var bundle = Bundle.create();
+        handlerManager.handleRawArgs(List.of("greet", "world"), bundle);
+        assertEquals(bundle.buffer.toString().trim(), "Hello, world");
+        assertTrue(greetJar.isLoaded());
+        assertFalse(idleJar.isLoaded());
+
+        final var entry = app.use(EntryManager.class).create(Map.of());
+        assertEquals(entry.get("greeted"), "yes");
+        assertFalse(idleJar.isLoaded());
+    }
+
+    private void buildJar(
+        final Path jarPath,
+        final String className,
+        final String source,
+        final Map<String, String> attributeMap
+    ) throws IOException {
+        final var dir = home.dir();
+        final var sourceDir = Files.createDirectories(dir.resolve("src").resolve(className));
+        final var sourcePath = sourceDir.resolve(className + ".java");
+        Files.writeString(sourcePath, source);
+        final var classesDir = Files.createDirectories(dir.resolve("classes").resolve(className));
+        final var compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(compiler.run(null, null, null,
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", classesDir.toString(),
+            sourcePath.toString()
+        ), 0);
+
+        final var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(
+            PluginJar.PLUGIN_CLASS_ATTRIBUTE,
+            "sample." + className
+        );
+        attributeMap.forEach(manifest.getMainAttributes()::putValue);
+        try (final var output = new JarOutputStream(Files.newOutputStream(jarPath), manifest);
+             final var classFiles = Files.walk(classesDir)) {
+            for (final var classFile : classFiles.filter(Files::isRegularFile).toList()) {
+                final var name = classesDir.relativize(classFile).toString().replace('\\', '/');
+                output.putNextEntry(new JarEntry(name));
+                output.write(Files.readAllBytes(classFile));
+                output.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import me.jameschan.hole.annotation.DependsOn;
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.EntryManager;
+import me.jameschan.hole.extend.HoleApp;
+import me.jameschan.hole.plugin.Plugin;
+import me.jameschan.hole.plugin.PluginHook;
+import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.builtin.keyvalue.KeyValuePlugin;
+import me.jameschan.hole.plugin.builtin.server.ServerPlugin;
+import me.jameschan.hole.plugin.builtin.time.TimePlugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PluginManagerTest {
+    /**
+     * Counted down by the independent plugins, which only all get past it if they run concurrently.
+     */
+    private static final CountDownLatch LATCH = new CountDownLatch(2);
+
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testHookOrder() {
+        final var app = home.newApp();
+        final var pluginManager = app.use(PluginManager.class);
+        for (final var pluginClass : new Class[]{
+            DependentPlugin.class, FirstPlugin.class, SecondPlugin.class
+        }) {
+            @SuppressWarnings("unchecked")
+            final Class<? extends Plugin> loadedClass = pluginClass;
+            pluginManager.load(loadedClass);
+            pluginManager.enable(loadedClass.getName());
+        }
+
+        final var entry = app.use(EntryManager.class).create(Map.of("name", "apple"));
+        assertEquals(entry.get("first"), "apple");
+        assertEquals(entry.get("second"), "apple");
+        assertEquals(entry.get("dependent"), "apple apple");
+
+        // Both independent plugins write this; the later one in plugin order wins
+        assertEquals(entry.get("shared"), "second");
+        assertTrue(entry.has("time"));
+    }
+
+    @Test
+    public void testIndexAfterWrite() {
+        final var app = home.newApp();
+        final var pluginManager = app.use(PluginManager.class);
+        pluginManager.load(RekeyPlugin.class);
+        pluginManager.enable(RekeyPlugin.class.getName());
+        final var index = pluginManager.get(KeyValuePlugin.class).index();
+
+        // The key is indexed as written, after every plugin has enriched the entry
+        final var entryManager = app.use(EntryManager.class);
+        final var entry = entryManager.create(Map.of(KeyValuePlugin.KEY, "apple"));
+        assertEquals(index.get("APPLE").get(0), entry.getId());
+        assertNull(index.get("apple"));
+
+        // An entry that fails to be created is not indexed
+        assertThrows(
+            RuntimeException.class,
+            () -> entryManager.create(Map.of(KeyValuePlugin.KEY, "broken"))
+        );
+        assertNull(index.get("broken"));
+        assertNull(index.get("BROKEN"));
+    }
+
+    @Test
+    public void testHookDetection() {
+        // The hooks declared for builtin plugins by PluginManager must match these
+        assertTrue(PluginHook.ON_CREATE_ENTRY.isImplementedBy(TimePlugin.class));
+        assertFalse(PluginHook.BEFORE_PRINT.isImplementedBy(TimePlugin.class));
+        assertFalse(PluginHook.AFTER_CREATE_ENTRY.isImplementedBy(TimePlugin.class));
+        assertFalse(PluginHook.ON_CREATE_ENTRY.isImplementedBy(KeyValuePlugin.class));
+        assertTrue(PluginHook.AFTER_CREATE_ENTRY.isImplementedBy(KeyValuePlugin.class));
+        for (final var hook : PluginHook.values()) {
+            assertFalse(hook.isImplementedBy(ServerPlugin.class));
+        }
+    }
+
+    private static void awaitOther() {
+        LATCH.countDown();
+        try {
+            assertTrue(LATCH.await(10, TimeUnit.SECONDS));
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class FirstPlugin extends Plugin {
+        public FirstPlugin(final HoleApp app) {
+            super(app);
+        }
+
+        @Override
+        public void onCreateEntry(final Entry entry) {
+            awaitOther();
+            entry.set("first", entry.get("name"));
+            entry.set("shared", "first");
+        }
+    }
+
+    public static class SecondPlugin extends Plugin {
+        public SecondPlugin(final HoleApp app) {
+            super(app);
+        }
+
+        @Override
+        public void onCreateEntry(final Entry entry) {
+            awaitOther();
+            entry.set("second", entry.get("name"));
+            entry.set("shared", "second");
+        }
+    }
+
+    @DependsOn({FirstPlugin.class, SecondPlugin.class})
+    public static class DependentPlugin extends Plugin {
+        public DependentPlugin(final HoleApp app) {
+            super(app);
+        }
+
+        @Override
+        public void onCreateEntry(final Entry entry) {
+            entry.set("dependent", entry.get("first") + " " + entry.get("second"));
+        }
+    }
+
+    public static class RekeyPlugin extends Plugin {
+        public RekeyPlugin(final HoleApp app) {
+            super(app);
+        }
+
+        @Override
+        public void onCreateEntry(final Entry entry) {
+            final var key = entry.get(KeyValuePlugin.KEY);
+            if (key.equals("broken")) {
+                throw new IllegalStateException("Broken entry");
+            }
+
+            entry.set(KeyValuePlugin.KEY, key.toUpperCase());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import me.jameschan.hole.entry.Entry;
+import me.jameschan.hole.entry.KeyNotFoundException;
+import me.jameschan.hole.entry.PropertyTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class PropertyTableTest {
+    @Test
+    public void testSharedColumns() {
+        final var table = new PropertyTable();
+        final var first = table.entry(1);
+        final var second = table.entry(5000);
+        first.set("key", "a");
+        first.set("time", "1700000000000");
+        second.set("key", "b");
+
+        assertEquals(table.columnCount(), 2);
+        assertEquals(first.get("time"), "1700000000000");
+        assertEquals(second.get("key"), "b");
+        assertThrowsExactly(KeyNotFoundException.class, () -> second.get("time"));
+
+        // Removing a property
+        first.set("key", null);
+        assertNull(table.get(1, "key"));
+    }
+
+    @Test
+    public void testLongColumnConversion() {
+        final var table = new PropertyTable();
+        table.entry(1).set("number", "42");
+        table.entry(2).set("number", "-7");
+
+        // Non-canonical longs must be preserved exactly
+        table.entry(3).set("number", "007");
+        assertEquals(table.get(1, "number"), "42");
+        assertEquals(table.get(2, "number"), "-7");
+        assertEquals(table.get(3, "number"), "007");
+
+        final var properties = new LinkedHashMap<String, String>();
+        table.entry(2).forEach(properties::put);
+        assertEquals(properties.get("number"), "-7");
+    }
+
+    @Test
+    public void testDetachedEntry() {
+        final var entry = new Entry(1);
+        entry.set("key", "a");
+        entry.set("value", "b");
+        entry.set("time", "1700000000000");
+        entry.set("key", "c");
+        entry.set("value", null);
+
+        final var properties = new LinkedHashMap<String, String>();
+        entry.forEach(properties::put);
+        assertEquals(properties.toString(), "{key=c, time=1700000000000}");
+        assertThrowsExactly(KeyNotFoundException.class, () -> entry.get("value"));
+
+        // A fork only merges what it sets
+        final var fork = entry.fork();
+        fork.set("value", "d");
+        entry.set("key", "e");
+        entry.merge(fork);
+        assertEquals(entry.get("key"), "e");
+        assertEquals(entry.get("value"), "d");
+    }
+}
@@ -0,0 +1,75 @@
+import com.google.gson.JsonParser;
+import me.jameschan.hole.common.Bundle;
+import me.jameschan.hole.common.Env;
+import me.jameschan.hole.common.StatusCode;
+import me.jameschan.hole.handler.HandlerManager;
+import me.jameschan.hole.plugin.PluginManager;
+import me.jameschan.hole.plugin.builtin.server.ServerPlugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ServerPluginTest {
+    @RegisterExtension
+    final HoleHomeExtension home = new HoleHomeExtension();
+
+    @Test
+    public void testRoutes() throws IOException, InterruptedException {
+        final var app = home.newApp();
+        try (final var client = HttpClient.newHttpClient()) {
+            final var serverPlugin = app.use(PluginManager.class).get(ServerPlugin.class);
+            final var address = serverPlugin.start(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+            );
+            final var baseUri = "http://127.0.0.1:" + address.getPort();
+
+            final var created = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/kv/new"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[\"apple\", \"red\"]"))
+                    .build(),
+                HttpResponse.BodyHandlers.ofString()
+            );
+            assertEquals(created.statusCode(), 200);
+
+            final var found = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/kv/get?arg=apple")).build(),
+                HttpResponse.BodyHandlers.ofString()
+            );
+            final var body = JsonParser.parseString(found.body()).getAsJsonObject();
+            assertEquals(body.get("status").getAsString(), "SUCCESS");
+            assertEquals(body.get("output").getAsString(), "red");
+
+            final var missing = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/missing")).build(),
+                HttpResponse.BodyHandlers.ofString()
+            );
+            assertEquals(missing.statusCode(), 404);
+        }
+    }
+
+    @Test
+    public void testServeRefused() {
+        final var app = home.newApp();
+        final var handlerManager = app.use(HandlerManager.class);
+
+        // Serving would block a daemon until it is killed
+        final var daemonBundle = new Bundle(new Env(home.dir().toString(), true));
+        handlerManager.handleRawArgs(List.of("serve", "--port", "0"), daemonBundle);
+        assertEquals(daemonBundle.statusCode, StatusCode.INVALID_COMMAND);
+
+        final var bundle = new Bundle(new Env(home.dir().toString()));
+        handlerManager.handleRawArgs(List.of("serve", "--port", "http"), bundle);
+        assertEquals(bundle.statusCode, StatusCode.INVALID_COMMAND);
+        assertEquals(bundle.buffer.toString(), "Invalid port: http");
+    }
+}
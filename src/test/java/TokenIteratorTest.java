@@ -0,0 +1,39 @@
+import me.jameschan.hole.command.TokenIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TokenIteratorTest {
+    @Test
+    public void testTokens() {
+        final var tokenIterator = new TokenIterator(
+            List.of("key", "-ab", "--prefix", "-", "-é", "", "value")
+        );
+
+        final List<String> tokens = new ArrayList<>();
+        while (tokenIterator.hasNext()) {
+            final var peeked = tokenIterator.peek();
+            assertEquals(tokenIterator.next(), peeked);
+            tokens.add(peeked);
+        }
+
+        assertEquals(tokens, List.of("key", "-a", "-b", "--prefix", "-", "-é", "", "value"));
+        assertNull(tokenIterator.peek());
+        assertNull(tokenIterator.next());
+    }
+
+    @Test
+    public void testSharedShortOptions() {
+        final var first = new TokenIterator(List.of("-xy"));
+        final var second = new TokenIterator(List.of("-yx"));
+        first.next();
+
+        // Short options with ASCII labels are not allocated per token
+        assertSame(first.next(), second.peek());
+    }
+}